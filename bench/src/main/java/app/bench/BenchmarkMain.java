@@ -0,0 +1,32 @@
+package app.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs every Chutes and Ladders benchmark with the GC profiler, so each result
+ * reports ops/s together with its allocation rate. Any arguments are passed to
+ * the regular JMH command line instead, for example to pick benchmarks or
+ * write results to a file for comparing releases.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class BenchmarkMain {
+
+	public static void main(String[] args) throws RunnerException, java.io.IOException {
+		if (args.length > 0) {
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+
+		Options options = new OptionsBuilder()
+				.include("app\\.bench\\..*")
+				.addProfiler(GCProfiler.class)
+				.build();
+		new Runner(options).run();
+	}
+}
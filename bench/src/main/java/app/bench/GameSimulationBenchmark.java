@@ -0,0 +1,81 @@
+package app.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import app.BoardModel;
+import app.GameDirector;
+import app.GameEngine;
+import app.LockstepSimulator;
+
+/**
+ * Measures simulating a whole game, both headless through the GameEngine and
+ * through the GameDirector the GUI uses, on a fixed board and on a newly
+ * generated board for every game, and many games at once on a fixed board
+ * through the LockstepSimulator.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class GameSimulationBenchmark {
+	private BoardModel board;
+	private GameEngine engine;
+	private GameDirector director;
+	private LockstepSimulator lockstep;
+
+	@Setup
+	public void setUp() {
+		board = new BoardModel();
+		engine = new GameEngine();
+		director = new GameDirector(700);
+		lockstep = new LockstepSimulator(board, 1);
+	}
+
+	@Benchmark
+	public int engineGame() {
+		return engine.play(board).getTotalTurns();
+	}
+
+	@Benchmark
+	public int engineGameNewBoard() {
+		return engine.play(new BoardModel()).getTotalTurns();
+	}
+
+	@Benchmark
+	public int directorGame() {
+		director.resetGame(board);
+		while (director.isActive) {
+			director.startPlayerSpin();
+			director.movePlayer();
+			if (!director.isLadder()) {
+				director.takeChuteOrLadder();
+			}
+			director.endTurn();
+		}
+		return director.getTotalTurns();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LockstepSimulator.DEFAULT_LANES)
+	@Fork(value = 1, jvmArgsAppend = { "-Djava.awt.headless=true", "--add-modules", "jdk.incubator.vector" })
+	public long lockstepGame() {
+		return lockstep.simulate(LockstepSimulator.DEFAULT_LANES).getTotalTurns();
+	}
+}
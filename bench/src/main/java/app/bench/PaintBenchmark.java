@@ -0,0 +1,69 @@
+package app.bench;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import app.Board;
+import app.GameDirector;
+
+/**
+ * Measures painting the whole board, players, and move highlight into an
+ * offscreen image, the work done for every frame the GUI draws. The game is
+ * played a few turns in so that players are on the board and the current
+ * player has a move to highlight.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class PaintBenchmark {
+	private BufferedImage image;
+	private Graphics2D graphics;
+	private Board board;
+
+	@Setup
+	public void setUp() {
+		GameDirector director = new GameDirector(700);
+		for (int turn = 0; turn < 8 && director.isActive; turn++) {
+			director.startPlayerSpin();
+			director.movePlayer();
+			director.takeChuteOrLadder();
+			director.endTurn();
+		}
+		if (director.isActive)
+			director.startPlayerSpin();
+
+		board = director.getGameBoard();
+		image = new BufferedImage(700, 700, BufferedImage.TYPE_INT_ARGB);
+		graphics = image.createGraphics();
+	}
+
+	@TearDown
+	public void tearDown() {
+		graphics.dispose();
+	}
+
+	@Benchmark
+	public BufferedImage paintAll() {
+		board.paintAll(graphics);
+		return image;
+	}
+}
@@ -0,0 +1,59 @@
+package app.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import app.BoardModel;
+import app.GameDirector;
+
+/**
+ * Measures one full turn through the GameDirector: spin, move, take a chute,
+ * and end the turn, the same steps the "Game Simulation" button takes. When a
+ * game ends the next one starts on the same board, so board generation is not
+ * part of the measurement.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class TurnBenchmark {
+	private BoardModel board;
+	private GameDirector director;
+
+	@Setup
+	public void setUp() {
+		board = new BoardModel();
+		director = new GameDirector(700);
+		director.resetGame(board);
+	}
+
+	@Benchmark
+	public boolean fullTurn() {
+		director.startPlayerSpin();
+		director.movePlayer();
+		if (!director.isLadder()) {
+			director.takeChuteOrLadder();
+		}
+		director.endTurn();
+
+		if (!director.isActive) {
+			director.resetGame(board);
+		}
+		return director.isActive;
+	}
+}
@@ -0,0 +1,75 @@
+package app;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link LockstepKernel} that plays as many lanes per instruction as the CPU's
+ * vectors hold, using the incubating Vector API. Squares are looked up in the
+ * chute tables with gathers indexed by the squares the lanes landed on.
+ * <p>
+ * Compiling and running this class needs
+ * <code>--add-modules jdk.incubator.vector</code>, so it lives in its own
+ * source root, src-vector, which only the benchmark build compiles; src builds
+ * with the default JDK settings without it. The {@link LockstepSimulator}
+ * loads it by name and falls back to the scalar kernel when the class or the
+ * module is missing, so nothing else depends on it.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+final class LockstepVectorKernel implements LockstepKernel {
+	private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+	private int[] landed = new int[0];
+
+	@Override
+	public int step(LockstepSimulator sim, int slot, int[] finished) {
+		int lanes = sim.lanes;
+		int finish = sim.finish;
+		int[] rng = sim.rng;
+		int[] position = sim.position[slot];
+		int[] tokens = sim.tokens[slot];
+		int[] turns = sim.turns[slot];
+		if (landed.length < lanes)
+			landed = new int[sim.position[0].length];
+
+		int count = 0;
+		int g = 0;
+		for (int bound = SPECIES.loopBound(lanes); g < bound; g += SPECIES.length()) {
+			// xorshift32 for each lane, then a spin of 1-6 from its high bits
+			IntVector x = IntVector.fromArray(SPECIES, rng, g);
+			x = x.lanewise(VectorOperators.XOR, x.lanewise(VectorOperators.LSHL, 13));
+			x = x.lanewise(VectorOperators.XOR, x.lanewise(VectorOperators.LSHR, 17));
+			x = x.lanewise(VectorOperators.XOR, x.lanewise(VectorOperators.LSHL, 5));
+			x.intoArray(rng, g);
+			IntVector spin = x.lanewise(VectorOperators.LSHR, 8).mul(6).lanewise(VectorOperators.LSHR, 24).add(1);
+
+			IntVector to = IntVector.fromArray(SPECIES, position, g).add(spin);
+			VectorMask<Integer> overshot = to.compare(VectorOperators.GT, finish);
+			IntVector held = IntVector.fromArray(SPECIES, tokens, g).add(spin.blend(0, overshot));
+			to = to.min(finish);
+			to.intoArray(landed, g);
+
+			IntVector target = IntVector.fromArray(SPECIES, sim.chuteTarget, 0, landed, g);
+			IntVector loss = IntVector.fromArray(SPECIES, sim.chuteWeight, 0, landed, g);
+			target.intoArray(position, g);
+			held.add(loss).max(0).intoArray(tokens, g);
+			IntVector.fromArray(SPECIES, turns, g).add(1).intoArray(turns, g);
+
+			VectorMask<Integer> done = target.compare(VectorOperators.EQ, finish);
+			if (done.anyTrue()) {
+				for (long bits = done.toLong(); bits != 0; bits &= bits - 1) {
+					finished[count++] = g + Long.numberOfTrailingZeros(bits);
+				}
+			}
+		}
+		for (; g < lanes; g++) {
+			if (LockstepSimulator.stepLane(sim, slot, g))
+				finished[count++] = g;
+		}
+		return count;
+	}
+}
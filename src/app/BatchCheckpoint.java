@@ -0,0 +1,247 @@
+package app;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves the progress of a long {@link BatchSimulator} run to a file, so a run
+ * that crashed or was stopped can go on where it left off. A run is split into
+ * chunks of games, and the file holds which chunks are done and the results of
+ * every game in them merged together. The spins of every game come from a
+ * RandomSource stream given by the master seed and the number of the game, so
+ * the chunks that are done are all that is needed to know where every stream
+ * stands.
+ * <p>
+ * The file is written every few seconds by a background thread. The progress
+ * is copied into a block of memory while holding the lock the simulation
+ * threads record their chunks with, which takes no I/O, and the block is then
+ * written to a temporary file, forced to the disk, and renamed over the
+ * checkpoint. A crash in the middle of a write leaves the last checkpoint as
+ * it was.
+ * <p>
+ * The file starts with the magic number, the format version, the master seed,
+ * the number of games, the number of squares, a fingerprint of the board and
+ * policy, the number of chunks, and the chunks that are done as a bitset,
+ * followed by the merged results as written by
+ * {@link SimulationResults#writeTo(java.io.DataOutput)}.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class BatchCheckpoint implements Closeable {
+	static final int MAGIC = 0x434C4331; // "CLC1"
+	static final int VERSION = 1;
+
+	private final Path path;
+	private final Path temp;
+	private final long intervalMillis;
+	private ScheduledExecutorService writer;
+	private volatile IOException failure;
+
+	private long seed;
+	private long games;
+	private int squares;
+	private int fingerprint;
+	private int chunks;
+	private BitSet done;
+	private SimulationResults results;
+	private boolean changed;
+
+	/**
+	 * Initializes a checkpoint that is written to the given file.
+	 *
+	 * @param path           checkpoint file, which may hold an earlier checkpoint
+	 * @param intervalMillis time between checkpoints
+	 */
+	public BatchCheckpoint(Path path, long intervalMillis) {
+		this.path = path;
+		this.temp = path.resolveSibling(path.getFileName() + ".tmp");
+		this.intervalMillis = intervalMillis;
+	}
+
+	/**
+	 * Starts checkpointing a run. If the file holds a checkpoint of the same run,
+	 * its progress is loaded; otherwise the run starts from nothing.
+	 *
+	 * @param seed        master seed of the run
+	 * @param games       number of games of the run
+	 * @param squares     number of squares of generated boards
+	 * @param fingerprint fingerprint of the board and policy of the run
+	 * @param chunks      number of chunks the run is split into
+	 * @throws IOException if the checkpoint cannot be read or is of another run
+	 */
+	synchronized void begin(long seed, long games, int squares, int fingerprint, int chunks) throws IOException {
+		this.seed = seed;
+		this.games = games;
+		this.squares = squares;
+		this.fingerprint = fingerprint;
+		this.chunks = chunks;
+		if (Files.exists(path)) {
+			load();
+		} else {
+			done = new BitSet(chunks);
+			results = new SimulationResults();
+		}
+
+		writer = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "BatchCheckpoint writer");
+			t.setDaemon(true);
+			return t;
+		});
+		writer.scheduleWithFixedDelay(this::checkpoint, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	// helper method to load the progress of the same run from the file
+	private void load() throws IOException {
+		try (InputStream file = Files.newInputStream(path);
+				DataInputStream in = new DataInputStream(new BufferedInputStream(file))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				throw new IOException("Not a checkpoint: " + path);
+			if (in.readLong() != seed || in.readLong() != games || in.readInt() != squares
+					|| in.readInt() != fingerprint || in.readInt() != chunks)
+				throw new IOException("Checkpoint " + path + " is of a different run");
+			long[] words = new long[in.readInt()];
+			for (int i = 0; i < words.length; i++) {
+				words[i] = in.readLong();
+			}
+			done = BitSet.valueOf(words);
+			results = SimulationResults.read(in);
+		}
+	}
+
+	/**
+	 * Checks if a chunk was done before.
+	 *
+	 * @param chunk number of the chunk
+	 * @return true if the chunk is done
+	 */
+	synchronized boolean isDone(int chunk) {
+		return done.get(chunk);
+	}
+
+	/**
+	 * Returns the number of chunks done.
+	 *
+	 * @return chunks done
+	 */
+	public synchronized int chunksDone() {
+		return done.cardinality();
+	}
+
+	/**
+	 * Records the results of a chunk that is done.
+	 *
+	 * @param chunk        number of the chunk
+	 * @param chunkResults results of the games of the chunk
+	 */
+	synchronized void completed(int chunk, SimulationResults chunkResults) {
+		results.merge(chunkResults);
+		done.set(chunk);
+		changed = true;
+	}
+
+	/**
+	 * Returns the results of every chunk done so far.
+	 *
+	 * @return merged results
+	 */
+	synchronized SimulationResults getResults() {
+		return results;
+	}
+
+	// runs on the writer thread: writes the progress if anything changed
+	private void checkpoint() {
+		byte[] snapshot;
+		synchronized (this) {
+			if (!changed)
+				return;
+			try {
+				snapshot = snapshot();
+			} catch (IOException e) {
+				failure = e;
+				return;
+			}
+			changed = false;
+		}
+		try {
+			write(snapshot);
+		} catch (IOException e) {
+			failure = e;
+		}
+	}
+
+	// helper method to copy the progress into memory, holding the lock
+	private byte[] snapshot() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeLong(seed);
+		out.writeLong(games);
+		out.writeInt(squares);
+		out.writeInt(fingerprint);
+		out.writeInt(chunks);
+		long[] words = done.toLongArray();
+		out.writeInt(words.length);
+		for (long w : words) {
+			out.writeLong(w);
+		}
+		results.writeTo(out);
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	// helper method to write a snapshot to the temporary file and rename it over
+	// the checkpoint
+	private void write(byte[] snapshot) throws IOException {
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.wrap(snapshot);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(true);
+		}
+		try {
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Stops the writer thread and writes the last checkpoint.
+	 *
+	 * @throws IOException if any checkpoint could not be written
+	 */
+	@Override
+	public void close() throws IOException {
+		if (writer != null) {
+			writer.shutdown();
+			try {
+				writer.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			checkpoint();
+		}
+		if (failure != null)
+			throw failure;
+	}
+}
@@ -0,0 +1,259 @@
+package app;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import edu.princeton.cs.algs4.Queue;
+
+/**
+ * Simulates a large batch of games across every available core. The batch is
+ * split in half until each piece is small enough to play on one thread with
+ * its own GameEngine and SimulationResults, and the results are merged as the
+ * pieces are joined back together.
+ * <p>
+ * Every piece draws its spins and boards from its own RandomSource, derived
+ * from the master seed and the number of its first game. How the batch is split
+ * does not depend on the number of threads, so the same seed always gives the
+ * same results.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class BatchSimulator {
+	/** Number of games a single task plays before it stops splitting. */
+	static final int GAMES_PER_TASK = 4096;
+	/** Most games in a chunk of a checkpointed run. */
+	static final int GAMES_PER_CHUNK = 64 * GAMES_PER_TASK;
+
+	private final ForkJoinPool pool;
+	private final long seed;
+	private final int squares;
+	private final TurnPolicy policy;
+
+	/**
+	 * Initializes a simulator with a random master seed that uses the common
+	 * fork/join pool.
+	 */
+	public BatchSimulator() {
+		this(ForkJoinPool.commonPool(), new SplittableRandom().nextLong());
+	}
+
+	/**
+	 * Initializes a simulator that runs its tasks in the given pool.
+	 *
+	 * @param pool fork/join pool
+	 * @param seed master seed of every simulation
+	 */
+	public BatchSimulator(ForkJoinPool pool, long seed) {
+		this(pool, seed, BoardGenerator.DEFAULT_SQUARES);
+	}
+
+	/**
+	 * Initializes a simulator that generates boards of the given size.
+	 *
+	 * @param pool    fork/join pool
+	 * @param seed    master seed of every simulation
+	 * @param squares number of the finish square of generated boards
+	 */
+	public BatchSimulator(ForkJoinPool pool, long seed, int squares) {
+		this(pool, seed, squares, TurnPolicy.SIMULATION);
+	}
+
+	/**
+	 * Initializes a simulator whose players make their choices with the given
+	 * policy. A policy solved for one board, like an {@link OptimalPolicy}, should
+	 * only be used to simulate games on that board.
+	 *
+	 * @param pool    fork/join pool
+	 * @param seed    master seed of every simulation
+	 * @param squares number of the finish square of generated boards
+	 * @param policy  choices every player makes during their turns
+	 */
+	public BatchSimulator(ForkJoinPool pool, long seed, int squares, TurnPolicy policy) {
+		this.pool = pool;
+		this.seed = seed;
+		this.squares = squares;
+		this.policy = policy;
+	}
+
+	/**
+	 * Simulates the given number of games, each on a newly generated board.
+	 *
+	 * @param games number of games
+	 * @return merged results of every game
+	 */
+	public SimulationResults simulate(long games) {
+		return simulate(null, games);
+	}
+
+	/**
+	 * Simulates the given number of games on one board.
+	 *
+	 * @param board board to play on, or null to generate a board for every game
+	 * @param games number of games
+	 * @return merged results of every game
+	 */
+	public SimulationResults simulate(BoardModel board, long games) {
+		return pool.invoke(new SimulationTask(board, seed, squares, policy, 0, games));
+	}
+
+	/**
+	 * Simulates the given number of games on one board, saving the progress to
+	 * a checkpoint as chunks of games are done. If the checkpoint holds progress
+	 * of the same run, only the chunks that were not done are played. Chunks are
+	 * the same batches the games would be split into without a checkpoint, so the
+	 * results are the same as those of a run that was never stopped.
+	 *
+	 * @param board      board to play on, or null to generate a board for every
+	 *                   game
+	 * @param games      number of games
+	 * @param checkpoint checkpoint to resume from and save to, closed once every
+	 *                   game is played
+	 * @return merged results of every game
+	 * @throws IOException if the checkpoint cannot be read or written
+	 */
+	public SimulationResults simulate(BoardModel board, long games, BatchCheckpoint checkpoint) throws IOException {
+		Queue<SimulationTask> chunks = new Queue<>();
+		split(board, 0, games, chunks);
+		try (BatchCheckpoint c = checkpoint) {
+			c.begin(seed, games, squares, fingerprint(board), chunks.size());
+
+			List<ForkJoinTask<?>> remaining = new ArrayList<>();
+			int chunk = 0;
+			for (SimulationTask task : chunks) {
+				int number = chunk++;
+				if (!c.isDone(number))
+					remaining.add(ForkJoinTask.adapt(() -> c.completed(number, task.compute())));
+			}
+			pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(remaining)));
+			return c.getResults();
+		}
+	}
+
+	// helper method to split the games from first on the same way a
+	// SimulationTask does, until the batches are small enough to be chunks
+	private void split(BoardModel board, long first, long games, Queue<SimulationTask> chunks) {
+		if (games <= GAMES_PER_CHUNK) {
+			chunks.enqueue(new SimulationTask(board, seed, squares, policy, first, games));
+			return;
+		}
+		long half = games / 2;
+		split(board, first, half, chunks);
+		split(board, first + half, games - half, chunks);
+	}
+
+	// helper method to tell runs on different boards or with different policies
+	// apart
+	private int fingerprint(BoardModel board) {
+		int hash = policy.getClass().getName().hashCode();
+		if (board == null)
+			return hash;
+		BoardLayout layout = board.getLayout();
+		for (int c = 0; c < layout.chutes(); c++) {
+			hash = 31 * (31 * hash + layout.chuteFrom(c)) + layout.chuteTo(c);
+		}
+		for (int l = 0; l < layout.ladders(); l++) {
+			hash = 31 * (31 * hash + layout.ladderFrom(l)) + layout.ladderTo(l);
+		}
+		return hash;
+	}
+
+	/**
+	 * Plays a batch of games and splits itself while the batch is too large.
+	 */
+	@SuppressWarnings("serial")
+	private static class SimulationTask extends RecursiveTask<SimulationResults> {
+		private final BoardModel board;
+		private final long seed;
+		private final int squares;
+		private final TurnPolicy policy;
+		private final long first;
+		private final long games;
+
+		SimulationTask(BoardModel board, long seed, int squares, TurnPolicy policy, long first, long games) {
+			this.board = board;
+			this.seed = seed;
+			this.squares = squares;
+			this.policy = policy;
+			this.first = first;
+			this.games = games;
+		}
+
+		@Override
+		protected SimulationResults compute() {
+			if (games <= GAMES_PER_TASK) {
+				return play();
+			}
+
+			long half = games / 2;
+			SimulationTask left = new SimulationTask(board, seed, squares, policy, first, half);
+			SimulationTask right = new SimulationTask(board, seed, squares, policy, first + half, games - half);
+			left.fork();
+			SimulationResults results = right.compute();
+			results.merge(left.join());
+			return results;
+		}
+
+		// helper method to play every game of this task on the current thread
+		private SimulationResults play() {
+			SimulationResults results = new SimulationResults();
+			RandomSource random = RandomSource.stream(seed, first);
+			GameEngine engine = new GameEngine(policy);
+			engine.setRandomSource(random);
+
+			for (long i = 0; i < games; i++) {
+				BoardModel b = board != null ? board : newBoard(random);
+				results.record(engine.play(b));
+			}
+			return results;
+		}
+
+		// helper method to generate a board for the next game
+		private BoardModel newBoard(RandomSource random) {
+			if (squares == BoardGenerator.DEFAULT_SQUARES)
+				return new BoardModel(random);
+			return new BoardModel(random, squares);
+		}
+	}
+
+	/**
+	 * Simulates a number of games and prints the results. Accepts the number of
+	 * games, whether every game gets a new board ("new") or all games share one
+	 * board ("same"), the master seed, the number of squares of each board,
+	 * "optimal" to play the same board with an {@link OptimalPolicy} or
+	 * "simulation", and a checkpoint file the run is saved to every ten seconds
+	 * and resumed from if it is there.
+	 */
+	public static void main(String[] args) throws IOException {
+		long games = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+		boolean newBoards = args.length > 1 && args[1].equals("new");
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : new SplittableRandom().nextLong();
+		int squares = args.length > 3 ? Integer.parseInt(args[3]) : BoardGenerator.DEFAULT_SQUARES;
+
+		boolean optimal = args.length > 4 && args[4].equals("optimal");
+		if (optimal && newBoards)
+			throw new IllegalArgumentException("The optimal policy is solved for one board, use \"same\"");
+
+		BoardModel board = newBoards ? null : new BoardModel(RandomSource.seeded(seed), squares);
+		TurnPolicy policy = optimal ? new OptimalPolicy(board) : TurnPolicy.SIMULATION;
+		BatchSimulator simulator = new BatchSimulator(ForkJoinPool.commonPool(), seed, squares, policy);
+
+		long start = System.nanoTime();
+		SimulationResults results;
+		if (args.length > 5)
+			results = simulator.simulate(board, games, new BatchCheckpoint(Paths.get(args[5]), 10_000));
+		else
+			results = simulator.simulate(board, games);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.print(results);
+		System.out.printf("Simulated in %.2f s: %.0f games/s on %d threads%n", seconds, games / seconds,
+				simulator.pool.getParallelism());
+	}
+}
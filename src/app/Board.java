@@ -1,30 +1,41 @@
 package app;
 
-import edu.princeton.cs.algs4.DirectedEdge;
 import edu.princeton.cs.algs4.EdgeWeightedDigraph;
-import edu.princeton.cs.algs4.Queue;
 
 import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Stroke;
 import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
 
 import javax.swing.JPanel;
 
 /**
- * Represents the board of chutes and ladders composed of 100 squares that uses
- * a Digraph from algs4 to connect each square to the next square and squares
- * that are connected via a ladder or chute.
+ * Represents the board of chutes and ladders composed of rows of squares, 10 by
+ * 10 for the standard board of 100 squares. Draws the
+ * BoardModel and players of a GameState, whose Digraph from algs4 connects each
+ * square to the next square and squares that are connected via a ladder or
+ * chute.
+ * <p>
+ * The squares, their numbers, and the chutes and ladders only change when a new
+ * board is played, so they are drawn once into an image that is reused for
+ * every frame. Each frame only copies that image and draws the players and the
+ * highlighted move on top of it. The board also remembers where the players and
+ * the highlight were last drawn, so a repaint can be limited to the squares
+ * that changed.
  * 
  * @author Trevor Colton & Joshua Gray
  *
  */
 @SuppressWarnings("serial")
 public class Board extends JPanel {
-	private Queue<Player> players;
-	private Player currentPlayer;
+	private static final Stroke JUMP_STROKE = new BasicStroke(2);
+
+	private GameState state;
 
 	private int boardWidth;
 	private int squareSize;
@@ -32,32 +43,38 @@ public class Board extends JPanel {
 	private int rows;
 
 	private Square[] squares;
-	public BoardGenerator graph;
-	public EdgeWeightedDigraph boardGraph;
+
+	private BufferedImage boardImage; // squares, chutes, and ladders of boardImageModel
+	private BoardModel boardImageModel;
+	private Rectangle lastDrawn; // squares covered by the players and highlight in the last frame
+	private BufferedImage[] tokenImages = new BufferedImage[PlayerColor.values().length];
 
 	/**
-	 * Initializes all board fields and generates squares to fill up the board
+	 * Initializes all board fields and generates squares to fill up the standard
+	 * 10 by 10 board
 	 */
-	public Board(int boardSize, Queue<Player> players, Player currentPlayer) {
+	public Board(int boardSize, GameState state) {
+		this(boardSize, 10, 10, state);
+	}
+
+	/**
+	 * Initializes all board fields and generates squares to fill up a board of the
+	 * given number of columns and rows. The board model of the game must have
+	 * <code>columns * rows</code> squares after the starting square.
+	 */
+	public Board(int boardSize, int columns, int rows, GameState state) {
 		// initialize board fields
 		this.boardWidth = boardSize;
-		this.squareSize = boardWidth / 10;
-		this.players = players;
-		this.currentPlayer = currentPlayer;
+		this.squareSize = Math.max(1, boardWidth / Math.max(columns, rows));
+		this.state = state;
 
 		// initialize necessary JPanel fields
 		setPreferredSize(new Dimension(700, 700));
 		setBackground(Color.GRAY);
 
-		columns = 10;
-		rows = 10;
+		this.columns = columns;
+		this.rows = rows;
 		squares = new Square[columns * rows];
-		
-		graph = new BoardGenerator();
-		
-		// set up directed graph from text file
-		// In in = new In("src/app/resources/board.txt");
-		boardGraph = graph.graph;
 
 		// initialize the array of squares and their corresponding x and y positions
 		int x = 0;
@@ -80,15 +97,77 @@ public class Board extends JPanel {
 	 * Paints all elements of the current board state.
 	 */
 	public void paintAll(Graphics g) {
-		paintBoard(g);
+		PhaseEvent phase = Metrics.ENABLED ? Metrics.PAINT.start() : null;
+		if (boardImageModel != state.getBoard())
+			cacheBoard();
+		g.drawImage(boardImage, 0, 0, null);
+
 		paintCurrentPlayer(g);
 		paintAllPlayers(g);
 		highlightPlayerMove(g);
+		lastDrawn = playerBounds();
+		if (phase != null)
+			Metrics.PAINT.record(phase);
+	}
+
+	/**
+	 * Returns the part of the board that has to be painted again to show the
+	 * current game state: the squares players and the highlighted move were drawn
+	 * on in the last frame, and the squares they are on now. The whole board is
+	 * returned when a new board is being played.
+	 * 
+	 * @return region to repaint
+	 */
+	public Rectangle getDirtyRegion() {
+		if (lastDrawn == null || boardImageModel != state.getBoard())
+			return new Rectangle(0, 0, columns * squareSize, rows * squareSize);
+		Rectangle now = playerBounds();
+		if (now == null)
+			return lastDrawn;
+		return now.union(lastDrawn);
+	}
+
+	// helper method to find the squares covered by the players and the highlight
+	private Rectangle playerBounds() {
+		Rectangle bounds = null;
+		for (Player p : state.getPlayers()) {
+			bounds = addSquare(bounds, p.currentPosition);
+		}
+
+		Player currentPlayer = state.getCurrentPlayer();
+		int end = Math.min(currentPlayer.nextPosition, squares.length);
+		for (int v = currentPlayer.currentPosition; v <= end; v++) {
+			bounds = addSquare(bounds, v);
+		}
+		return bounds;
+	}
+
+	// helper method to add square v to the bounds, if it is drawn on the board
+	private Rectangle addSquare(Rectangle bounds, int v) {
+		if (v < 1)
+			return bounds;
+		Square s = squares[v - 1];
+		Rectangle r = new Rectangle(s.x, s.y, s.width, s.width);
+		return bounds == null ? r : bounds.union(r);
+	}
+
+	// helper method to draw the squares, chutes, and ladders of the current board
+	// into the cached image
+	private void cacheBoard() {
+		boardImageModel = state.getBoard();
+		if (boardImage == null)
+			boardImage = new BufferedImage(columns * squareSize, rows * squareSize, BufferedImage.TYPE_INT_RGB);
+
+		Graphics2D g = boardImage.createGraphics();
+		g.setFont(getFont());
+		paintBoard(g);
+		g.dispose();
 	}
 
 	// paints the base game board, complete with the squares, chutes, and ladders
 	private void paintBoard(Graphics g) {
 		Graphics2D g2 = (Graphics2D) g;
+		JumpTable jumps = boardImageModel.getJumpTable();
 
 		// paints all squares on the board
 		for (Square s : squares) {
@@ -101,79 +180,82 @@ public class Board extends JPanel {
 		}
 
 		// paints all chutes and ladders
-		for (int v = 1; v < boardGraph.V(); v++) {
-			for (DirectedEdge edge : boardGraph.adj(v)) {
-				if (edge.weight() > 6)
-					g2.setColor(Color.green);
-				else if (edge.weight() < 0)
-					g2.setColor(Color.red);
-				else
-					continue;
-
-				int x1 = squares[v - 1].getCenterX(12);
-				int y1 = squares[v - 1].getCenterY(9);
-				int x2 = squares[edge.to() - 1].getCenterX(12);
-				int y2 = squares[edge.to() - 1].getCenterY(9);
-
-				g2.setStroke(new BasicStroke(2));
-				g2.draw(new Line2D.Float(x1, y1, x2, y2));
-			}
+		g2.setStroke(JUMP_STROKE);
+		for (int v = 1; v <= jumps.finish(); v++) {
+			if (jumps.kind(v) == JumpTable.LADDER)
+				g2.setColor(Color.green);
+			else if (jumps.kind(v) == JumpTable.CHUTE)
+				g2.setColor(Color.red);
+			else
+				continue;
+
+			int x1 = squares[v - 1].getCenterX(12);
+			int y1 = squares[v - 1].getCenterY(9);
+			int x2 = squares[jumps.target(v) - 1].getCenterX(12);
+			int y2 = squares[jumps.target(v) - 1].getCenterY(9);
+
+			g2.draw(new Line2D.Float(x1, y1, x2, y2));
 		}
 	}
 
 	// paints all players to the board that are in the player queue
 	private void paintAllPlayers(Graphics g) {
-		for (Player p : players) {
+		for (Player p : state.getPlayers()) {
 			if (p.currentPosition > 0) {
-				Square s = squares[p.currentPosition - 1];
-				g.setColor(p.translatePlayerColor(200));
-
-				g.drawOval((s.x + p.offsetX), (s.y + p.offsetY), p.size, p.size);
-				g.fillOval((s.x + p.offsetX), (s.y + p.offsetY), p.size, p.size);
+				paintToken(g, p);
 			}
 		}
 	}
 
 	// paints the player taking their turn to the board
 	private void paintCurrentPlayer(Graphics g) {
+		Player currentPlayer = state.getCurrentPlayer();
 		if (currentPlayer.currentPosition > 0) {
-			Square s = squares[currentPlayer.currentPosition - 1];
-			int size = currentPlayer.size;
+			paintToken(g, currentPlayer);
+		}
+	}
 
-			g.setColor(currentPlayer.translatePlayerColor(200));
-			g.drawOval((s.x + currentPlayer.offsetX), (s.y + currentPlayer.offsetY), size, size);
-			g.fillOval((s.x + currentPlayer.offsetX), (s.y + currentPlayer.offsetY), size, size);
+	// helper method to copy the token of a player onto their square. Each token
+	// is drawn once into a small image, outlined with the same stroke as the
+	// chutes and ladders.
+	private void paintToken(Graphics g, Player p) {
+		int color = p.playerColor.ordinal();
+		if (tokenImages[color] == null) {
+			BufferedImage image = new BufferedImage(p.size + 4, p.size + 4, BufferedImage.TYPE_INT_ARGB);
+			Graphics2D g2 = image.createGraphics();
+			g2.setStroke(JUMP_STROKE);
+			g2.setColor(p.translatePlayerColor(200));
+			g2.drawOval(2, 2, p.size, p.size);
+			g2.fillOval(2, 2, p.size, p.size);
+			g2.dispose();
+			tokenImages[color] = image;
 		}
+
+		Square s = squares[p.currentPosition - 1];
+		g.drawImage(tokenImages[color], s.x + p.offsetX - 2, s.y + p.offsetY - 2, null);
 	}
 
 	// Highlights the path the player is going to move.
 	private void highlightPlayerMove(Graphics g) {
+		Player currentPlayer = state.getCurrentPlayer();
 		if (currentPlayer.currentPosition < currentPlayer.nextPosition) {
 			g.setColor(currentPlayer.translatePlayerColor(120));
 
 			int start = (1 > currentPlayer.currentPosition ? 0 : currentPlayer.currentPosition - 1);
-			int end = (100 <= currentPlayer.nextPosition ? 99 : currentPlayer.nextPosition - 1);
+			int end = (squares.length <= currentPlayer.nextPosition ? squares.length - 1
+					: currentPlayer.nextPosition - 1);
 			for (int i = start; i <= end; i++) {
 				g.fillRect(squares[i].x, squares[i].y, squares[i].width, squares[i].width);
 			}
 		}
 	}
 	
-	/**
-	 * Updates whose turn it is on the board.
-	 * 
-	 * @param Player p
-	 */
-	public void setCurrentPlayer(Player p) {
-		this.currentPlayer = p;
-	}
-
 	/**
 	 * Returns the graph of the board.
 	 * 
 	 * @return directed graph
 	 */
 	public EdgeWeightedDigraph getGraph() {
-		return boardGraph;
+		return state.getBoard().getGraph();
 	}
 }
\ No newline at end of file
@@ -3,42 +3,332 @@ package app;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.PrintWriter;
+import java.util.BitSet;
 
 import edu.princeton.cs.algs4.BreadthFirstDirectedPaths;
 import edu.princeton.cs.algs4.Digraph;
 import edu.princeton.cs.algs4.DirectedEdge;
 import edu.princeton.cs.algs4.EdgeWeightedDigraph;
-import edu.princeton.cs.algs4.KosarajuSharirSCC;
 import edu.princeton.cs.algs4.MinPQ;
 import edu.princeton.cs.algs4.Queue;
-import edu.princeton.cs.algs4.StdRandom;
 
 /**
  * Generates a randomly generated board filled with a number of chutes and
  * ladders, and a shortest path of that board.
+ * <p>
+ * Boards can have any number of squares from 20 up, with the ranges chutes and
+ * ladders are drawn from scaled to the size of the board. Taken squares are kept
+ * in a bitset and strong components in an IncrementalSCC, so every candidate
+ * square is checked in near constant time and generating a board takes near
+ * linear time in the number of squares. A layout can also be generated without
+ * building its graphs, which large boards may not need.
+ * <p>
+ * Chutes may not start on more than {@link #MAX_CHUTE_RUN} squares in a row.
+ * No spin can get past a longer run, so a player who does not climb ladders
+ * would never finish. The boards of the original generator had no such rule,
+ * so this is a deliberate change to the distribution of boards: a chute head
+ * that would make the run too long is drawn again, and a seed that used to give
+ * a board with such a run now gives a different one. Every other board is
+ * drawn as before.
+ * <p>
+ * By default squares are drawn the way they always were, retrying squares that
+ * are taken or not allowed, so a seed gives the same board as before. With
+ * {@link Sampling#DIRECT} the squares that are still allowed are kept in
+ * {@link SquareSet}s and every square is drawn from them at once, so a board
+ * takes O(n + k log n) time for n squares and k chutes and ladders however
+ * crowded it gets, and a board with no room left fails instead of retrying
+ * forever.
  * 
  * @author Trevor Colton & Joshua Gray
  *
  */
 public class BoardGenerator {
+	/** Number of the finish square of the standard board. */
+	public static final int DEFAULT_SQUARES = 100;
+
+	/** Most squares in a row that chutes may start on. */
+	public static final int MAX_CHUTE_RUN = 5;
+
+	/** How the squares of chutes and ladders are drawn. */
+	public enum Sampling {
+		/** Draws any square in range and retries until it is allowed. */
+		REJECTION,
+		/** Draws only from the squares that are allowed, without retrying. */
+		DIRECT
+	}
+
 	protected EdgeWeightedDigraph graph;
 	protected Iterable<Integer> shortestPath;
+	protected BoardLayout layout;
+	private RandomSource random;
+	private Sampling sampling;
+
+	private int[] chuteFrom;
+	private int[] chuteTo;
+	private int[] chuteWeight;
+	private BitSet chuteHeads;
+
+	// squares still allowed as an end of a chute or ladder, used by DIRECT sampling
+	private SquareSet free;
+	private SquareSet chuteCandidates;
+	private SquareSet ladderCandidates;
 
 	final int startingVertex = 0;
-	final int numChutes = 9;
-	final int numLadders = 9;
+	final int finish;
+	final int numChutes;
+	final int numLadders;
 
 	/**
 	 * Generates the graphs of the board.
 	 */
 	public BoardGenerator() {
-		graph = new EdgeWeightedDigraph(101);
-		Digraph digraph = new Digraph(101);
+		this(RandomSource.GLOBAL);
+	}
+
+	/**
+	 * Generates the graphs of the board using the given random source.
+	 * 
+	 * @param random source of the random chute and ladder placements
+	 */
+	public BoardGenerator(RandomSource random) {
+		this(random, DEFAULT_SQUARES);
+	}
+
+	/**
+	 * Generates the graphs of a board with the given number of squares and the
+	 * default number of chutes and ladders for its size.
+	 * 
+	 * @param random  source of the random chute and ladder placements
+	 * @param squares number of the finish square
+	 */
+	public BoardGenerator(RandomSource random, int squares) {
+		this(random, squares, defaultJumps(squares), defaultJumps(squares));
+	}
+
+	/**
+	 * Generates the graphs of a board with the given number of squares, chutes,
+	 * and ladders.
+	 * 
+	 * @param random     source of the random chute and ladder placements
+	 * @param squares    number of the finish square
+	 * @param numChutes  number of chutes
+	 * @param numLadders number of ladders
+	 */
+	public BoardGenerator(RandomSource random, int squares, int numChutes, int numLadders) {
+		this(random, squares, numChutes, numLadders, Sampling.REJECTION);
+	}
+
+	/**
+	 * Generates the graphs of a board with the given number of squares, chutes,
+	 * and ladders, drawing their squares the given way.
+	 * 
+	 * @param random     source of the random chute and ladder placements
+	 * @param squares    number of the finish square
+	 * @param numChutes  number of chutes
+	 * @param numLadders number of ladders
+	 * @param sampling   how squares are drawn
+	 * @throws IllegalStateException if DIRECT sampling finds no room for a chute
+	 *                               or ladder
+	 */
+	public BoardGenerator(RandomSource random, int squares, int numChutes, int numLadders, Sampling sampling) {
+		this(random, squares, numChutes, numLadders, sampling, true);
+	}
+
+	// generates the layout of a board, and its graphs if buildGraphs is set
+	private BoardGenerator(RandomSource random, int squares, int numChutes, int numLadders, Sampling sampling,
+			boolean buildGraphs) {
+		if (squares < 20)
+			throw new IllegalArgumentException("A board needs at least 20 squares");
+		if (numChutes + numLadders > squares / 4)
+			throw new IllegalArgumentException("Too many chutes and ladders for " + squares + " squares");
+
+		this.random = random;
+		this.sampling = sampling;
+		this.finish = squares;
+		this.numChutes = numChutes;
+		this.numLadders = numLadders;
+		IncrementalSCC scc = new IncrementalSCC(finish + 1);
+
+		// Adds chutes and ladders
+		BitSet ends = new BitSet(finish + 1); // head and tail values that are already taken
+		if (sampling == Sampling.DIRECT) {
+			free = new SquareSet(finish + 1, 1, finish + 1);
+			chuteCandidates = new SquareSet(finish + 1, 11, finish);
+		}
+		PhaseEvent phase = Metrics.ENABLED ? Metrics.ADD_CHUTES.start() : null;
+		addChutes(numChutes, ends, scc);
+		chuteCandidates = null;
+		if (phase != null) {
+			Metrics.ADD_CHUTES.record(phase);
+			phase = Metrics.ADD_LADDERS.start();
+		}
+		addLadders(numLadders, ends, scc);
+		free = ladderCandidates = null;
+		if (phase != null)
+			Metrics.ADD_LADDERS.record(phase);
+
+		if (buildGraphs)
+			build(layout);
+	}
+
+	/**
+	 * Builds the graphs of a board that was generated before from its layout.
+	 * 
+	 * @param layout chutes and ladders of the board
+	 */
+	public BoardGenerator(BoardLayout layout) {
+		this.finish = layout.squares() - 1;
+		this.numChutes = layout.chutes();
+		this.numLadders = layout.ladders();
+		this.layout = layout;
+		build(layout);
+	}
+
+	/**
+	 * Generates the layout of a board without building its graphs.
+	 * 
+	 * @param random     source of the random chute and ladder placements
+	 * @param squares    number of the finish square
+	 * @param numChutes  number of chutes
+	 * @param numLadders number of ladders
+	 * @return board layout
+	 */
+	public static BoardLayout generateLayout(RandomSource random, int squares, int numChutes, int numLadders) {
+		return generateLayout(random, squares, numChutes, numLadders, Sampling.REJECTION);
+	}
+
+	/**
+	 * Generates the layout of a board without building its graphs, drawing its
+	 * squares the given way.
+	 * 
+	 * @param random     source of the random chute and ladder placements
+	 * @param squares    number of the finish square
+	 * @param numChutes  number of chutes
+	 * @param numLadders number of ladders
+	 * @param sampling   how squares are drawn
+	 * @return board layout
+	 */
+	public static BoardLayout generateLayout(RandomSource random, int squares, int numChutes, int numLadders,
+			Sampling sampling) {
+		return new BoardGenerator(random, squares, numChutes, numLadders, sampling, false).layout;
+	}
+
+	/**
+	 * Returns the weight of a chute from square v down to square w, which grows
+	 * with its length.
+	 * 
+	 * @param v square the chute starts on
+	 * @param w square the chute leads to
+	 * @return weight (negative)
+	 */
+	public static int chuteWeight(int v, int w) {
+		int length = w - v;
+		if (length < 40)
+			return -5;
+		else if (length < 60)
+			return -10;
+		else
+			return -15;
+	}
+
+	/**
+	 * Returns the weight of a ladder from square v up to square w, which grows
+	 * with its length.
+	 * 
+	 * @param v square the ladder starts on
+	 * @param w square the ladder leads to
+	 * @return weight
+	 */
+	public static int ladderWeight(int v, int w) {
+		int length = w - v;
+		if (length < 40)
+			return 20;
+		else if (length < 60)
+			return 30;
+		else
+			return 40;
+	}
+
+	/**
+	 * Checks that a layout follows the same rules as a generated board: every
+	 * chute and ladder lies in the range it is drawn from and has the weight of
+	 * its length, no square is the end of two of them, no more than
+	 * {@link #MAX_CHUTE_RUN} squares in a row start chutes, and every ladder
+	 * starts inside a run of squares a chute leads back through. Used to check
+	 * boards that were changed by hand or by a {@link BoardSearch}.
+	 * 
+	 * @param layout layout to check
+	 * @return true if a generated board could have this layout
+	 */
+	public static boolean isValid(BoardLayout layout) {
+		int finish = layout.squares() - 1;
+		BitSet ends = new BitSet(finish + 1);
+		BitSet heads = new BitSet(finish + 1);
+		IncrementalSCC scc = new IncrementalSCC(finish + 1);
 
-		// Creates an edge between each tile and its 6 following neighbors
-		for (int v = 0; v < 100; v++) {
+		for (int c = 0; c < layout.chutes(); c++) {
+			int v = layout.chuteFrom(c);
+			int w = layout.chuteTo(c);
+			if (v < 11 || v >= finish || w < 1 || w > v - 10 || ends.get(v) || ends.get(w)
+					|| layout.chuteWeight(c) != chuteWeight(v, w))
+				return false;
+			ends.set(v);
+			ends.set(w);
+			heads.set(v);
+			scc.addEdge(v, w);
+		}
+		int run = 0;
+		for (int v = 1; v < finish; v++) {
+			run = heads.get(v) ? run + 1 : 0;
+			if (run > MAX_CHUTE_RUN)
+				return false;
+		}
+
+		for (int l = 0; l < layout.ladders(); l++) {
+			int v = layout.ladderFrom(l);
+			int w = layout.ladderTo(l);
+			if (v < 2 || v > finish - 9 || w < v + 7 || w > finish || ends.get(v) || ends.get(w)
+					|| !scc.stronglyConnected(v, v - 1) || layout.ladderWeight(l) != ladderWeight(v, w))
+				return false;
+			if (l > 0 && v < layout.ladderFrom(l - 1))
+				return false;
+			ends.set(v);
+			ends.set(w);
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of chutes, and of ladders, a board of the given size has
+	 * by default: 9 for every 100 squares, like the standard board.
+	 * 
+	 * @param squares number of the finish square
+	 * @return number of chutes or ladders
+	 */
+	public static int defaultJumps(int squares) {
+		return squares * 9 / 100;
+	}
+
+	// Builds the graph and shortest path of a layout
+	private void build(BoardLayout layout) {
+		int V = layout.squares();
+		graph = new EdgeWeightedDigraph(V);
+		Digraph digraph = new Digraph(V);
+		addSteps(digraph);
+
+		for (int i = 0; i < layout.chutes(); i++) {
+			graph.addEdge(new DirectedEdge(layout.chuteFrom(i), layout.chuteTo(i), layout.chuteWeight(i)));
+			digraph.addEdge(layout.chuteFrom(i), layout.chuteTo(i));
+		}
+
+		placeLadders(layout, digraph);
+	}
+
+	// Creates an edge between each tile and its 6 following neighbors
+	private void addSteps(Digraph digraph) {
+		for (int v = 0; v < finish; v++) {
 			for (int w = v + 1; w <= v + 6; w++) {
-				if (w <= 100) {
+				if (w <= finish) {
 					int weight = (w - v);
 					DirectedEdge edge = new DirectedEdge(v, w, weight);
 					graph.addEdge(edge);
@@ -46,67 +336,86 @@ public class BoardGenerator {
 				}
 			}
 		}
-
-		// Adds chutes and ladders
-		Queue<Integer> ends = new Queue<Integer>(); // head and tail values that are already taken
-		addChutes(numChutes, ends, digraph);
-		addLadders(numLadders, ends, digraph);
 	}
 
 	/**
 	 * Generates a set number of randomly generated unique ladders.
 	 * 
-	 * @param amount of ladders
-	 * @param ends existing head/tails of ladder
+	 * @param numLadders number of ladders
+	 * @param ends existing head/tails of chutes and ladders
+	 * @param scc strong components of the board with its chutes
 	 */
-	private void addLadders(int numLadders, Queue<Integer> ends, Digraph digraph) {
-		Queue<DirectedEdge> ladders = new Queue<>();
+	private void addLadders(int numLadders, BitSet ends, IncrementalSCC scc) {
 		MinPQ<DirectedEdgeComparable> heap = new MinPQ<>();
+		if (sampling == Sampling.DIRECT)
+			findLadderCandidates(ends, scc);
 
 		// Generates random ladders
 		for (int l = 0; l < numLadders; l++) {
 			int head;
 			int tail;
-			do {
-				head = StdRandom.uniform(2, 92);
-			} while (inQueue(ends, head) || !isCycle(digraph, head, head - 1));
-			ends.enqueue(head);
-			do {
-				tail = StdRandom.uniform(head + 7, 101);
-			} while (inQueue(ends, tail));
-			ends.enqueue(tail);
+			if (sampling == Sampling.DIRECT) {
+				head = ladderCandidates.sample(random, 2, Math.min(finish - 8, free.floor(finish) - 6));
+				if (head < 0)
+					throw new IllegalStateException("No square left for ladder " + l + " of " + numLadders);
+				take(ends, head);
+				tail = free.sample(random, head + 7, finish + 1);
+			} else {
+				do {
+					head = random.uniform(2, finish - 8);
+				} while (ends.get(head) || !isCycle(scc, head, head - 1)
+						|| !hasFreeEnd(ends, head + 7, finish + 1));
+				ends.set(head);
+				do {
+					tail = random.uniform(head + 7, finish + 1);
+				} while (ends.get(tail));
+			}
+			take(ends, tail);
 
 			// Calculates the weight of the ladder
-			int length = tail - head;
-			int weight = 0;
-			if (length < 40)
-				weight = 20;
-			else if (length < 60)
-				weight = 30;
-			else
-				weight = 40;
+			int weight = ladderWeight(head, tail);
 
 			// Adds the ladder to a MinPQ
 			DirectedEdgeComparable edge = new DirectedEdgeComparable(head, tail, weight);
 			heap.insert(edge);
 		}
 
+		// Records the chutes and the ladders in order of where they start
+		int[] ladderFrom = new int[heap.size()];
+		int[] ladderTo = new int[heap.size()];
+		int[] ladderWeight = new int[heap.size()];
+		int l = 0;
+		for (DirectedEdgeComparable edge : heap) {
+			ladderFrom[l] = edge.from();
+			ladderTo[l] = edge.to();
+			ladderWeight[l++] = (int) edge.weight();
+		}
+		layout = new BoardLayout(finish + 1, chuteFrom, chuteTo, chuteWeight, ladderFrom, ladderTo, ladderWeight);
+	}
+
+	// Adds the ladders of the layout to the graph. Only the ladders that can be
+	// passed on the first pass are used for the shortest path.
+	private void placeLadders(BoardLayout layout, Digraph digraph) {
+		Queue<DirectedEdge> ladders = new Queue<>();
+
 		// Adds only the ladders that can be passed on the first pass
 		int addedWeight = 0;
-		for (DirectedEdgeComparable edge : heap) {
+		for (int l = 0; l < layout.ladders(); l++) {
+			DirectedEdge edge = new DirectedEdge(layout.ladderFrom(l), layout.ladderTo(l), layout.ladderWeight(l));
 			if ((edge.weight() / 2) <= edge.from() + addedWeight) {
 				graph.addEdge(edge);
 				digraph.addEdge(edge.from(), edge.to());
 				addedWeight += edge.weight();
-				// System.out.println("aWeight: " + addedWeight + " Ladder: " + edge.from() + "
-				// -> " + edge.to());
 			} else {
 				ladders.enqueue(edge);
 			}
 		}
 
 		// Calculates the shortest path
-		shortestPath = new BreadthFirstDirectedPaths(digraph, startingVertex).pathTo(100);
+		PhaseEvent phase = Metrics.ENABLED ? Metrics.SHORTEST_PATH.start() : null;
+		shortestPath = new BreadthFirstDirectedPaths(digraph, startingVertex).pathTo(graph.V() - 1);
+		if (phase != null)
+			Metrics.SHORTEST_PATH.record(phase);
 		digraph = null;
 
 		// Adds the rest of the ladders
@@ -119,58 +428,125 @@ public class BoardGenerator {
 	/**
 	 * Adds <code>numChutes</code> of randomly generated chutes.
 	 * 
-	 * @param amount
-	 * @param ends
+	 * @param numChutes number of chutes
+	 * @param ends head/tails of chutes, set as they are taken
+	 * @param scc strong components updated with each chute
 	 */
-	private void addChutes(int numChutes, Queue<Integer> ends, Digraph digraph) {
+	private void addChutes(int numChutes, BitSet ends, IncrementalSCC scc) {
+		chuteFrom = new int[numChutes];
+		chuteTo = new int[numChutes];
+		chuteWeight = new int[numChutes];
+		chuteHeads = new BitSet(finish + 1);
+
 		// Generates random chutes
 		for (int l = 0; l < numChutes; l++) {
 			int end1;
 			int end2;
-			do {
-				end1 = StdRandom.uniform(11, 100);
-			} while (inQueue(ends, end1));
-			ends.enqueue(end1);
-			do {
-				end2 = StdRandom.uniform(1, end1 - 9);
-			} while (inQueue(ends, end2));
-			ends.enqueue(end2);
-
-			// Calculates the weight of the chute
-			int length = end2 - end1;
-			int weight = 0;
-			if (length < 40)
-				weight = 5;
-			else if (length < 60)
-				weight = 10;
-			else
-				weight = 15;
+			if (sampling == Sampling.DIRECT) {
+				int lowest = free.ceiling(1);
+				end1 = lowest < 0 ? -1 : chuteCandidates.sample(random, Math.max(11, lowest + 10), finish);
+				if (end1 < 0)
+					throw new IllegalStateException("No square left for chute " + l + " of " + numChutes);
+				take(ends, end1);
+				end2 = free.sample(random, 1, end1 - 9);
+			} else {
+				do {
+					end1 = random.uniform(11, finish);
+				} while (ends.get(end1) || !hasFreeEnd(ends, 1, end1 - 9) || closesChuteWall(end1));
+				ends.set(end1);
+				do {
+					end2 = random.uniform(1, end1 - 9);
+				} while (ends.get(end2));
+			}
+			take(ends, end2);
 
 			// Adds the chute to the board.
-			DirectedEdge edge = new DirectedEdge(end1, end2, -weight);
-			graph.addEdge(edge);
-			digraph.addEdge(end1, end2);
+			scc.addEdge(end1, end2);
+			chuteHeads.set(end1);
+			if (sampling == Sampling.DIRECT)
+				dropWallSquares(end1);
+
+			chuteFrom[l] = end1;
+			chuteTo[l] = end2;
+			chuteWeight[l] = chuteWeight(end1, end2);
+		}
+	}
+
+	// Helper method for addChutes(). Checks if a chute on square v would make more
+	// than MAX_CHUTE_RUN squares in a row with chutes on them. No spin can pass
+	// such a run, so a player who does not climb ladders would never finish.
+	private boolean closesChuteWall(int v) {
+		int run = 1;
+		for (int w = v - 1; w > 0 && chuteHeads.get(w); w--)
+			run++;
+		for (int w = v + 1; chuteHeads.get(w); w++)
+			run++;
+		return run > MAX_CHUTE_RUN;
+	}
+
+	// Helper method for DIRECT sampling. A new chute head only changes which
+	// squares would close a wall next to the run of chute heads it joined, so
+	// only the squares on either side of that run are checked again.
+	private void dropWallSquares(int v) {
+		int lo = v;
+		while (lo > 1 && chuteHeads.get(lo - 1))
+			lo--;
+		int hi = chuteHeads.nextClearBit(v);
+		if (lo > 1 && closesChuteWall(lo - 1))
+			chuteCandidates.remove(lo - 1);
+		if (hi < finish && closesChuteWall(hi))
+			chuteCandidates.remove(hi);
+	}
+
+	// Helper method for DIRECT sampling. Ladders do not change the strong
+	// components, so the squares a ladder may start on are found once after the
+	// chutes are placed.
+	private void findLadderCandidates(BitSet ends, IncrementalSCC scc) {
+		BitSet candidates = new BitSet(finish + 1);
+		for (int v = 2; v < finish - 8; v++) {
+			if (!ends.get(v) && isCycle(scc, v, v - 1))
+				candidates.set(v);
+		}
+		ladderCandidates = new SquareSet(finish + 1, candidates);
+	}
+
+	// Helper method to mark square v as the end of a chute or ladder
+	private void take(BitSet ends, int v) {
+		ends.set(v);
+		if (sampling == Sampling.DIRECT) {
+			free.remove(v);
+			if (chuteCandidates != null)
+				chuteCandidates.remove(v);
+			if (ladderCandidates != null)
+				ladderCandidates.remove(v);
 		}
 	}
 
 	// Helper method to determine if a ladder is part of a strong component and
 	// therefore can be reached again later.
-	private boolean isCycle(Digraph digraph, int v, int w) {
+	private boolean isCycle(IncrementalSCC scc, int v, int w) {
+		if (Metrics.ENABLED)
+			Metrics.IS_CYCLE.increment();
 		if (v >= 0 && w >= 0) {
-			KosarajuSharirSCC scc = new KosarajuSharirSCC(digraph);
 			return scc.stronglyConnected(v, w);
 		}
 		return false;
 	}
 
-	// Helper method for addChutes() and addLadders(). Checks if num is in the
-	// queue.
-	private boolean inQueue(Queue<Integer> q, int num) {
-		for (int i : q) {
-			if (num == i)
-				return true;
-		}
-		return false;
+	// Helper method for addChutes() and addLadders(). Checks that at least one
+	// value from lo (inclusive) to hi (exclusive) is not taken yet, so the other
+	// end of a chute or ladder can always be found.
+	private boolean hasFreeEnd(BitSet ends, int lo, int hi) {
+		return ends.nextClearBit(lo) < hi;
+	}
+
+	/**
+	 * Returns the layout of chutes and ladders the board was built from.
+	 * 
+	 * @return board layout
+	 */
+	public BoardLayout getLayout() {
+		return layout;
 	}
 
 	/**
@@ -0,0 +1,95 @@
+package app;
+
+/**
+ * Describes a board by its size and the ends and weights of its chutes and
+ * ladders, which is all that is needed to build it again. Chutes are kept in
+ * the order they were generated and ladders in order of the square they start
+ * on, so a board rebuilt from its layout has the same graph and the same
+ * shortest path as the original.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class BoardLayout {
+	private final int squares;
+	private final int[] chuteFrom;
+	private final int[] chuteTo;
+	private final int[] chuteWeight;
+	private final int[] ladderFrom;
+	private final int[] ladderTo;
+	private final int[] ladderWeight;
+
+	/**
+	 * Initializes a layout. The arrays are used as given and must not be changed
+	 * afterwards.
+	 *
+	 * @param squares      number of squares including the starting square 0
+	 * @param chuteFrom    square each chute starts on
+	 * @param chuteTo      square each chute leads to
+	 * @param chuteWeight  weight of each chute (negative)
+	 * @param ladderFrom   square each ladder starts on, in increasing order
+	 * @param ladderTo     square each ladder leads to
+	 * @param ladderWeight weight of each ladder
+	 */
+	public BoardLayout(int squares, int[] chuteFrom, int[] chuteTo, int[] chuteWeight, int[] ladderFrom,
+			int[] ladderTo, int[] ladderWeight) {
+		this.squares = squares;
+		this.chuteFrom = chuteFrom;
+		this.chuteTo = chuteTo;
+		this.chuteWeight = chuteWeight;
+		this.ladderFrom = ladderFrom;
+		this.ladderTo = ladderTo;
+		this.ladderWeight = ladderWeight;
+	}
+
+	/**
+	 * Returns the number of squares including the starting square 0.
+	 *
+	 * @return number of squares
+	 */
+	public int squares() {
+		return squares;
+	}
+
+	/**
+	 * Returns the number of chutes.
+	 *
+	 * @return number of chutes
+	 */
+	public int chutes() {
+		return chuteFrom.length;
+	}
+
+	/**
+	 * Returns the number of ladders.
+	 *
+	 * @return number of ladders
+	 */
+	public int ladders() {
+		return ladderFrom.length;
+	}
+
+	public int chuteFrom(int i) {
+		return chuteFrom[i];
+	}
+
+	public int chuteTo(int i) {
+		return chuteTo[i];
+	}
+
+	public int chuteWeight(int i) {
+		return chuteWeight[i];
+	}
+
+	public int ladderFrom(int i) {
+		return ladderFrom[i];
+	}
+
+	public int ladderTo(int i) {
+		return ladderTo[i];
+	}
+
+	public int ladderWeight(int i) {
+		return ladderWeight[i];
+	}
+}
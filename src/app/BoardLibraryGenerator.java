@@ -0,0 +1,192 @@
+package app;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Generates a board library on every available core, without playing any games.
+ * Every board of a library file takes the same number of bytes, so the boards
+ * are split into pieces the same way as in the {@link BatchSimulator} and each
+ * piece encodes its boards into its own buffer and writes them straight to
+ * where they belong in the file, a few megabytes at a time. No thread waits for
+ * another to write.
+ * <p>
+ * Each piece draws its boards from a RandomSource derived from the master seed
+ * and the number of its first board, so the same seed always gives the same
+ * file whatever the number of threads. The file can be read with a
+ * {@link BoardStore}.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class BoardLibraryGenerator {
+	/** Number of boards a single task generates before it stops splitting. */
+	static final int BOARDS_PER_TASK = 4096;
+	/** Most bytes of records a task holds before writing them to the file. */
+	static final int BUFFER_BYTES = 1 << 22;
+
+	private final ForkJoinPool pool;
+	private final long seed;
+	private final int squares;
+	private final int numChutes;
+	private final int numLadders;
+	private final BoardGenerator.Sampling sampling;
+
+	/**
+	 * Initializes a generator of boards of the given size with the default
+	 * number of chutes and ladders, drawn the same way as by a BoardGenerator.
+	 *
+	 * @param pool    fork/join pool
+	 * @param seed    master seed of every board
+	 * @param squares number of the finish square
+	 */
+	public BoardLibraryGenerator(ForkJoinPool pool, long seed, int squares) {
+		this(pool, seed, squares, BoardGenerator.defaultJumps(squares), BoardGenerator.defaultJumps(squares),
+				BoardGenerator.Sampling.REJECTION);
+	}
+
+	/**
+	 * Initializes a generator of boards with the given size and number of chutes
+	 * and ladders.
+	 *
+	 * @param pool       fork/join pool
+	 * @param seed       master seed of every board
+	 * @param squares    number of the finish square
+	 * @param numChutes  number of chutes
+	 * @param numLadders number of ladders
+	 * @param sampling   how squares are drawn
+	 */
+	public BoardLibraryGenerator(ForkJoinPool pool, long seed, int squares, int numChutes, int numLadders,
+			BoardGenerator.Sampling sampling) {
+		this.pool = pool;
+		this.seed = seed;
+		this.squares = squares;
+		this.numChutes = numChutes;
+		this.numLadders = numLadders;
+		this.sampling = sampling;
+	}
+
+	/**
+	 * Generates a library of boards, replacing any file that is already there.
+	 *
+	 * @param path   file to write
+	 * @param boards number of boards
+	 * @throws IOException if the file cannot be written
+	 */
+	public void generate(Path path, long boards) throws IOException {
+		int slots = numChutes + numLadders;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			try {
+				pool.invoke(new GenerateTask(channel, 0, boards));
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+
+			// the header goes in last so a library cut short is not taken for a whole one
+			ByteBuffer header = ByteBuffer.allocate(BoardStore.HEADER_BYTES);
+			BoardStoreWriter.putHeader(header, squares + 1, slots, boards);
+			header.flip();
+			while (header.hasRemaining()) {
+				channel.write(header, header.position());
+			}
+		}
+	}
+
+	/**
+	 * Generates a piece of the library and splits itself while the piece is too
+	 * large.
+	 */
+	@SuppressWarnings("serial")
+	private class GenerateTask extends RecursiveAction {
+		private final FileChannel channel;
+		private final long first;
+		private final long boards;
+
+		GenerateTask(FileChannel channel, long first, long boards) {
+			this.channel = channel;
+			this.first = first;
+			this.boards = boards;
+		}
+
+		@Override
+		protected void compute() {
+			if (boards <= BOARDS_PER_TASK) {
+				generate();
+				return;
+			}
+
+			long half = boards / 2;
+			invokeAll(new GenerateTask(channel, first, half), new GenerateTask(channel, first + half, boards - half));
+		}
+
+		// helper method to generate every board of this piece and write them, a
+		// buffer's worth of records at a time
+		private void generate() {
+			int fieldBytes = BoardStore.fieldBytes(squares + 1);
+			int recordBytes = BoardStore.recordBytes(fieldBytes, numChutes + numLadders);
+			RandomSource random = RandomSource.stream(seed, first);
+			int recordsPerBuffer = Math.max(1, BUFFER_BYTES / recordBytes);
+			ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(boards, recordsPerBuffer) * recordBytes);
+
+			long position = BoardStore.HEADER_BYTES + first * recordBytes;
+			try {
+				for (long i = 0; i < boards; i++) {
+					BoardLayout layout = BoardGenerator.generateLayout(random, squares, numChutes, numLadders,
+							sampling);
+					BoardStoreWriter.putRecord(buffer, layout, fieldBytes, recordBytes);
+					if (!buffer.hasRemaining() || i == boards - 1)
+						position = write(buffer, position);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		// helper method to write the buffer to the file at the given position and
+		// return the position after it
+		private long write(ByteBuffer buffer, long position) throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer, position + buffer.position());
+			}
+			position += buffer.limit();
+			buffer.clear();
+			return position;
+		}
+	}
+
+	/**
+	 * Generates a board library and prints how many boards were generated per
+	 * second. Accepts the file to write, the number of boards, the master seed,
+	 * the number of squares of each board, and optionally "direct" to draw the
+	 * squares with DIRECT sampling.
+	 */
+	public static void main(String[] args) throws IOException {
+		Path path = Paths.get(args.length > 0 ? args[0] : "boards.clb");
+		long boards = args.length > 1 ? Long.parseLong(args[1]) : 1_000_000;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : new SplittableRandom().nextLong();
+		int squares = args.length > 3 ? Integer.parseInt(args[3]) : BoardGenerator.DEFAULT_SQUARES;
+		BoardGenerator.Sampling sampling = args.length > 4 && args[4].equals("direct")
+				? BoardGenerator.Sampling.DIRECT
+				: BoardGenerator.Sampling.REJECTION;
+
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		BoardLibraryGenerator generator = new BoardLibraryGenerator(pool, seed, squares,
+				BoardGenerator.defaultJumps(squares), BoardGenerator.defaultJumps(squares), sampling);
+
+		long start = System.nanoTime();
+		generator.generate(path, boards);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("Wrote %d boards to %s in %.2f s: %.0f boards/s on %d threads%n", boards, path, seconds,
+				boards / seconds, pool.getParallelism());
+	}
+}
@@ -0,0 +1,123 @@
+package app;
+
+import edu.princeton.cs.algs4.EdgeWeightedDigraph;
+
+/**
+ * Represents a generated board independent of how it is drawn. Holds the
+ * weighted digraph connecting every square to its neighbors, chutes, and
+ * ladders along with the shortest path to the finish, and a JumpTable compiled
+ * from the graph for looking up squares during a turn. A board model is never
+ * modified once it is created, so it can be shared by any number of games.
+ * <p>
+ * A board loaded from its BoardLayout only builds the jump table right away.
+ * The graph and shortest path are built the first time they are asked for, so
+ * headless games on stored boards never build them.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class BoardModel {
+	private final BoardLayout layout;
+	private final JumpTable jumps;
+	private EdgeWeightedDigraph graph;
+	private Iterable<Integer> shortestPath;
+
+	/**
+	 * Creates a model from a newly generated random board.
+	 */
+	public BoardModel() {
+		this(new BoardGenerator());
+	}
+
+	/**
+	 * Creates a model from a newly generated random board.
+	 *
+	 * @param random source of the random chute and ladder placements
+	 */
+	public BoardModel(RandomSource random) {
+		this(new BoardGenerator(random));
+	}
+
+	/**
+	 * Creates a model from a newly generated random board of the given size with
+	 * the default number of chutes and ladders for that size. Only the layout is
+	 * generated right away; the graph and shortest path are built the first time
+	 * they are asked for.
+	 *
+	 * @param random  source of the random chute and ladder placements
+	 * @param squares number of the finish square
+	 */
+	public BoardModel(RandomSource random, int squares) {
+		this(BoardGenerator.generateLayout(random, squares, BoardGenerator.defaultJumps(squares),
+				BoardGenerator.defaultJumps(squares)));
+	}
+
+	/**
+	 * Creates a model from the graph and shortest path of the given generator.
+	 *
+	 * @param generator board generator that has finished generating
+	 */
+	public BoardModel(BoardGenerator generator) {
+		this.layout = generator.getLayout();
+		this.graph = generator.graph;
+		this.shortestPath = generator.getShortestPath();
+		this.jumps = new JumpTable(graph);
+	}
+
+	/**
+	 * Creates a model of a board that was generated before.
+	 *
+	 * @param layout chutes and ladders of the board
+	 */
+	public BoardModel(BoardLayout layout) {
+		this.layout = layout;
+		this.jumps = new JumpTable(layout);
+	}
+
+	// helper method to build the graph and shortest path of a loaded board
+	private synchronized void buildGraph() {
+		if (graph == null) {
+			BoardGenerator generator = new BoardGenerator(layout);
+			shortestPath = generator.getShortestPath();
+			graph = generator.graph;
+		}
+	}
+
+	/**
+	 * Returns the graph of the board.
+	 *
+	 * @return directed graph
+	 */
+	public EdgeWeightedDigraph getGraph() {
+		buildGraph();
+		return graph;
+	}
+
+	/**
+	 * Returns the shortest path of the board.
+	 *
+	 * @return Shortest Path
+	 */
+	public Iterable<Integer> getShortestPath() {
+		buildGraph();
+		return shortestPath;
+	}
+
+	/**
+	 * Returns the chutes and ladders of the board compiled for fast lookups.
+	 *
+	 * @return jump table
+	 */
+	public JumpTable getJumpTable() {
+		return jumps;
+	}
+
+	/**
+	 * Returns the chutes and ladders the board is made of.
+	 *
+	 * @return board layout
+	 */
+	public BoardLayout getLayout() {
+		return layout;
+	}
+}
@@ -0,0 +1,549 @@
+package app;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+import edu.princeton.cs.algs4.MinPQ;
+
+/**
+ * Searches for boards that come close to a target, like games that last 30
+ * turns on average or players who win equally often whatever their place in
+ * the turn order, instead of taking whatever the BoardGenerator draws.
+ * <p>
+ * The search is a simple genetic algorithm. It keeps a population of the best
+ * boards found so far, and each generation breeds children from them, either
+ * by moving one end of a chute or ladder to another square or by crossing the
+ * chutes of one board with the ladders of another. Children that break the
+ * rules of a generated board are drawn again, see
+ * {@link BoardGenerator#isValid(BoardLayout)}. The children are scored in
+ * parallel on a fork/join pool, and the best boards of the parents and the
+ * children form the next population. With a population of one it is plain hill
+ * climbing.
+ * <p>
+ * An {@link Objective} scores a board by how far it is from the target, lower
+ * being better. Game length is found exactly by a {@link MarkovSolver}, which
+ * takes well under a millisecond for the standard board. Targets only a
+ * simulation can measure are played in short batches, and a board stops being
+ * played as soon as it is clearly worse than every board in the population.
+ * Boards are scored with the same seed, so two boards are compared on the same
+ * spins, and every score is cached by the squares of the board's chutes and
+ * ladders, so a board bred twice is only scored once.
+ * <p>
+ * Children are drawn on the calling thread from one RandomSource, so the same
+ * seed finds the same boards whatever the number of threads.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class BoardSearch {
+	/** Most tries to breed a valid child before the parent is copied. */
+	static final int MAX_TRIES = 100;
+	/** Most scores kept in the cache. */
+	static final int MAX_CACHED = 1_000_000;
+	/** Games played between checks whether a simulated board can stop early. */
+	static final int BATCH = 250;
+
+	/**
+	 * Scores how far a board is from a target.
+	 */
+	public interface Objective {
+		/**
+		 * Scores a board, where 0 means it hits the target. An objective may stop
+		 * early and return any score above cutoff once it is sure the board scores
+		 * worse than that.
+		 *
+		 * @param board  board to score
+		 * @param cutoff score the board has to beat to be kept
+		 * @return score, lower is better
+		 */
+		double score(BoardModel board, double cutoff);
+	}
+
+	/**
+	 * Returns an objective for the expected length of a four player game, in
+	 * turns of the player who finishes, solved exactly.
+	 *
+	 * @param target expected game length wanted
+	 * @return objective
+	 */
+	public static Objective gameLength(double target) {
+		return (board, cutoff) -> Math.abs(new MarkovSolver(board).expectedGameLength(4) - target);
+	}
+
+	/**
+	 * Returns an objective for how evenly games are won by each place in the turn
+	 * order: the largest difference between the share of games won by any place
+	 * and an equal share, over at most the given number of simulated games.
+	 *
+	 * @param games most games to play per board
+	 * @param seed  seed every board is played with
+	 * @return objective
+	 */
+	public static Objective turnOrderBalance(int games, long seed) {
+		return (board, cutoff) -> {
+			int players = PlayerColor.values().length;
+			double fair = 1.0 / players;
+			long[] wins = new long[players];
+			GameEngine engine = new GameEngine();
+			engine.setRandomSource(RandomSource.seeded(seed));
+
+			double score = 0;
+			for (int played = 1; played <= games; played++) {
+				wins[engine.play(board).getWinner().playerColor.ordinal()]++;
+				if (played % BATCH == 0 || played == games) {
+					score = 0;
+					for (long w : wins) {
+						score = Math.max(score, Math.abs((double) w / played - fair));
+					}
+					double error = Math.sqrt(fair * (1 - fair) / played);
+					if (score - 3 * error > cutoff)
+						break;
+				}
+			}
+			return score;
+		};
+	}
+
+	/**
+	 * Returns an objective for the spread of tokens at the end of a game: the
+	 * difference between the average gap from the most to the fewest tokens any
+	 * player holds and the target, over at most the given number of simulated
+	 * games.
+	 *
+	 * @param target average token spread wanted
+	 * @param games  most games to play per board
+	 * @param seed   seed every board is played with
+	 * @return objective
+	 */
+	public static Objective tokenSpread(double target, int games, long seed) {
+		return (board, cutoff) -> {
+			RunningStats spread = new RunningStats();
+			GameEngine engine = new GameEngine();
+			engine.setRandomSource(RandomSource.seeded(seed));
+
+			double score = 0;
+			for (int played = 1; played <= games; played++) {
+				int most = Integer.MIN_VALUE;
+				int fewest = Integer.MAX_VALUE;
+				for (Player p : engine.play(board).getPlayers()) {
+					most = Math.max(most, p.tokens);
+					fewest = Math.min(fewest, p.tokens);
+				}
+				spread.record(most - fewest);
+				if (played % BATCH == 0 || played == games) {
+					score = Math.abs(spread.getMean() - target);
+					double error = spread.getStandardDeviation() / Math.sqrt(played);
+					if (score - 3 * error > cutoff)
+						break;
+				}
+			}
+			return score;
+		};
+	}
+
+	private final ForkJoinPool pool;
+	private final Objective objective;
+	private final RandomSource random;
+	private final int populationSize;
+	private final int children;
+	private final ConcurrentHashMap<Key, Double> cache = new ConcurrentHashMap<>();
+	private final LongAdder evaluations = new LongAdder();
+	private final LongAdder cacheHits = new LongAdder();
+	private Candidate[] population;
+	private int generations;
+
+	/**
+	 * Initializes a search.
+	 *
+	 * @param pool           fork/join pool the boards are scored in
+	 * @param seed           seed of the boards bred
+	 * @param objective      what the boards are scored by
+	 * @param populationSize number of boards kept each generation
+	 * @param children       number of boards bred each generation
+	 */
+	public BoardSearch(ForkJoinPool pool, long seed, Objective objective, int populationSize, int children) {
+		if (populationSize < 1 || children < 1)
+			throw new IllegalArgumentException("Population and children must be at least 1");
+		this.pool = pool;
+		this.objective = objective;
+		this.random = RandomSource.seeded(seed);
+		this.populationSize = populationSize;
+		this.children = children;
+	}
+
+	/**
+	 * A board and its score.
+	 */
+	private static class Candidate implements Comparable<Candidate> {
+		final BoardLayout layout;
+		final Key key;
+		double score;
+
+		Candidate(BoardLayout layout) {
+			this.layout = layout;
+			this.key = new Key(layout);
+		}
+
+		@Override
+		public int compareTo(Candidate that) {
+			return Double.compare(this.score, that.score);
+		}
+	}
+
+	/**
+	 * The squares of the chutes and ladders of a board, in order, which is all
+	 * that decides its score since their weights follow from their lengths. The
+	 * chutes and the ladders are each sorted, so the same board has the same key
+	 * whatever order its layout lists them in.
+	 */
+	private static class Key {
+		private final int[] squares;
+		private final int hash;
+
+		Key(BoardLayout layout) {
+			int chutes = layout.chutes();
+			int ladders = layout.ladders();
+			long[] sortedChutes = new long[chutes];
+			for (int c = 0; c < chutes; c++) {
+				sortedChutes[c] = pack(layout.chuteFrom(c), layout.chuteTo(c));
+			}
+			Arrays.sort(sortedChutes);
+			long[] sortedLadders = new long[ladders];
+			for (int l = 0; l < ladders; l++) {
+				sortedLadders[l] = pack(layout.ladderFrom(l), layout.ladderTo(l));
+			}
+			Arrays.sort(sortedLadders);
+
+			squares = new int[1 + 2 * (chutes + ladders)];
+			int i = 0;
+			squares[i++] = layout.squares();
+			for (long chute : sortedChutes) {
+				squares[i++] = (int) (chute >>> 32);
+				squares[i++] = (int) chute;
+			}
+			for (long ladder : sortedLadders) {
+				squares[i++] = (int) (ladder >>> 32);
+				squares[i++] = (int) ladder;
+			}
+			hash = Arrays.hashCode(squares);
+		}
+
+		// helper method to pack the squares of a chute or ladder so they sort by
+		// start square and then end square
+		private static long pack(int from, int to) {
+			return (long) from << 32 | to;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Key && Arrays.equals(squares, ((Key) other).squares);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	/**
+	 * Scores a range of candidates, splitting itself until each task scores
+	 * one.
+	 */
+	@SuppressWarnings("serial")
+	private class ScoreTask extends RecursiveAction {
+		private final Candidate[] candidates;
+		private final int lo;
+		private final int hi;
+		private final double cutoff;
+
+		ScoreTask(Candidate[] candidates, int lo, int hi, double cutoff) {
+			this.candidates = candidates;
+			this.lo = lo;
+			this.hi = hi;
+			this.cutoff = cutoff;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo == 1) {
+				score(candidates[lo], cutoff);
+				return;
+			}
+			int mid = (lo + hi) >>> 1;
+			invokeAll(new ScoreTask(candidates, lo, mid, cutoff), new ScoreTask(candidates, mid, hi, cutoff));
+		}
+	}
+
+	// helper method to score a candidate, looking it up in the cache first. A
+	// board that stopped early keeps its score in the cache, since the cutoff
+	// only gets lower as the search goes on and the board is no better later.
+	private void score(Candidate candidate, double cutoff) {
+		Double cached = cache.get(candidate.key);
+		if (cached != null) {
+			cacheHits.increment();
+			candidate.score = cached;
+			return;
+		}
+		evaluations.increment();
+		candidate.score = objective.score(new BoardModel(candidate.layout), cutoff);
+		if (cache.size() < MAX_CACHED)
+			cache.put(candidate.key, candidate.score);
+	}
+
+	/**
+	 * Starts the search from newly generated boards of the given size with the
+	 * default number of chutes and ladders.
+	 *
+	 * @param squares number of the finish square
+	 */
+	public void start(int squares) {
+		int jumps = BoardGenerator.defaultJumps(squares);
+		Candidate[] first = new Candidate[populationSize];
+		for (int i = 0; i < populationSize; i++) {
+			first[i] = new Candidate(BoardGenerator.generateLayout(random, squares, jumps, jumps));
+		}
+		pool.invoke(new ScoreTask(first, 0, first.length, Double.POSITIVE_INFINITY));
+		Arrays.sort(first);
+		population = first;
+	}
+
+	/**
+	 * Runs generations until the best board scores at most the given tolerance
+	 * or the given number of generations have run.
+	 *
+	 * @param maxGenerations most generations to run
+	 * @param tolerance      score at which the search stops
+	 * @return best board found
+	 */
+	public BoardLayout search(int maxGenerations, double tolerance) {
+		if (population == null)
+			start(BoardGenerator.DEFAULT_SQUARES);
+		for (int g = 0; g < maxGenerations && getBestScore() > tolerance; g++) {
+			step();
+		}
+		return getBest();
+	}
+
+	/**
+	 * Breeds and scores one generation of children and keeps the best boards.
+	 */
+	public void step() {
+		Candidate[] bred = new Candidate[children];
+		for (int c = 0; c < children; c++) {
+			bred[c] = new Candidate(breed());
+		}
+		double cutoff = population[population.length - 1].score;
+		pool.invoke(new ScoreTask(bred, 0, bred.length, cutoff));
+
+		// keeps the best boards, each board only once
+		MinPQ<Candidate> heap = new MinPQ<>();
+		for (Candidate c : population) {
+			heap.insert(c);
+		}
+		for (Candidate c : bred) {
+			heap.insert(c);
+		}
+		List<Candidate> next = new ArrayList<>(populationSize);
+		while (next.size() < populationSize && !heap.isEmpty()) {
+			Candidate c = heap.delMin();
+			if (!contains(next, c))
+				next.add(c);
+		}
+		population = next.toArray(new Candidate[0]);
+		generations++;
+	}
+
+	// helper method to check if a board is already in the next population
+	private static boolean contains(List<Candidate> candidates, Candidate c) {
+		for (Candidate other : candidates) {
+			if (other.key.equals(c.key))
+				return true;
+		}
+		return false;
+	}
+
+	// helper method to breed a valid child from the population
+	private BoardLayout breed() {
+		Candidate parent = population[random.uniform(0, population.length)];
+		for (int t = 0; t < MAX_TRIES; t++) {
+			BoardLayout child;
+			if (population.length > 1 && random.uniform(0, 4) == 0) {
+				Candidate other = population[random.uniform(0, population.length)];
+				child = cross(parent.layout, other.layout);
+			} else {
+				child = mutate(parent.layout);
+			}
+			if (child != null && BoardGenerator.isValid(child))
+				return child;
+		}
+		return parent.layout;
+	}
+
+	// helper method to move one end of one chute or ladder of a board to another
+	// square in the range that end is drawn from
+	private BoardLayout mutate(BoardLayout layout) {
+		int finish = layout.squares() - 1;
+		int[][] c = chutes(layout);
+		int[][] l = ladders(layout);
+
+		int jump = random.uniform(0, c[0].length + l[0].length);
+		boolean head = random.uniform(0, 2) == 0;
+		if (jump < c[0].length) {
+			if (head)
+				c[0][jump] = random.uniform(Math.max(11, c[1][jump] + 10), finish);
+			else
+				c[1][jump] = random.uniform(1, c[0][jump] - 9);
+			c[2][jump] = BoardGenerator.chuteWeight(c[0][jump], c[1][jump]);
+		} else {
+			jump -= c[0].length;
+			if (head)
+				l[0][jump] = random.uniform(2, Math.min(finish - 8, l[1][jump] - 6));
+			else
+				l[1][jump] = random.uniform(l[0][jump] + 7, finish + 1);
+			l[2][jump] = BoardGenerator.ladderWeight(l[0][jump], l[1][jump]);
+		}
+		return layout(layout.squares(), c, l);
+	}
+
+	// helper method to combine the chutes of one board with the ladders of
+	// another
+	private static BoardLayout cross(BoardLayout chutesOf, BoardLayout laddersOf) {
+		if (chutesOf.squares() != laddersOf.squares())
+			return null;
+		return layout(chutesOf.squares(), chutes(chutesOf), ladders(laddersOf));
+	}
+
+	// helper method to copy the from, to, and weight of each chute of a board
+	private static int[][] chutes(BoardLayout layout) {
+		int[][] c = new int[3][layout.chutes()];
+		for (int i = 0; i < layout.chutes(); i++) {
+			c[0][i] = layout.chuteFrom(i);
+			c[1][i] = layout.chuteTo(i);
+			c[2][i] = layout.chuteWeight(i);
+		}
+		return c;
+	}
+
+	// helper method to copy the from, to, and weight of each ladder of a board
+	private static int[][] ladders(BoardLayout layout) {
+		int[][] l = new int[3][layout.ladders()];
+		for (int i = 0; i < layout.ladders(); i++) {
+			l[0][i] = layout.ladderFrom(i);
+			l[1][i] = layout.ladderTo(i);
+			l[2][i] = layout.ladderWeight(i);
+		}
+		return l;
+	}
+
+	// helper method to build a layout, putting the ladders in order of the square
+	// they start on
+	private static BoardLayout layout(int squares, int[][] c, int[][] l) {
+		Integer[] order = new Integer[l[0].length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> l[0][a] - l[0][b]);
+		int[][] sorted = new int[3][order.length];
+		for (int i = 0; i < order.length; i++) {
+			for (int k = 0; k < 3; k++) {
+				sorted[k][i] = l[k][order[i]];
+			}
+		}
+		return new BoardLayout(squares, c[0], c[1], c[2], sorted[0], sorted[1], sorted[2]);
+	}
+
+	/**
+	 * Returns the best board found so far.
+	 *
+	 * @return best board
+	 */
+	public BoardLayout getBest() {
+		return population[0].layout;
+	}
+
+	/**
+	 * Returns the score of the best board found so far.
+	 *
+	 * @return best score
+	 */
+	public double getBestScore() {
+		return population[0].score;
+	}
+
+	/**
+	 * Returns the number of generations run.
+	 *
+	 * @return number of generations
+	 */
+	public int getGenerations() {
+		return generations;
+	}
+
+	/**
+	 * Returns the number of boards scored by the objective.
+	 *
+	 * @return number of boards scored
+	 */
+	public long getEvaluations() {
+		return evaluations.sum();
+	}
+
+	/**
+	 * Returns the number of boards whose score was found in the cache.
+	 *
+	 * @return number of cache hits
+	 */
+	public long getCacheHits() {
+		return cacheHits.sum();
+	}
+
+	/**
+	 * Searches for a board and prints it. Accepts the objective ("length",
+	 * "balance", or "spread"), its target, and the most generations to run.
+	 */
+	public static void main(String[] args) {
+		String kind = args.length > 0 ? args[0] : "length";
+		double target = args.length > 1 ? Double.parseDouble(args[1]) : 30;
+		int maxGenerations = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+		Objective objective;
+		double tolerance;
+		switch (kind) {
+		case "balance":
+			objective = turnOrderBalance(20_000, 1);
+			tolerance = 0.002;
+			break;
+		case "spread":
+			objective = tokenSpread(target, 20_000, 1);
+			tolerance = 0.05;
+			break;
+		default:
+			objective = gameLength(target);
+			tolerance = 0.01;
+		}
+
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		BoardSearch search = new BoardSearch(pool, System.nanoTime(), objective, 16,
+				4 * Math.max(8, pool.getParallelism()));
+		long start = System.nanoTime();
+		search.start(BoardGenerator.DEFAULT_SQUARES);
+		System.out.printf("Best random board scores %.4f%n", search.getBestScore());
+		BoardLayout best = search.search(maxGenerations, tolerance);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.printf("Best board scores %.4f after %d generations in %.2f s (%d boards scored, %d cached)%n",
+				search.getBestScore(), search.getGenerations(), seconds, search.getEvaluations(),
+				search.getCacheHits());
+		for (int c = 0; c < best.chutes(); c++) {
+			System.out.printf("Chute %d -> %d (%d)%n", best.chuteFrom(c), best.chuteTo(c), best.chuteWeight(c));
+		}
+		for (int l = 0; l < best.ladders(); l++) {
+			System.out.printf("Ladder %d -> %d (%d)%n", best.ladderFrom(l), best.ladderTo(l), best.ladderWeight(l));
+		}
+	}
+}
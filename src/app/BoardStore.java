@@ -0,0 +1,172 @@
+package app;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads boards from a board library file written by a {@link BoardStoreWriter}.
+ * The file is memory-mapped and every board takes the same number of bytes, so
+ * board number k is found by its offset alone and read straight from the
+ * mapping without parsing or copying the file onto the heap.
+ * <p>
+ * The file starts with a 32 byte header: the magic number, the format version,
+ * the number of squares per board, the number of chute and ladder slots per
+ * board, the size of a square number in bytes (2, or 4 for boards with more
+ * than 65536 squares), the size of a record, and the number of boards. Each
+ * record holds the number of chutes and of ladders as ints, followed by one
+ * slot per chute and then per ladder with its start square, end square, and
+ * weight as a short. Unused slots are zero.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class BoardStore implements Closeable {
+	static final int MAGIC = 0x434C4231; // "CLB1"
+	static final int VERSION = 2;
+	static final int HEADER_BYTES = 32;
+	static final int COUNT_OFFSET = 24;
+
+	private final FileChannel channel;
+	private final MappedByteBuffer[] segments;
+	private final int squares;
+	private final int slots;
+	private final int fieldBytes;
+	private final int recordBytes;
+	private final int recordsPerSegment;
+	private final long count;
+
+	/**
+	 * Opens a board library for reading.
+	 *
+	 * @param path library file
+	 * @throws IOException if the file cannot be read or is not a board library
+	 */
+	public BoardStore(Path path) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+		int read = channel.read(header, 0);
+		header.flip();
+		if (read < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) {
+			channel.close();
+			throw new IOException(path + " is not a board library");
+		}
+		squares = header.getInt();
+		slots = header.getInt();
+		fieldBytes = header.getInt();
+		recordBytes = header.getInt();
+		count = header.getLong();
+
+		// maps the records in pieces since a single mapping is limited to 2 GB
+		recordsPerSegment = Integer.MAX_VALUE / recordBytes;
+		int numSegments = (int) ((count + recordsPerSegment - 1) / recordsPerSegment);
+		segments = new MappedByteBuffer[numSegments];
+		for (int s = 0; s < numSegments; s++) {
+			long first = (long) s * recordsPerSegment;
+			long records = Math.min(recordsPerSegment, count - first);
+			segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + first * recordBytes,
+					records * recordBytes);
+		}
+	}
+
+	// helper method to choose how many bytes a square number takes
+	static int fieldBytes(int squares) {
+		return squares <= 0x10000 ? 2 : 4;
+	}
+
+	// helper method to calculate the size of one board record
+	static int recordBytes(int fieldBytes, int slots) {
+		return 8 + slots * (2 * fieldBytes + 2);
+	}
+
+	/**
+	 * Returns the number of boards in the library.
+	 *
+	 * @return number of boards
+	 */
+	public long size() {
+		return count;
+	}
+
+	/**
+	 * Returns the number of squares of every board in the library.
+	 *
+	 * @return number of squares including square 0
+	 */
+	public int squares() {
+		return squares;
+	}
+
+	/**
+	 * Returns the most chutes and ladders a board in the library can have.
+	 *
+	 * @return number of slots per board
+	 */
+	public int slots() {
+		return slots;
+	}
+
+	/**
+	 * Reads the layout of board k. Reading does not move any buffer position, so
+	 * any number of threads can read from the same store.
+	 *
+	 * @param k number of the board, starting at 0
+	 * @return board layout
+	 */
+	public BoardLayout layout(long k) {
+		if (k < 0 || k >= count)
+			throw new IndexOutOfBoundsException("Board " + k + " is not in a library of " + count);
+
+		MappedByteBuffer segment = segments[(int) (k / recordsPerSegment)];
+		int offset = (int) (k % recordsPerSegment) * recordBytes;
+		int chutes = segment.getInt(offset);
+		int ladders = segment.getInt(offset + 4);
+		int slotBytes = 2 * fieldBytes + 2;
+
+		int[] chuteFrom = new int[chutes];
+		int[] chuteTo = new int[chutes];
+		int[] chuteWeight = new int[chutes];
+		int[] ladderFrom = new int[ladders];
+		int[] ladderTo = new int[ladders];
+		int[] ladderWeight = new int[ladders];
+
+		int at = offset + 8;
+		for (int i = 0; i < chutes; i++, at += slotBytes) {
+			chuteFrom[i] = square(segment, at);
+			chuteTo[i] = square(segment, at + fieldBytes);
+			chuteWeight[i] = segment.getShort(at + 2 * fieldBytes);
+		}
+		for (int i = 0; i < ladders; i++, at += slotBytes) {
+			ladderFrom[i] = square(segment, at);
+			ladderTo[i] = square(segment, at + fieldBytes);
+			ladderWeight[i] = segment.getShort(at + 2 * fieldBytes);
+		}
+		return new BoardLayout(squares, chuteFrom, chuteTo, chuteWeight, ladderFrom, ladderTo, ladderWeight);
+	}
+
+	// helper method to read a square number at the given offset
+	private int square(MappedByteBuffer segment, int at) {
+		return fieldBytes == 2 ? Short.toUnsignedInt(segment.getShort(at)) : segment.getInt(at);
+	}
+
+	/**
+	 * Loads board k so it can be played. Only the jump table is built; the graph
+	 * is built if it is asked for.
+	 *
+	 * @param k number of the board, starting at 0
+	 * @return board model
+	 */
+	public BoardModel board(long k) {
+		return new BoardModel(layout(k));
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
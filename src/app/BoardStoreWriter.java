@@ -0,0 +1,162 @@
+package app;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes boards to a board library file one after another, so any number of
+ * boards can be generated and stored without holding them in memory. Records
+ * are collected in a direct buffer and written to the file channel whenever it
+ * fills up. The number of boards is written into the header when the writer is
+ * closed. See {@link BoardStore} for the file format.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class BoardStoreWriter implements Closeable {
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+	private final int squares;
+	private final int slots;
+	private final int fieldBytes;
+	private final int recordBytes;
+	private long count;
+
+	/**
+	 * Creates a new board library, replacing any file that is already there.
+	 *
+	 * @param path    file to write
+	 * @param squares number of squares of every board including square 0
+	 * @param slots   most chutes and ladders any board will have
+	 * @throws IOException if the file cannot be created
+	 */
+	public BoardStoreWriter(Path path, int squares, int slots) throws IOException {
+		this.squares = squares;
+		this.slots = slots;
+		this.fieldBytes = BoardStore.fieldBytes(squares);
+		this.recordBytes = BoardStore.recordBytes(fieldBytes, slots);
+
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		buffer = ByteBuffer.allocateDirect(Math.max(BUFFER_SIZE, BoardStore.HEADER_BYTES + recordBytes));
+		putHeader(buffer, squares, slots, count);
+	}
+
+	// puts the file header of a library with the given shape into the buffer
+	static void putHeader(ByteBuffer buffer, int squares, int slots, long count) {
+		int fieldBytes = BoardStore.fieldBytes(squares);
+		buffer.putInt(BoardStore.MAGIC);
+		buffer.putInt(BoardStore.VERSION);
+		buffer.putInt(squares);
+		buffer.putInt(slots);
+		buffer.putInt(fieldBytes);
+		buffer.putInt(BoardStore.recordBytes(fieldBytes, slots));
+		buffer.putLong(count);
+	}
+
+	/**
+	 * Appends a board to the library.
+	 *
+	 * @param layout chutes and ladders of the board
+	 * @return number of the board in the library
+	 * @throws IOException if the board cannot be written
+	 */
+	public long write(BoardLayout layout) throws IOException {
+		if (layout.squares() != squares)
+			throw new IllegalArgumentException("Board has " + layout.squares() + " squares, expected " + squares);
+		if (layout.chutes() + layout.ladders() > slots)
+			throw new IllegalArgumentException("Board has more than " + slots + " chutes and ladders");
+
+		if (buffer.remaining() < recordBytes)
+			flush();
+
+		putRecord(buffer, layout, fieldBytes, recordBytes);
+		return count++;
+	}
+
+	// puts the record of a board into the buffer, padded to recordBytes
+	static void putRecord(ByteBuffer buffer, BoardLayout layout, int fieldBytes, int recordBytes) {
+		int start = buffer.position();
+		buffer.putInt(layout.chutes());
+		buffer.putInt(layout.ladders());
+		for (int i = 0; i < layout.chutes(); i++) {
+			putJump(buffer, fieldBytes, layout.chuteFrom(i), layout.chuteTo(i), layout.chuteWeight(i));
+		}
+		for (int i = 0; i < layout.ladders(); i++) {
+			putJump(buffer, fieldBytes, layout.ladderFrom(i), layout.ladderTo(i), layout.ladderWeight(i));
+		}
+		while (buffer.position() < start + recordBytes) {
+			buffer.put((byte) 0);
+		}
+	}
+
+	// helper method to put one chute or ladder into the buffer
+	private static void putJump(ByteBuffer buffer, int fieldBytes, int from, int to, int weight) {
+		if (fieldBytes == 2) {
+			buffer.putShort((short) from);
+			buffer.putShort((short) to);
+		} else {
+			buffer.putInt(from);
+			buffer.putInt(to);
+		}
+		buffer.putShort((short) weight);
+	}
+
+	// helper method to write the buffered records to the file
+	private void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Returns the number of boards written so far.
+	 *
+	 * @return number of boards
+	 */
+	public long size() {
+		return count;
+	}
+
+	/**
+	 * Writes any buffered boards and the final board count, then closes the file.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+			ByteBuffer size = ByteBuffer.allocate(Long.BYTES);
+			size.putLong(count).flip();
+			channel.write(size, BoardStore.COUNT_OFFSET);
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Generates a library of random boards. Accepts the file to write and the
+	 * number of boards.
+	 */
+	public static void main(String[] args) throws IOException {
+		Path path = Paths.get(args.length > 0 ? args[0] : "boards.clb");
+		long boards = args.length > 1 ? Long.parseLong(args[1]) : 1_000_000;
+
+		long start = System.nanoTime();
+		try (BoardStoreWriter writer = new BoardStoreWriter(path, 101, 18)) {
+			for (long i = 0; i < boards; i++) {
+				writer.write(new BoardGenerator().getLayout());
+			}
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("Wrote %d boards to %s in %.2f s%n", boards, path, seconds);
+	}
+}
@@ -1,39 +1,53 @@
 package app;
 
-import edu.princeton.cs.algs4.DirectedEdge;
-import edu.princeton.cs.algs4.EdgeWeightedDigraph;
-import edu.princeton.cs.algs4.MaxPQ;
 import edu.princeton.cs.algs4.Queue;
 
 /**
- * Represents the game play flow of Chutes and Ladders. Implements Digraph to
- * track the connections to each square via adjacency, a chute or a ladder. Uses
- * a queue to track the order of turns of each Player. Keeps track of the total
- * number of turns taken by all players collectively.
+ * Represents the game play flow of Chutes and Ladders. Drives a GameState
+ * through each step of a turn and records a log of what happened for the GUI.
+ * The rules themselves live in GameState so games can also be played without a
+ * display.
  * 
  * @author Trevor Colton & Joshua Gray
  *
  */
 public class GameDirector {
-	private Queue<Player> players;
-	private Player currentPlayer;
-	private Player playerWinner;
+	private Player[] roster;
+	private GameState state;
 	private Board board;
-	private EdgeWeightedDigraph graph;
 
 	private int boardWidth;
 	private int squareSize;
-	private int totalTurns;
-	private int tokenChange;
+	private int columns;
+	private int rows;
+	private Leaderboard leaderboard;
 
 	public boolean isActive;
 	public StringBuilder fb;
 
 	public GameDirector(int boardSize) {
-		boardWidth = boardSize;
-		squareSize = boardWidth / 10;
+		this(boardSize, 10, 10);
+	}
 
-		players = new Queue<Player>();
+	/**
+	 * Initializes a game on boards of the given number of columns and rows.
+	 * 
+	 * @param boardSize width of the drawn board in pixels
+	 * @param columns   number of squares in a row
+	 * @param rows      number of rows
+	 */
+	public GameDirector(int boardSize, int columns, int rows) {
+		boardWidth = boardSize;
+		this.columns = columns;
+		this.rows = rows;
+		squareSize = Math.max(1, boardWidth / Math.max(columns, rows));
+
+		PlayerColor[] colors = PlayerColor.values();
+		roster = new Player[colors.length];
+		for (int i = 0; i < colors.length; i++) {
+			roster[i] = new Player(colors[i], squareSize);
+		}
+		state = new GameState();
 
 		resetGame();
 	}
@@ -42,34 +56,33 @@ public class GameDirector {
 	 * Initializes all GameDirector fields to the default values.
 	 */
 	public void resetGame() {
-		while (!players.isEmpty()) {
-			players.dequeue();
-		}
-		for (PlayerColor color : PlayerColor.values()) {
-			Player player = new Player(color, squareSize);
-			players.enqueue(player);
-		}
+		int squares = columns * rows;
+		resetGame(squares == BoardGenerator.DEFAULT_SQUARES ? new BoardModel()
+				: new BoardModel(RandomSource.GLOBAL, squares));
+	}
+
+	/**
+	 * Initializes all GameDirector fields to the default values and plays the
+	 * next game on the given board.
+	 * 
+	 * @param boardModel board to play on
+	 */
+	public void resetGame(BoardModel boardModel) {
+		state.reset(boardModel, roster);
 
-		totalTurns = 0;
-		tokenChange = 0;
 		isActive = true;
 		fb = new StringBuilder();
 
-		playerWinner = null;
-		currentPlayer = players.dequeue();
-		board = new Board(boardWidth, players, currentPlayer);
-		graph = board.getGraph();
-		board.repaint();
+		repaintBoard();
 	}
 
 	/**
 	 * Starts the current players turn by spinning the spinner.
 	 */
 	public void startPlayerSpin() {
-		fb = new StringBuilder();
-		currentPlayer.spinSpinner();
-		currentPlayer.spinTimes++;
-		currentPlayer.totalSpins++;
+		fb.setLength(0);
+		state.spin();
+		Player currentPlayer = state.getCurrentPlayer();
 
 		if (currentPlayer.spinTimes == 1) {
 			fb.append("Turn ").append(currentPlayer.turns + 1)
@@ -81,7 +94,7 @@ public class GameDirector {
 					.append(currentPlayer.latestSpin + ".\n");
 		}
 
-		board.repaint();
+		repaintBoard();
 	}
 
 	/*
@@ -89,129 +102,88 @@ public class GameDirector {
 	 * value.
 	 */
 	public void movePlayer() {
-		fb = new StringBuilder();
-
-		currentPlayer.spinTimes = 0;
-		currentPlayer.turns++;
-		totalTurns++;
-		tokenChange = getPlayerTokensEarned(currentPlayer);
-
-		currentPlayer.move();
+		fb.setLength(0);
+		int tokenChange = state.move();
+		Player currentPlayer = state.getCurrentPlayer();
 
 		fb.append(currentPlayer.toString() + " moved to square " + (currentPlayer.currentPosition));
 		fb.append(" and collected " + tokenChange + " token(s).\n");
 	}
 
-	// helper method to calculate the number of tokens the player earned
-	private int getPlayerTokensEarned(Player p) {
-		int tokens = 0;
-
-		for (DirectedEdge edge : board.boardGraph.adj(p.currentPosition)) {
-			if (edge.to() == p.nextPosition) {
-				tokens += (int) edge.weight();
-				break;
-			}
-
-		}
-		p.tokens += tokens;
-		return tokens;
-	}
-
 	/**
 	 * Checks if current player has won, and ends their turn. If they have not won,
 	 * they will be requeue'd and the next player in the queue is selected as the
 	 * new current player.
 	 */
 	public void endTurn() {
-		fb = new StringBuilder();
-		
-		players.enqueue(currentPlayer);
-		if (currentPlayer.hasFinished()) {
+		fb.setLength(0);
+
+		if (state.endTurn()) {
 			playerFinished();
-		} else {
-			currentPlayer = players.dequeue();
-			board.setCurrentPlayer(currentPlayer);
 		}
 
-		board.repaint();
+		repaintBoard();
 	}
 
-	// helper method to check if a player has finished
+	// helper method to report the ranking once a player has finished
 	private void playerFinished() {
-		fb = new StringBuilder();
+		fb.setLength(0);
 		isActive = false;
-		int place = 2;
+		int place = 1;
 
 		fb.append("\nWoah, we have a finisher! \n");
 		fb.append("Now it's time to determine the winner!\n");
 
-		MaxPQ<Player> ranking = new MaxPQ<>();
-		for (Player player : players) {
-			ranking.insert(player);
-		}
-
-		Player p = ranking.delMax();
-		playerWinner = p;
-		fb.append("Congratulations " + p.toString());
-		fb.append(", you won with (" + p.tokens + ") tokens!\n");
+		Player winner = state.getWinner();
+		fb.append("Congratulations " + winner.toString());
+		fb.append(", you won with (" + winner.tokens + ") tokens!\n");
 
 		fb.append("Here is how the remaining players ranked.\n");
-		while (!ranking.isEmpty()) {
-			p = ranking.delMax();
-			fb.append(place++ + ": " + p.toString() + " (" + p.tokens + ")\n");
+		for (Player p : state.getRanking()) {
+			if (p != winner)
+				fb.append(++place + ": " + p.toString() + " (" + p.tokens + ")\n");
 		}
+
+		if (leaderboard != null)
+			leaderboard.record(state, p -> p.playerColor.toString());
 	}
 
 	/**
 	 * Sends the player up a ladder or down a chute if they are standing on either
 	 */
 	public void takeChuteOrLadder() {
-		fb = new StringBuilder();
-		EdgeWeightedDigraph graph = board.getGraph();
-		tokenChange = 0;
-
-		for (DirectedEdge edge : graph.adj(currentPlayer.currentPosition)) {
-			if (edge.weight() > 6) {
-				if (canTakeLadder()) {
-					currentPlayer.nextPosition = edge.to();
-					currentPlayer.move();
-					fb.append(currentPlayer.toString() + " took a ladder to square " + (edge.to()));
-
-					tokenChange = (int) (edge.weight());
-					// System.out.println(tokenChange);
-					currentPlayer.tokens += tokenChange;
-					fb.append(" and collected\n " + tokenChange + " additional token(s).\n");
-				}
-				break;
-			} else if (edge.weight() < 0) {
-
-				currentPlayer.nextPosition = edge.to();
-				currentPlayer.move();
-				fb.append(currentPlayer.toString() + " took a chute to square " + (edge.to()));
-
-				if (edge.weight() * -1 < currentPlayer.tokens) {
-					tokenChange = (int) edge.weight();
-					currentPlayer.tokens += tokenChange;
-					fb.append(" and lost " + -tokenChange + " token(s).\n");
-				} else
-					currentPlayer.tokens = 0;
-				break;
-			}
+		fb.setLength(0);
+		boolean ladder = state.isLadder();
+		Player currentPlayer = state.getCurrentPlayer();
+
+		int square = state.takeChuteOrLadder();
+		if (square < 0)
+			return;
+
+		int tokenChange = state.getTokenChange();
+		if (ladder) {
+			fb.append(currentPlayer.toString() + " took a ladder to square " + square);
+			fb.append(" and collected\n " + tokenChange + " additional token(s).\n");
+		} else {
+			fb.append(currentPlayer.toString() + " took a chute to square " + square);
+			if (tokenChange < 0)
+				fb.append(" and lost " + -tokenChange + " token(s).\n");
 		}
 	}
 
+	// helper method to repaint the board if it is being displayed
+	private void repaintBoard() {
+		if (board != null)
+			board.repaint();
+	}
+
 	/**
 	 * Checks if the current player has landed on a chute square.
 	 * 
 	 * @return true or false
 	 */
 	public boolean isChute() {
-		for (DirectedEdge edge : graph.adj(currentPlayer.currentPosition)) {
-			if (edge.weight() < 0) {
-				return true;
-			}
-		}
-		return false;
+		return state.isChute();
 	}
 
 	/**
@@ -220,12 +192,7 @@ public class GameDirector {
 	 * @return true or false
 	 */
 	public boolean isLadder() {
-		for (DirectedEdge edge : graph.adj(currentPlayer.currentPosition)) {
-			if (edge.weight() > 6) {
-				return true;
-			}
-		}
-		return false;
+		return state.isLadder();
 	}
 
 	/**
@@ -234,12 +201,7 @@ public class GameDirector {
 	 * @return true or false
 	 */
 	public boolean canTakeLadder() {
-		for (DirectedEdge e : graph.adj(currentPlayer.currentPosition)) {
-			if (e.weight() > 6 && (e.weight() / 2) <= currentPlayer.tokens) {
-				return true;
-			}
-		}
-		return false;
+		return state.canTakeLadder();
 	}
 
 	/**
@@ -248,27 +210,14 @@ public class GameDirector {
 	 * @return true or false
 	 */
 	public int getLadderCost() {
-		int cost = 0;
-		for (DirectedEdge e : graph.adj(currentPlayer.currentPosition)) {
-			if (e.weight() > 6) {
-				cost = (int) e.weight() / 2;
-			}
-		}
-		return cost;
+		return state.getLadderCost();
 	}
 
 	/**
 	 * Returns the player that's in the lead.
 	 */
 	public Player getLead() {
-		Player currentLead = null;
-		for (Player player : players) {
-			if (currentLead == null)
-				currentLead = player;
-			else if (player.currentPosition > currentLead.currentPosition)
-				currentLead = player;
-		}
-		return currentLead;
+		return state.getLead();
 	}
 
 	/**
@@ -277,7 +226,7 @@ public class GameDirector {
 	 * @return number of total turns
 	 */
 	public int getTotalTurns() {
-		return totalTurns;
+		return state.getTotalTurns();
 	}
 
 	/**
@@ -286,7 +235,7 @@ public class GameDirector {
 	 * @return current player
 	 */
 	public Player getCurrentPlayer() {
-		return currentPlayer;
+		return state.getCurrentPlayer();
 	}
 
 	/**
@@ -295,7 +244,7 @@ public class GameDirector {
 	 * @return current player
 	 */
 	public Queue<Player> getPlayers() {
-		return players;
+		return state.getPlayers();
 	}
 
 	/**
@@ -304,15 +253,56 @@ public class GameDirector {
 	 * @return player that won
 	 */
 	public Player getWinner() {
-		return playerWinner;
+		return state.getWinner();
+	}
+
+	/**
+	 * Returns the state of the game being directed.
+	 * 
+	 * @return game state
+	 */
+	public GameState getGameState() {
+		return state;
+	}
+
+	/**
+	 * Sets the leaderboard every finished game is recorded on, with each player
+	 * counted for their color.
+	 * 
+	 * @param leaderboard leaderboard, or null to not keep one
+	 */
+	public void setLeaderboard(Leaderboard leaderboard) {
+		this.leaderboard = leaderboard;
+	}
+
+	/**
+	 * Returns the leaderboard finished games are recorded on.
+	 * 
+	 * @return leaderboard, or null if there is none
+	 */
+	public Leaderboard getLeaderboard() {
+		return leaderboard;
+	}
+
+	/**
+	 * Returns the model of the board the game is played on.
+	 * 
+	 * @return board model
+	 */
+	public BoardModel getBoardModel() {
+		return state.getBoard();
 	}
 
 	/**
-	 * Returns board used by the game director
+	 * Returns board used by the game director. The board is only created the
+	 * first time it is needed, so games that are never displayed do not create
+	 * one.
 	 * 
 	 * @return current board
 	 */
 	public Board getGameBoard() {
+		if (board == null)
+			board = new Board(boardWidth, columns, rows, state);
 		return this.board;
 	}
 }
@@ -0,0 +1,149 @@
+package app;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import edu.princeton.cs.algs4.StdRandom;
+
+/**
+ * Plays complete games of Chutes and Ladders without a display. Each turn the
+ * player spins, moves, and slides down any chute they land on, while a
+ * TurnPolicy decides whether to spin again and whether to climb a ladder. By
+ * default the engine follows the same steps as the "Game Simulation" button in
+ * the GUI. The engine reuses its players and game state between games, so
+ * playing a game does not create any Swing components.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class GameEngine {
+	private final Player[] roster;
+	private final GameState state;
+	private final TurnPolicy policy;
+	private GameJournal journal;
+
+	/**
+	 * Initializes an engine with one player for every PlayerColor that plays
+	 * like the "Game Simulation" button.
+	 */
+	public GameEngine() {
+		this(TurnPolicy.SIMULATION);
+	}
+
+	/**
+	 * Initializes an engine with one player for every PlayerColor.
+	 *
+	 * @param policy choices every player makes during their turns
+	 */
+	public GameEngine(TurnPolicy policy) {
+		this.policy = policy;
+		PlayerColor[] colors = PlayerColor.values();
+		roster = new Player[colors.length];
+		for (int i = 0; i < colors.length; i++) {
+			roster[i] = new Player(colors[i]);
+		}
+		state = new GameState();
+	}
+
+	/**
+	 * Sets the random source every player's spinner uses.
+	 *
+	 * @param random random source
+	 */
+	public void setRandomSource(RandomSource random) {
+		for (Player player : roster) {
+			player.setRandomSource(random);
+		}
+	}
+
+	/**
+	 * Sets the journal every game is recorded to.
+	 *
+	 * @param journal journal to record to, or null to stop recording
+	 */
+	public void setJournal(GameJournal journal) {
+		this.journal = journal;
+		state.setJournal(journal);
+	}
+
+	/**
+	 * Plays a full game on the given board.
+	 *
+	 * @param board board to play on
+	 * @return the state of the finished game
+	 */
+	public GameState play(BoardModel board) {
+		return play(board, 0, 0);
+	}
+
+	/**
+	 * Plays a full game on the given board, recording the seed and board id at
+	 * the start of the game in the journal.
+	 *
+	 * @param board   board to play on
+	 * @param seed    seed the game is played with
+	 * @param boardId number of the board
+	 * @return the state of the finished game
+	 */
+	public GameState play(BoardModel board, long seed, int boardId) {
+		state.reset(board, roster);
+		if (journal != null)
+			journal.startGame(seed, boardId, roster.length);
+		while (state.isActive()) {
+			playTurn(state);
+		}
+		return state;
+	}
+
+	/**
+	 * Plays one turn for the current player of the given game.
+	 *
+	 * @param game game that is still active
+	 */
+	public void playTurn(GameState game) {
+		Player p = game.getCurrentPlayer();
+		game.spin();
+		if (policy.respin(p.currentPosition, p.tokens, p.latestSpin))
+			game.spin();
+		game.move();
+
+		if (game.isLadder()) {
+			if (game.canTakeLadder() && policy.takeLadder(p.currentPosition, p.tokens))
+				game.takeChuteOrLadder();
+		} else {
+			game.takeChuteOrLadder();
+		}
+		game.endTurn();
+	}
+
+	/**
+	 * Plays a number of games headless and prints how many were played per
+	 * second. Accepts the number of games, whether every game gets a new board
+	 * ("new") or all games share one board ("same"), and optionally a journal file
+	 * to record the games to.
+	 */
+	public static void main(String[] args) throws IOException {
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+		boolean newBoards = args.length > 1 && args[1].equals("new");
+		GameJournal journal = args.length > 2 ? new GameJournal(Paths.get(args[2])) : null;
+
+		GameEngine engine = new GameEngine();
+		engine.setJournal(journal);
+		BoardModel board = new BoardModel();
+		long seed = StdRandom.getSeed();
+		long turns = 0;
+
+		long start = System.nanoTime();
+		for (int i = 0; i < games; i++) {
+			if (newBoards)
+				board = new BoardModel();
+			turns += engine.play(board, seed, newBoards ? i : 0).getTotalTurns();
+		}
+		if (journal != null)
+			journal.close();
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.printf("Played %d games (%d turns) in %.2f s: %.0f games/s%n", games, turns, seconds,
+				games / seconds);
+	}
+}
@@ -0,0 +1,419 @@
+package app;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.SplittableRandom;
+
+/**
+ * Writes the results of every game of a run to a file, for analysis of
+ * millions of games outside of the program. For each game the file holds the
+ * board id, the seed, the winner, and the number of turns, and for each player
+ * their tokens, spins, turns, and the path of squares they moved through.
+ * <p>
+ * The {@link Format#BINARY} format is columnar. Games are collected in blocks
+ * of up to {@link #GAMES_PER_BLOCK}, and each block is written column after
+ * column, so a reader can skip to the columns it needs and each column
+ * compresses well. The file starts with a 16 byte header: the magic number, the
+ * format version, the number of players, and the number of games per block.
+ * Each block is:
+ * <ul>
+ * <li>the number of games n in the block</li>
+ * <li>n board ids (int), n seeds (long), n winners (byte, ordinal of the
+ * PlayerColor), and n turn counts (int)</li>
+ * <li>for each player in order of PlayerColor: n tokens, n spins, n turns, and
+ * n path lengths in bytes (int), followed by the paths</li>
+ * </ul>
+ * A path is the squares a player reached in order, each written as the
+ * zigzag varint of its difference from the square before, starting from square
+ * 0, so most squares take one byte.
+ * <p>
+ * The {@link Format#CSV} format has one line per game, with the player columns
+ * side by side and each path as squares separated by spaces.
+ * <p>
+ * Only one block is held in memory, and everything is written through one
+ * fixed size buffer of a FileChannel, so memory does not grow with the number
+ * of games.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class GameExporter implements Closeable {
+	static final int MAGIC = 0x434C5831; // "CLX1"
+	static final int VERSION = 1;
+	static final int HEADER_BYTES = 16;
+
+	/** Most games held in one block of the binary format. */
+	public static final int GAMES_PER_BLOCK = 4096;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Layout of an exported file.
+	 */
+	public enum Format {
+		/** Columnar binary blocks. */
+		BINARY,
+		/** One line of comma separated values per game. */
+		CSV
+	}
+
+	private final FileChannel channel;
+	private final Format format;
+	private final int players;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	private long games;
+
+	// columns of the current block
+	private int n;
+	private final int[] boardIds = new int[GAMES_PER_BLOCK];
+	private final long[] seeds = new long[GAMES_PER_BLOCK];
+	private final byte[] winners = new byte[GAMES_PER_BLOCK];
+	private final int[] turns = new int[GAMES_PER_BLOCK];
+	private final int[][] tokens;
+	private final int[][] spins;
+	private final int[][] playerTurns;
+	private final int[][] pathLengths;
+	private final byte[][] paths;
+	private final int[] pathBytes;
+	private final int[] offsets;
+	private final StringBuilder line = new StringBuilder(256);
+
+	/**
+	 * Creates a new export file, replacing any file that is already there.
+	 *
+	 * @param path   file to write
+	 * @param format layout of the file
+	 * @throws IOException if the file cannot be created
+	 */
+	public GameExporter(Path path, Format format) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		this.format = format;
+		this.players = PlayerColor.values().length;
+
+		tokens = new int[players][GAMES_PER_BLOCK];
+		spins = new int[players][GAMES_PER_BLOCK];
+		playerTurns = new int[players][GAMES_PER_BLOCK];
+		pathLengths = new int[players][GAMES_PER_BLOCK];
+		paths = new byte[players][GAMES_PER_BLOCK * 16];
+		pathBytes = new int[players];
+		offsets = new int[players];
+
+		if (format == Format.BINARY) {
+			buffer.putInt(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putInt(players);
+			buffer.putInt(GAMES_PER_BLOCK);
+		} else {
+			StringBuilder header = new StringBuilder("board,seed,winner,turns");
+			for (PlayerColor color : PlayerColor.values()) {
+				String c = color.toString().toLowerCase();
+				header.append(',').append(c).append("_tokens,").append(c).append("_spins,").append(c)
+						.append("_turns,").append(c).append("_path");
+			}
+			putAscii(header.append('\n'));
+		}
+	}
+
+	/**
+	 * Records the results of a finished game.
+	 *
+	 * @param game    game that is over
+	 * @param seed    seed the game was played with
+	 * @param boardId number of the board the game was played on
+	 * @throws IOException if the file cannot be written
+	 */
+	public void record(GameState game, long seed, int boardId) throws IOException {
+		boardIds[n] = boardId;
+		seeds[n] = seed;
+		winners[n] = (byte) game.getWinner().playerColor.ordinal();
+		turns[n] = game.getTotalTurns();
+		for (Player p : game.getPlayers()) {
+			int i = p.playerColor.ordinal();
+			tokens[i][n] = p.tokens;
+			spins[i][n] = p.totalSpins;
+			playerTurns[i][n] = p.turns;
+			pathLengths[i][n] = encodePath(i, p);
+		}
+		n++;
+		games++;
+
+		if (format == Format.CSV) {
+			writeCsv(0);
+			Arrays.fill(pathBytes, 0);
+			n = 0;
+		} else if (n == GAMES_PER_BLOCK) {
+			writeBlock();
+		}
+	}
+
+	// helper method to append the path of player p to the paths of player i,
+	// returning its length in bytes
+	private int encodePath(int i, Player p) {
+		int start = pathBytes[i];
+		int previous = 0;
+		for (PrimitiveIterator.OfInt it = p.playerPath.iterator(); it.hasNext();) {
+			int square = it.nextInt();
+			if (paths[i].length - pathBytes[i] < 5)
+				paths[i] = Arrays.copyOf(paths[i], paths[i].length * 2);
+			int delta = square - previous;
+			int zigzag = (delta << 1) ^ (delta >> 31);
+			while ((zigzag & ~0x7F) != 0) {
+				paths[i][pathBytes[i]++] = (byte) (zigzag | 0x80);
+				zigzag >>>= 7;
+			}
+			paths[i][pathBytes[i]++] = (byte) zigzag;
+			previous = square;
+		}
+		return pathBytes[i] - start;
+	}
+
+	// helper method to write the current block column by column
+	private void writeBlock() throws IOException {
+		ensure(4);
+		buffer.putInt(n);
+		for (int g = 0; g < n; g++) {
+			ensure(4);
+			buffer.putInt(boardIds[g]);
+		}
+		for (int g = 0; g < n; g++) {
+			ensure(8);
+			buffer.putLong(seeds[g]);
+		}
+		putBytes(winners, n);
+		for (int g = 0; g < n; g++) {
+			ensure(4);
+			buffer.putInt(turns[g]);
+		}
+		for (int i = 0; i < players; i++) {
+			putInts(tokens[i]);
+			putInts(spins[i]);
+			putInts(playerTurns[i]);
+			putInts(pathLengths[i]);
+			putBytes(paths[i], pathBytes[i]);
+			pathBytes[i] = 0;
+		}
+		n = 0;
+	}
+
+	// helper method to write the first n values of a column of ints
+	private void putInts(int[] column) throws IOException {
+		for (int g = 0; g < n; g++) {
+			ensure(4);
+			buffer.putInt(column[g]);
+		}
+	}
+
+	// helper method to write length bytes, a buffer at a time
+	private void putBytes(byte[] bytes, int length) throws IOException {
+		int offset = 0;
+		while (offset < length) {
+			ensure(1);
+			int chunk = Math.min(buffer.remaining(), length - offset);
+			buffer.put(bytes, offset, chunk);
+			offset += chunk;
+		}
+	}
+
+	// helper method to write game g of the current block as a line of CSV. The
+	// paths of the games of a block are read in order, so offsets holds where
+	// the path of each player in game g starts.
+	private void writeCsv(int g) throws IOException {
+		if (g == 0)
+			Arrays.fill(offsets, 0);
+		line.setLength(0);
+		line.append(boardIds[g]).append(',').append(seeds[g]).append(',')
+				.append(PlayerColor.values()[winners[g]]).append(',').append(turns[g]);
+		for (int i = 0; i < players; i++) {
+			line.append(',').append(tokens[i][g]).append(',').append(spins[i][g]).append(',')
+					.append(playerTurns[i][g]).append(',');
+			appendPath(line, paths[i], offsets[i], pathLengths[i][g]);
+			offsets[i] += pathLengths[i][g];
+		}
+		putAscii(line.append('\n'));
+	}
+
+	// helper method to decode an encoded path as squares separated by spaces
+	private static void appendPath(StringBuilder sb, byte[] bytes, int offset, int length) {
+		int square = 0;
+		int end = offset + length;
+		while (offset < end) {
+			int zigzag = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = bytes[offset++];
+				zigzag |= (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			square += (zigzag >>> 1) ^ -(zigzag & 1);
+			if (sb.length() > 0 && sb.charAt(sb.length() - 1) != ',')
+				sb.append(' ');
+			sb.append(square);
+		}
+	}
+
+	// helper method to write ASCII text through the buffer
+	private void putAscii(CharSequence text) throws IOException {
+		for (int i = 0; i < text.length(); i++) {
+			ensure(1);
+			buffer.put((byte) text.charAt(i));
+		}
+	}
+
+	// helper method to make room for the given number of bytes in the buffer
+	private void ensure(int bytes) throws IOException {
+		if (buffer.remaining() < bytes)
+			flush();
+	}
+
+	// helper method to write the buffer to the file
+	private void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Returns the number of games recorded so far.
+	 *
+	 * @return number of games
+	 */
+	public long size() {
+		return games;
+	}
+
+	/**
+	 * Writes the last block and closes the file.
+	 *
+	 * @throws IOException if the file cannot be written
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			if (n > 0)
+				writeBlock();
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Converts a file in the binary format to CSV, a block at a time.
+	 *
+	 * @param binary file to read
+	 * @param csv    file to write
+	 * @throws IOException if either file cannot be used, or the binary file is
+	 *                     not an export
+	 */
+	public static void toCsv(Path binary, Path csv) throws IOException {
+		try (FileChannel in = FileChannel.open(binary, StandardOpenOption.READ);
+				GameExporter out = new GameExporter(csv, Format.CSV)) {
+			ByteBuffer header = read(in, HEADER_BYTES);
+			if (header.getInt() != MAGIC || header.getInt() != VERSION)
+				throw new IOException("Not a game export: " + binary);
+			if (header.getInt() != out.players)
+				throw new IOException("Export has a different number of players");
+
+			while (in.position() < in.size()) {
+				int games = read(in, 4).getInt();
+				if (games <= 0 || games > GAMES_PER_BLOCK)
+					throw new IOException("Bad block of " + games + " games");
+				out.readBlock(in, games);
+				for (int g = 0; g < games; g++) {
+					out.writeCsv(g);
+				}
+			}
+		}
+	}
+
+	// helper method to read the columns of a block of the binary format into the
+	// columns of this exporter
+	private void readBlock(FileChannel in, int games) throws IOException {
+		ByteBuffer b = read(in, games * (4 + 8 + 1 + 4));
+		for (int g = 0; g < games; g++) {
+			boardIds[g] = b.getInt();
+		}
+		for (int g = 0; g < games; g++) {
+			seeds[g] = b.getLong();
+		}
+		b.get(winners, 0, games);
+		for (int g = 0; g < games; g++) {
+			turns[g] = b.getInt();
+		}
+
+		for (int i = 0; i < players; i++) {
+			b = read(in, games * 16);
+			int length = 0;
+			for (int[] column : new int[][] { tokens[i], spins[i], playerTurns[i], pathLengths[i] }) {
+				for (int g = 0; g < games; g++) {
+					column[g] = b.getInt();
+				}
+			}
+			for (int g = 0; g < games; g++) {
+				length += pathLengths[i][g];
+			}
+			if (paths[i].length < length)
+				paths[i] = new byte[length];
+			read(in, length).get(paths[i], 0, length);
+		}
+	}
+
+	// helper method to read exactly the given number of bytes
+	private static ByteBuffer read(FileChannel in, int bytes) throws IOException {
+		ByteBuffer b = ByteBuffer.allocate(bytes);
+		while (b.hasRemaining()) {
+			if (in.read(b) < 0)
+				throw new IOException("Export ends in the middle of a block");
+		}
+		return b.flip();
+	}
+
+	/**
+	 * Simulates games and exports their results. Accepts the number of games,
+	 * the file to write, the format ("binary" or "csv"), and whether every game
+	 * gets a new board ("new") or all games share one board ("same"). A binary
+	 * file can be converted to CSV by passing "convert", the binary file, and the
+	 * CSV file instead.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length > 0 && args[0].equals("convert")) {
+			toCsv(Paths.get(args[1]), Paths.get(args[2]));
+			return;
+		}
+		long games = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+		Path path = Paths.get(args.length > 1 ? args[1] : "games.bin");
+		Format format = args.length > 2 && args[2].equals("csv") ? Format.CSV : Format.BINARY;
+		boolean newBoards = args.length > 3 && args[3].equals("new");
+
+		long master = new SplittableRandom().nextLong();
+		RandomSource boards = RandomSource.seeded(master);
+		BoardModel board = new BoardModel(boards);
+		GameEngine engine = new GameEngine();
+
+		long start = System.nanoTime();
+		try (GameExporter exporter = new GameExporter(path, format)) {
+			for (long i = 0; i < games; i++) {
+				if (newBoards)
+					board = new BoardModel(boards);
+				long seed = master + i;
+				engine.setRandomSource(RandomSource.seeded(seed));
+				exporter.record(engine.play(board), seed, newBoards ? (int) i : 0);
+			}
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("Exported %d games to %s in %.2f s: %.0f games/s, %d bytes%n", games, path, seconds,
+				games / seconds, Files.size(path));
+	}
+}
@@ -19,10 +19,24 @@ import javax.swing.JMenu;
 import javax.swing.JOptionPane;
 import javax.swing.JTextArea;
 import javax.swing.JButton;
+import javax.swing.JComboBox;
 import javax.swing.JDialog;
+import javax.swing.JList;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
 
 import java.awt.event.ActionListener;
 import java.awt.event.ActionEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Represents the main window that houses all aspects of the game.
@@ -35,17 +49,31 @@ public class GameGUI extends JFrame {
 	private JPanel contentPane;
 	private GameDirector game;
 	private GameDirector mostRecentGame;
+	private Path leaderboardFile;
+	private final ExecutorService hintSolver = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "GameGUI hint solver");
+		t.setDaemon(true);
+		return t;
+	});
+	private BoardModel hintBoard;
+	private Future<OptimalPolicy> hints;
+	private BoardCanvas canvas;
+	private SimulationWorker simulation;
 	private JLabel playerRedLbl, playerBlueLbl, playerYellowLbl, playerGreenLbl;
 	private boolean gameSimulating;
 
 	/**
-	 * Launchs the application.
+	 * Launchs the application. Accepts an optional file the turn log is also
+	 * written to, and an optional file the leaderboard is kept in.
 	 */
 	public static void main(String[] args) {
 		EventQueue.invokeLater(new Runnable() {
 			public void run() {
 				try {
-					frame = new GameGUI();
+					TurnLogFile logFile = args.length > 0 ? new TurnLogFile(Paths.get(args[0])) : null;
+					frame = new GameGUI(logFile);
+					if (args.length > 1)
+						frame.keepLeaderboard(Paths.get(args[1]));
 					frame.setVisible(true);
 				} catch (Exception e) {
 					e.printStackTrace();
@@ -58,8 +86,17 @@ public class GameGUI extends JFrame {
 	 * Creates the frame.
 	 */
 	public GameGUI() {
+		this(null);
+	}
+
+	/**
+	 * Creates the frame, writing the turn log to the given file as well.
+	 * 
+	 * @param logFile file the turn log is written to, or null
+	 */
+	public GameGUI(TurnLogFile logFile) {
 		game = new GameDirector(700);
-		BoardCanvas canvas = new BoardCanvas();
+		canvas = new BoardCanvas();
 		gameSimulating = false;
 
 		initMainWindow();
@@ -118,13 +155,23 @@ public class GameGUI extends JFrame {
 
 		JButton btnRecentStats = createStatsBtn();
 		controlPanel.add(btnRecentStats);
+
+		JComboBox<String> speedBox = createSpeedBox();
+		controlPanel.add(speedBox);
 		
-		JTextArea turnSummary = new JTextArea();
-		turnSummary.setBackground(Color.LIGHT_GRAY);
+		TurnLog turnSummary = new TurnLog(TurnLog.DEFAULT_CAPACITY);
+		turnSummary.setFile(logFile);
 		
 		JScrollPane scrollSummary = createScrollText(turnSummary);
 		controlPanel.add(scrollSummary);
 
+		addWindowListener(new WindowAdapter() {
+			public void windowClosing(WindowEvent e) {
+				closeLogFile(turnSummary);
+				saveLeaderboard();
+			}
+		});
+
 		// spin button
 		btnSpin.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent e) {
@@ -135,12 +182,13 @@ public class GameGUI extends JFrame {
 					lblRemainingSpins.setText("Remaining Spins: " + (2 - game.getCurrentPlayer().spinTimes));
 
 					turnSummary.append(game.fb.toString());
+					appendSpinHint(turnSummary);
 
 					btnMove.setEnabled(true);
 					if (game.getCurrentPlayer().spinTimes == 2) {
 						btnSpin.setEnabled(false);
 					}
-					repaint();
+					canvas.refresh();
 				}
 			}
 		});
@@ -158,9 +206,18 @@ public class GameGUI extends JFrame {
 		// new game button
 		btnNewGame.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent e) {
-				game.resetGame();
+				if (simulation != null) {
+					simulation.cancel(false);
+					simulation = null;
+					gameSimulating = false;
+					btnSimulateGame.setText("Game Simulation");
+				}
+				synchronized (game) {
+					game.resetGame();
+				}
+				cancelHints();
 				lblCurrentPlayer.setText(game.getCurrentPlayer().toString() + "'s turn, press spin to start.");
-				turnSummary.setText("");
+				turnSummary.clear();
 				lblSpinResult.setText("Press Spin");
 				lblRemainingSpins.setText("Remaining Spins: " + (2 - game.getCurrentPlayer().spinTimes));
 				resetPlayerLbls(game.getCurrentPlayer());
@@ -169,7 +226,7 @@ public class GameGUI extends JFrame {
 				btnSpin.setEnabled(true);
 				btnMove.setEnabled(false);
 				btnRecentStats.setVisible(false);
-				repaint();
+				canvas.refresh();
 			}
 		});
 		
@@ -183,20 +240,76 @@ public class GameGUI extends JFrame {
 		
 		btnSimulateGame.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent e) {
-				gameSimulating = true;
-				
-				while (game.isActive) {
-					btnSpin.doClick();
-					btnMove.doClick();
+				if (simulation != null) {
+					simulation.cancel(false);
+				} else if (game.isActive) {
+					simulateGame(infoPanel, controlPanel, lblCurrentPlayer, lblRemainingSpins, lblSpinResult, btnSpin,
+							btnMove, btnSimulateGame, btnRecentStats, speedBox, turnSummary);
 				}
-				
-				gameSimulating = false;
+			}
+		});
+
+		speedBox.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				if (simulation != null)
+					simulation.setSpeed(speedBox.getSelectedIndex());
 			}
 		});
 		
 		contentPane.add(canvas);
 	}
 	
+	// helper method to get the best choices for the current board, used to give
+	// hints. The board is only solved once a hint is first asked for, on a
+	// background thread, and hints are left out until it is solved.
+	private OptimalPolicy getOptimalPolicy() {
+		BoardModel board = game.getBoardModel();
+		if (board != hintBoard) {
+			cancelHints();
+			hintBoard = board;
+			hints = hintSolver.submit(() -> new OptimalPolicy(board));
+		}
+		if (!hints.isDone() || hints.isCancelled())
+			return null;
+		try {
+			return hints.get();
+		} catch (InterruptedException | ExecutionException e) {
+			// the board could not be solved, so there are no hints
+			return null;
+		}
+	}
+
+	// helper method to stop solving a board that is no longer played
+	private void cancelHints() {
+		if (hints != null)
+			hints.cancel(true);
+		hints = null;
+		hintBoard = null;
+	}
+
+	// helper method to log whether the optimal policy would spin again
+	private void appendSpinHint(TurnLog turnSummary) {
+		Player p = game.getCurrentPlayer();
+		OptimalPolicy policy = getOptimalPolicy();
+		if (policy == null || p.spinTimes != 1)
+			return;
+		if (policy.respin(p.currentPosition, p.tokens, p.latestSpin))
+			turnSummary.append("Hint: spin again for a better chance at more tokens.\n");
+		else
+			turnSummary.append("Hint: keep this spin.\n");
+	}
+
+	// helper method to describe whether the optimal policy would take the ladder
+	private String ladderHint() {
+		Player p = game.getCurrentPlayer();
+		OptimalPolicy policy = getOptimalPolicy();
+		if (policy == null)
+			return "";
+		if (policy.takeLadder(p.currentPosition, p.tokens))
+			return "\nHint: taking it should leave you with more tokens at the end of the game.";
+		return "\nHint: staying should leave you with more tokens at the end of the game.";
+	}
+
 	private void showStatsWindow(JFrame frame) {
 		ResultsWindow r = new ResultsWindow(mostRecentGame);
 		
@@ -276,26 +389,92 @@ public class GameGUI extends JFrame {
 		@Override
 		protected void paintComponent(Graphics g) { // called back via repaint()
 			super.paintComponent(g);
-			game.getGameBoard().paintAll(g);
-			repaint();
+			synchronized (game) {
+				game.getGameBoard().paintAll(g);
+			}
 		}
+
+		// repaints only the squares that changed since the last frame
+		void refresh() {
+			synchronized (game) {
+				repaint(game.getGameBoard().getDirtyRegion());
+			}
+		}
+	}
+
+	// Plays the rest of the game on a SimulationWorker. The log and the board are
+	// updated once per frame, and the window stays usable while it runs.
+	private void simulateGame(JPanel infoPanel, JPanel controlPanel, JLabel lblCurrentPlayer,
+			JLabel lblRemainingSpins, JLabel lblSpinResult, JButton btnSpin, JButton btnMove,
+			JButton btnSimulateGame, JButton btnRecentStats, JComboBox<String> speedBox, TurnLog turnSummary) {
+		gameSimulating = true;
+		btnSpin.setEnabled(false);
+		btnMove.setEnabled(false);
+		btnSimulateGame.setText("Stop Simulation");
+
+		simulation = new SimulationWorker(game, speedBox.getSelectedIndex()) {
+			@Override
+			protected void process(List<String> logs) {
+				if (isCancelled())
+					return;
+				for (String log : logs) {
+					turnSummary.append(log);
+				}
+				synchronized (game) {
+					Player current = game.getCurrentPlayer();
+					lblSpinResult.setText("" + current.latestSpin);
+					for (Player p : game.getGameState().getPlayers()) {
+						updatePlayerLblText(p);
+					}
+					updatePlayerLblText(current);
+					updatePlayerLblColor(current);
+					lblCurrentPlayer.setText(current.toString() + "'s turn, press spin to start.");
+				}
+				canvas.refresh();
+			}
+
+			@Override
+			protected void done() {
+				if (simulation != this)
+					return; // a new game was started and may already be simulating
+				simulation = null;
+				gameSimulating = false;
+				btnSimulateGame.setText("Game Simulation");
+
+				synchronized (game) {
+					if (isCancelled() || game.isActive) {
+						btnSpin.setEnabled(game.isActive);
+						lblRemainingSpins.setText("Remaining Spins: " + (2 - game.getCurrentPlayer().spinTimes));
+					} else {
+						winnerColorDisplay(infoPanel, controlPanel);
+						updatePlayerLblColor(game.getWinner());
+						mostRecentGame = game;
+						btnRecentStats.setVisible(true);
+						btnSpin.setEnabled(true);
+					}
+				}
+				canvas.refresh();
+			}
+		};
+		simulation.execute();
 	}
 	
 	private void moveButtonLogic(JPanel infoPanel, JPanel controlPanel, JLabel lblCurrentPlayer,
 			JLabel lblRemainingSpins, JButton btnSpin, JButton btnMove, JButton btnRecentStats,
-			JTextArea turnSummary) {
+			TurnLog turnSummary) {
 		game.movePlayer();
 		
 		updatePlayerLblText(game.getCurrentPlayer());
 		turnSummary.append(game.fb.toString());
-		repaint();
+		canvas.refresh();
 
 		if (game.isLadder()) {
 			if (game.canTakeLadder()) {
 				if (gameSimulating) {
 					game.canTakeLadder();
 				}else {
-					String m = "Your tokens meet the ladder requirements, would you like to take the ladder?";
+					String m = "Your tokens meet the ladder requirements, would you like to take the ladder?"
+							+ ladderHint();
 					int response = JOptionPane.showConfirmDialog(contentPane, m, "It's Ladder Time!",
 							JOptionPane.YES_NO_OPTION);
 					if (response == JOptionPane.YES_OPTION) {
@@ -320,7 +499,7 @@ public class GameGUI extends JFrame {
 		}
 		
 		updatePlayerLblText(game.getCurrentPlayer());
-		repaint();
+		canvas.refresh();
 
 		game.endTurn();
 		turnSummary.append("\n");
@@ -338,19 +517,68 @@ public class GameGUI extends JFrame {
 			updatePlayerLblColor(game.getCurrentPlayer());
 		}
 		
-		repaint();
+		canvas.refresh();
 
 		btnSpin.setEnabled(true);
 		btnMove.setEnabled(false);
 	}
 	
-	private JScrollPane createScrollText(JTextArea turnSummary) {
-		JScrollPane scrollSummary = new JScrollPane(turnSummary);
+	// Shows the turn log in a JList, which only draws the lines that are visible,
+	// and keeps the newest line in view.
+	private JScrollPane createScrollText(TurnLog turnSummary) {
+		JList<String> summaryList = new JList<>(turnSummary);
+		summaryList.setBackground(Color.LIGHT_GRAY);
+		summaryList.setPrototypeCellValue(" did not have enough tokens to take the ladder. ");
+		turnSummary.addListDataListener(new ListDataListener() {
+			public void intervalAdded(ListDataEvent e) {
+				summaryList.ensureIndexIsVisible(e.getIndex1());
+			}
+
+			public void intervalRemoved(ListDataEvent e) {
+			}
+
+			public void contentsChanged(ListDataEvent e) {
+			}
+		});
+
+		JScrollPane scrollSummary = new JScrollPane(summaryList);
 		scrollSummary.setBackground(Color.LIGHT_GRAY);
 		scrollSummary.setBounds(358, 54, 376, 145);
 		return scrollSummary;
 	}
 
+	/**
+	 * Records every finished game on the leaderboard in the given file, which is
+	 * loaded now and saved when the window is closed.
+	 * 
+	 * @param file leaderboard file
+	 * @throws IOException if the leaderboard cannot be loaded
+	 */
+	public void keepLeaderboard(Path file) throws IOException {
+		leaderboardFile = file;
+		game.setLeaderboard(Leaderboard.load(file));
+	}
+
+	private void saveLeaderboard() {
+		if (leaderboardFile != null) {
+			try {
+				game.getLeaderboard().save(leaderboardFile);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private void closeLogFile(TurnLog turnSummary) {
+		if (turnSummary.getFile() != null) {
+			try {
+				turnSummary.getFile().close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
 	private JButton createStatsBtn() {
 		JButton btnRecentStats = new JButton("See Latest Games Stats");
 		btnRecentStats.setFont(new Font("SansSerif", Font.PLAIN, 17));
@@ -359,6 +587,14 @@ public class GameGUI extends JFrame {
 		return btnRecentStats;
 	}
 
+	private JComboBox<String> createSpeedBox() {
+		JComboBox<String> speedBox = new JComboBox<>(SimulationWorker.SPEEDS);
+		speedBox.setFont(new Font("SansSerif", Font.PLAIN, 15));
+		speedBox.setBounds(10, 95, 185, 36);
+		speedBox.setSelectedIndex(SimulationWorker.SPEEDS.length - 1);
+		return speedBox;
+	}
+
 	private JButton createSimBtn() {
 		JButton btnSimulateGame = new JButton("Game Simulation");
 		btnSimulateGame.setFont(new Font("SansSerif", Font.PLAIN, 17));
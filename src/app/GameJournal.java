@@ -0,0 +1,199 @@
+package app;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Records everything that happens in a series of games to a binary journal
+ * file, so any game can be replayed turn by turn with a {@link GameReplayer}.
+ * Events are put into fixed size records in a block of memory, and full blocks
+ * are handed to a background thread that writes them to the file. The thread
+ * playing the games only copies a few numbers per event and waits for the disk
+ * only if it gets a whole queue of blocks ahead of the writer.
+ * <p>
+ * The file starts with a 16 byte header: the magic number, the format version,
+ * the size of a record, and a reserved int. Every record is 16 bytes: the event
+ * type and the number of the player as bytes, two unused bytes, and three ints
+ * a, b, and c whose meaning depends on the type:
+ * <ul>
+ * <li>{@link #GAME}: the player byte holds the number of players, a and b the
+ * high and low half of the seed, and c the board id.</li>
+ * <li>{@link #SPIN}: a is the spin.</li>
+ * <li>{@link #MOVE}, {@link #CHUTE}, {@link #LADDER}: a is the square the
+ * player left, b the square they reached, and c their tokens afterwards.</li>
+ * <li>{@link #PASS}: the player did not climb the ladder on square a.</li>
+ * <li>{@link #TURN}: the player ended their turn; a is the number of turns
+ * played in the game so far.</li>
+ * </ul>
+ * Players are numbered by the ordinal of their PlayerColor.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class GameJournal implements Closeable {
+	static final int MAGIC = 0x434C4A31; // "CLJ1"
+	static final int VERSION = 1;
+	static final int HEADER_BYTES = 16;
+	static final int RECORD_BYTES = 16;
+
+	/** Start of a game. */
+	public static final int GAME = 1;
+	/** Spin of the spinner. */
+	public static final int SPIN = 2;
+	/** Move by the latest spin. */
+	public static final int MOVE = 3;
+	/** Slide down a chute. */
+	public static final int CHUTE = 4;
+	/** Climb up a ladder. */
+	public static final int LADDER = 5;
+	/** Ladder that was not climbed. */
+	public static final int PASS = 6;
+	/** End of a turn. */
+	public static final int TURN = 7;
+
+	private static final int BLOCK_SIZE = 1 << 16;
+	private static final int BLOCKS = 8;
+	private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+	private final FileChannel channel;
+	private final BlockingQueue<ByteBuffer> full = new ArrayBlockingQueue<>(BLOCKS + 1);
+	private final BlockingQueue<ByteBuffer> empty = new ArrayBlockingQueue<>(BLOCKS);
+	private final Thread writer;
+	private volatile IOException failure;
+	private ByteBuffer block;
+	private long records;
+
+	/**
+	 * Creates a new journal, replacing any file that is already there, and starts
+	 * its writer thread.
+	 *
+	 * @param path file to write
+	 * @throws IOException if the file cannot be created
+	 */
+	public GameJournal(Path path) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+
+		for (int i = 0; i < BLOCKS; i++) {
+			empty.add(ByteBuffer.allocateDirect(BLOCK_SIZE));
+		}
+		block = empty.remove();
+		block.putInt(MAGIC);
+		block.putInt(VERSION);
+		block.putInt(RECORD_BYTES);
+		block.putInt(0);
+
+		writer = new Thread(this::drain, "GameJournal writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Records the start of a game. Must be called after the game state has been
+	 * reset and before the first turn.
+	 *
+	 * @param seed    seed the game was played with
+	 * @param boardId number of the board the game was played on
+	 * @param players number of players
+	 */
+	public void startGame(long seed, int boardId, int players) {
+		put(GAME, players, (int) (seed >>> 32), (int) seed, boardId);
+	}
+
+	/**
+	 * Records an event of a player.
+	 *
+	 * @param type   event type
+	 * @param player player the event belongs to
+	 * @param a      first value of the event
+	 * @param b      second value of the event
+	 * @param c      third value of the event
+	 */
+	public void record(int type, Player player, int a, int b, int c) {
+		put(type, player.playerColor.ordinal(), a, b, c);
+	}
+
+	// helper method to put one record into the current block
+	private void put(int type, int player, int a, int b, int c) {
+		if (block.remaining() < RECORD_BYTES)
+			handOff();
+		block.put((byte) type);
+		block.put((byte) player);
+		block.putShort((short) 0);
+		block.putInt(a);
+		block.putInt(b);
+		block.putInt(c);
+		records++;
+	}
+
+	// helper method to pass the current block to the writer thread and take an
+	// empty one, waiting if the writer has fallen behind
+	private void handOff() {
+		try {
+			full.put(block);
+			block = empty.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while writing the journal", e);
+		}
+	}
+
+	// runs on the writer thread: writes full blocks to the file until the end
+	// marker arrives. After a failed write, blocks are still taken and returned
+	// so the games are never stuck waiting for an empty one.
+	private void drain() {
+		try {
+			ByteBuffer b;
+			while ((b = full.take()) != END) {
+				b.flip();
+				try {
+					while (failure == null && b.hasRemaining()) {
+						channel.write(b);
+					}
+				} catch (IOException e) {
+					failure = e;
+				}
+				b.clear();
+				empty.put(b);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Returns the number of records written so far, not counting the header.
+	 *
+	 * @return number of records
+	 */
+	public long size() {
+		return records;
+	}
+
+	/**
+	 * Writes any buffered records, stops the writer thread, and closes the file.
+	 *
+	 * @throws IOException if any record could not be written
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			full.put(block);
+			full.put(END);
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while closing the journal", e);
+		} finally {
+			channel.close();
+		}
+		if (failure != null)
+			throw failure;
+	}
+}
@@ -0,0 +1,285 @@
+package app;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Replays the games recorded in a journal written by a {@link GameJournal}. The
+ * file is memory-mapped and indexed by the record each game starts at, so the
+ * state of any game after any turn is rebuilt by applying the records of that
+ * game from its start. Records hold the squares and tokens players ended up
+ * with, so the board is not needed and no rules are played again.
+ * <p>
+ * The replayed state is kept in one Player per PlayerColor, which is reused for
+ * every game and every seek.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class GameReplayer implements Closeable {
+	private final FileChannel channel;
+	private final MappedByteBuffer[] segments;
+	private final int recordsPerSegment;
+	private final long records;
+
+	private long[] gameStart; // gameStart[g] = number of the GAME record of game g
+	private int games;
+
+	private final Player[] roster;
+	private int numPlayers;
+	private Player currentPlayer;
+	private int totalTurns;
+	private long seed;
+	private int boardId;
+
+	/**
+	 * Opens a journal and indexes its games.
+	 *
+	 * @param path journal file
+	 * @throws IOException if the file cannot be read or is not a journal
+	 */
+	public GameReplayer(Path path) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+
+		ByteBuffer header = ByteBuffer.allocate(GameJournal.HEADER_BYTES);
+		int read = channel.read(header, 0);
+		header.flip();
+		if (read < GameJournal.HEADER_BYTES || header.getInt() != GameJournal.MAGIC
+				|| header.getInt() != GameJournal.VERSION || header.getInt() != GameJournal.RECORD_BYTES) {
+			channel.close();
+			throw new IOException(path + " is not a game journal");
+		}
+		records = (channel.size() - GameJournal.HEADER_BYTES) / GameJournal.RECORD_BYTES;
+
+		// maps the records in pieces since a single mapping is limited to 2 GB
+		recordsPerSegment = Integer.MAX_VALUE / GameJournal.RECORD_BYTES;
+		int numSegments = (int) ((records + recordsPerSegment - 1) / recordsPerSegment);
+		segments = new MappedByteBuffer[numSegments];
+		for (int s = 0; s < numSegments; s++) {
+			long first = (long) s * recordsPerSegment;
+			long size = Math.min(recordsPerSegment, records - first);
+			segments[s] = channel.map(FileChannel.MapMode.READ_ONLY,
+					GameJournal.HEADER_BYTES + first * GameJournal.RECORD_BYTES, size * GameJournal.RECORD_BYTES);
+		}
+
+		PlayerColor[] colors = PlayerColor.values();
+		roster = new Player[colors.length];
+		for (int i = 0; i < colors.length; i++) {
+			roster[i] = new Player(colors[i]);
+		}
+		index();
+	}
+
+	// helper method to find the record every game starts at
+	private void index() {
+		gameStart = new long[64];
+		for (long r = 0; r < records; r++) {
+			if (type(r) == GameJournal.GAME) {
+				if (games == gameStart.length)
+					gameStart = Arrays.copyOf(gameStart, 2 * games);
+				gameStart[games++] = r;
+			}
+		}
+	}
+
+	// helper methods to read the fields of record r
+	private ByteBuffer segment(long r) {
+		return segments[(int) (r / recordsPerSegment)];
+	}
+
+	private int offset(long r) {
+		return (int) (r % recordsPerSegment) * GameJournal.RECORD_BYTES;
+	}
+
+	private int type(long r) {
+		return segment(r).get(offset(r));
+	}
+
+	/**
+	 * Returns the number of records in the journal.
+	 *
+	 * @return number of records
+	 */
+	public long size() {
+		return records;
+	}
+
+	/**
+	 * Returns the number of games in the journal.
+	 *
+	 * @return number of games
+	 */
+	public int games() {
+		return games;
+	}
+
+	/**
+	 * Rebuilds the state of a game after the given number of turns. Seeking past
+	 * the last turn of the game gives its final state.
+	 *
+	 * @param game number of the game, starting at 0
+	 * @param turn number of turns to replay, or 0 for the start of the game
+	 * @return number of turns replayed
+	 */
+	public int seek(int game, int turn) {
+		if (game < 0 || game >= games)
+			throw new IllegalArgumentException("No game " + game + " in journal");
+		long end = game + 1 < games ? gameStart[game + 1] : records;
+
+		apply(gameStart[game]);
+		for (long r = gameStart[game] + 1; r < end && turn > 0; r++) {
+			apply(r);
+			if (type(r) == GameJournal.TURN && totalTurns == turn)
+				break;
+		}
+		return totalTurns;
+	}
+
+	/**
+	 * Replays every record of the journal from start to end.
+	 *
+	 * @return number of records replayed
+	 */
+	public long replayAll() {
+		for (long r = 0; r < records; r++) {
+			apply(r);
+		}
+		return records;
+	}
+
+	// helper method to apply record r to the replayed state
+	private void apply(long r) {
+		ByteBuffer buffer = segment(r);
+		int at = offset(r);
+		int type = buffer.get(at);
+		int player = buffer.get(at + 1);
+		int a = buffer.getInt(at + 4);
+		int b = buffer.getInt(at + 8);
+		int c = buffer.getInt(at + 12);
+
+		if (type == GameJournal.GAME) {
+			numPlayers = player;
+			seed = ((long) a << 32) | (b & 0xFFFFFFFFL);
+			boardId = c;
+			totalTurns = 0;
+			for (Player p : roster) {
+				p.resetPlayer();
+			}
+			currentPlayer = roster[0];
+			return;
+		}
+
+		Player p = roster[player];
+		switch (type) {
+		case GameJournal.SPIN:
+			currentPlayer = p;
+			p.latestSpin = a;
+			p.nextPosition = p.currentPosition + a;
+			p.spinTimes++;
+			p.totalSpins++;
+			break;
+		case GameJournal.MOVE:
+			p.spinTimes = 0;
+			p.turns++;
+			totalTurns++;
+			p.currentPosition = b;
+			p.tokens = c;
+			break;
+		case GameJournal.CHUTE:
+		case GameJournal.LADDER:
+			p.currentPosition = b;
+			p.tokens = c;
+			break;
+		case GameJournal.TURN:
+			// the next player in turn order goes next unless this turn ended the game
+			if (r + 1 < records && type(r + 1) != GameJournal.GAME)
+				currentPlayer = roster[(player + 1) % numPlayers];
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Returns the players of the replayed game, in turn order.
+	 *
+	 * @return players
+	 */
+	public Player[] getPlayers() {
+		return Arrays.copyOf(roster, numPlayers);
+	}
+
+	/**
+	 * Returns the player whose turn it is in the replayed game.
+	 *
+	 * @return current player
+	 */
+	public Player getCurrentPlayer() {
+		return currentPlayer;
+	}
+
+	/**
+	 * Returns the number of turns replayed in the current game.
+	 *
+	 * @return number of turns
+	 */
+	public int getTotalTurns() {
+		return totalTurns;
+	}
+
+	/**
+	 * Returns the seed the replayed game was played with.
+	 *
+	 * @return seed
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Returns the number of the board the replayed game was played on.
+	 *
+	 * @return board id
+	 */
+	public int getBoardId() {
+		return boardId;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Replays a journal and prints how fast its records were applied. Accepts the
+	 * journal file, and optionally a game and a turn whose state is printed.
+	 */
+	public static void main(String[] args) throws IOException {
+		try (GameReplayer replayer = new GameReplayer(Paths.get(args.length > 0 ? args[0] : "games.clj"))) {
+			long start = System.nanoTime();
+			long events = replayer.replayAll();
+			double seconds = (System.nanoTime() - start) / 1e9;
+			System.out.printf("Replayed %d events of %d games in %.3f s: %.0f events/s%n", events, replayer.games(),
+					seconds, events / seconds);
+
+			if (args.length > 1) {
+				int game = Integer.parseInt(args[1]);
+				int turn = args.length > 2 ? Integer.parseInt(args[2]) : Integer.MAX_VALUE;
+				int turns = replayer.seek(game, turn);
+				System.out.printf("Game %d (seed %d, board %d) after %d turns, %s to play:%n", game,
+						replayer.getSeed(), replayer.getBoardId(), turns, replayer.getCurrentPlayer());
+				for (Player p : replayer.getPlayers()) {
+					System.out.printf("  %s on square %d with %d tokens after %d turns%n", p, p.currentPosition,
+							p.tokens, p.turns);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package app;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hosts any number of games at once for clients on the local machine. Every
+ * client that connects to the server socket gets its own {@link GameSession},
+ * which speaks a line-based protocol and runs on its own thread, and the open
+ * sessions are kept by a {@link SessionManager}.
+ * <p>
+ * Sessions spend almost all their time waiting for their client, so they run on
+ * virtual threads when the JVM has them (Java 21 and later), which lets one
+ * server hold tens of thousands of sessions. On older JVMs they run on a cached
+ * pool of daemon threads instead. The virtual thread executor is looked up by
+ * reflection so the server still compiles for older JVMs.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class GameServer implements Closeable {
+	/** Port the server listens on by default. */
+	public static final int DEFAULT_PORT = 7717;
+
+	private final ServerSocket server;
+	private final SessionManager sessions;
+	private final ExecutorService executor;
+	private final Thread acceptor;
+
+	/**
+	 * Opens a server socket on the loopback address. The server only accepts
+	 * clients once {@link #start()} is called.
+	 *
+	 * @param port     port to listen on, or 0 for any free port
+	 * @param sessions manager of the sessions
+	 * @throws IOException if the socket cannot be opened
+	 */
+	public GameServer(int port, SessionManager sessions) throws IOException {
+		this.server = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+		this.sessions = sessions;
+		this.executor = newSessionExecutor();
+		this.acceptor = new Thread(this::acceptClients, "GameServer acceptor");
+	}
+
+	/**
+	 * Returns an executor that runs every task on a new virtual thread if the JVM
+	 * supports them, or on a cached pool of daemon threads if not.
+	 *
+	 * @return executor for sessions
+	 */
+	public static ExecutorService newSessionExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			ThreadFactory daemons = r -> {
+				Thread t = new Thread(r, "GameSession");
+				t.setDaemon(true);
+				return t;
+			};
+			return Executors.newCachedThreadPool(daemons);
+		}
+	}
+
+	/**
+	 * Starts accepting clients on a background thread.
+	 */
+	public void start() {
+		acceptor.start();
+	}
+
+	/**
+	 * Returns the port the server listens on.
+	 *
+	 * @return port
+	 */
+	public int getPort() {
+		return server.getLocalPort();
+	}
+
+	/**
+	 * Returns the manager of the open sessions.
+	 *
+	 * @return session manager
+	 */
+	public SessionManager getSessions() {
+		return sessions;
+	}
+
+	// runs on the acceptor thread: hands every new client to a session until the
+	// server socket is closed
+	private void acceptClients() {
+		while (!server.isClosed()) {
+			Socket socket;
+			try {
+				socket = server.accept();
+				socket.setTcpNoDelay(true);
+			} catch (IOException e) {
+				continue; // closed, or a client that went away while connecting
+			}
+
+			GameSession session = sessions.open(socket);
+			if (session == null) {
+				refuse(socket);
+			} else {
+				executor.execute(session);
+			}
+		}
+	}
+
+	// helper method to tell a client the server is full and hang up
+	private void refuse(Socket socket) {
+		try (Socket s = socket; OutputStream out = s.getOutputStream()) {
+			out.write("ERR server full\n".getBytes(StandardCharsets.US_ASCII));
+		} catch (IOException e) {
+			// the client is turned away either way
+		}
+	}
+
+	/**
+	 * Stops accepting clients and closes every session.
+	 */
+	@Override
+	public void close() throws IOException {
+		server.close();
+		sessions.close();
+		executor.shutdown();
+		try {
+			acceptor.join(1000);
+			executor.awaitTermination(1, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Runs a server and prints the number of sessions and commands per second
+	 * every few seconds. Accepts the port, the idle timeout in seconds, and the
+	 * most sessions open at once.
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		long idleMillis = args.length > 1 ? Long.parseLong(args[1]) * 1000 : SessionManager.DEFAULT_IDLE_MILLIS;
+		int maxSessions = args.length > 2 ? Integer.parseInt(args[2]) : SessionManager.DEFAULT_MAX_SESSIONS;
+
+		GameServer server = new GameServer(port, new SessionManager(idleMillis, maxSessions));
+		server.start();
+		System.out.println("Listening on port " + server.getPort());
+
+		long lastActions = 0;
+		long last = System.nanoTime();
+		while (true) {
+			Thread.sleep(5000);
+			long now = System.nanoTime();
+			long actions = server.sessions.actions();
+			System.out.printf("%d sessions, %.0f commands/s, %d evicted%n", server.sessions.size(),
+					(actions - lastActions) / ((now - last) / 1e9), server.sessions.evicted());
+			lastActions = actions;
+			last = now;
+		}
+	}
+}
@@ -0,0 +1,281 @@
+package app;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Plays games for one client of a {@link GameServer}. The client sends one
+ * command per line and gets one line back for each, driving the same spin,
+ * move, and ladder steps as the buttons of the GUI:
+ * <ul>
+ * <li><code>NEW [seed]</code> starts a game on a new board:
+ * <code>GAME seed color</code></li>
+ * <li><code>SPIN</code> spins for the current player, at most twice a turn:
+ * <code>SPUN color spin spinsLeft</code></li>
+ * <li><code>MOVE</code> moves by the latest spin and takes any chute. If the
+ * player can afford a ladder the answer is
+ * <code>LADDER color square tokens cost</code> and the next command must be
+ * <code>TAKE</code> or <code>STAY</code>. Otherwise, and after TAKE or STAY,
+ * the turn ends: <code>MOVED color square tokens NEXT color</code> or
+ * <code>MOVED color square tokens WINNER color tokens</code></li>
+ * <li><code>STATE</code> lists every player:
+ * <code>STATE current color square tokens ...</code></li>
+ * <li><code>PING</code> answers <code>PONG</code> and <code>QUIT</code> answers
+ * <code>BYE</code> and closes the connection</li>
+ * </ul>
+ * A command that cannot be played is answered with <code>ERR reason</code>.
+ * <p>
+ * A session holds one GameState, its players, and fixed size buffers, and lines
+ * longer than {@link #MAX_LINE} are refused, so a session takes the same memory
+ * however long it runs. Answers are only flushed once the client has sent
+ * nothing more, so a client that sends several commands at once gets the
+ * answers in one write.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class GameSession implements Runnable {
+	/** Longest command line accepted, in bytes. */
+	public static final int MAX_LINE = 256;
+	private static final int BUFFER_SIZE = 4096;
+
+	// what the session waits for next
+	private static final int NO_GAME = 0;
+	private static final int TURN = 1;
+	private static final int LADDER = 2;
+	private static final int OVER = 3;
+
+	private final long id;
+	private final Socket socket;
+	private final SessionManager manager;
+	private final GameState state = new GameState();
+	private final Player[] roster;
+	private final byte[] line = new byte[MAX_LINE];
+	private final StringBuilder reply = new StringBuilder(128);
+	private int phase = NO_GAME;
+	private volatile long lastActive;
+
+	/**
+	 * Initializes a session for a client that just connected.
+	 *
+	 * @param id      number of the session
+	 * @param socket  connection to the client
+	 * @param manager manager the session is registered with
+	 */
+	public GameSession(long id, Socket socket, SessionManager manager) {
+		this.id = id;
+		this.socket = socket;
+		this.manager = manager;
+		PlayerColor[] colors = PlayerColor.values();
+		roster = new Player[colors.length];
+		for (int i = 0; i < colors.length; i++) {
+			roster[i] = new Player(colors[i]);
+		}
+		lastActive = System.nanoTime();
+	}
+
+	/**
+	 * Returns the number of the session.
+	 *
+	 * @return session id
+	 */
+	public long getId() {
+		return id;
+	}
+
+	/**
+	 * Returns the value of System.nanoTime() when the client last sent a command.
+	 *
+	 * @return time of the last command
+	 */
+	public long getLastActive() {
+		return lastActive;
+	}
+
+	/**
+	 * Closes the connection, which ends the session on its own thread.
+	 */
+	public void close() {
+		try {
+			socket.close();
+		} catch (IOException e) {
+			// the session ends either way
+		}
+	}
+
+	@Override
+	public void run() {
+		try (Socket s = socket) {
+			InputStream in = new BufferedInputStream(s.getInputStream(), BUFFER_SIZE);
+			OutputStream out = new BufferedOutputStream(s.getOutputStream(), BUFFER_SIZE);
+			int length;
+			while ((length = readLine(in)) >= 0) {
+				lastActive = System.nanoTime();
+				reply.setLength(0);
+				boolean open = length > MAX_LINE ? error("line too long") : handle(length);
+				reply.append('\n');
+				for (int i = 0; i < reply.length(); i++) {
+					out.write(reply.charAt(i));
+				}
+				manager.countAction();
+				if (!open)
+					break;
+				if (in.available() == 0)
+					out.flush();
+			}
+			out.flush();
+		} catch (IOException e) {
+			// the client went away or the session was evicted
+		} finally {
+			manager.closed(this);
+		}
+	}
+
+	// helper method to read a line into the line buffer, returning its length,
+	// more than MAX_LINE if it was too long, or -1 at the end of the stream
+	private int readLine(InputStream in) throws IOException {
+		int length = 0;
+		int b;
+		while ((b = in.read()) >= 0) {
+			if (b == '\n')
+				return length > 0 && length <= MAX_LINE && line[length - 1] == '\r' ? length - 1 : length;
+			if (length < MAX_LINE)
+				line[length] = (byte) b;
+			if (length <= MAX_LINE)
+				length++;
+		}
+		return length > 0 ? length : -1;
+	}
+
+	// helper method to play one command, returning false if the session should
+	// end
+	private boolean handle(int length) {
+		String[] words = new String(line, 0, length, StandardCharsets.US_ASCII).trim().split("\\s+");
+		switch (words[0]) {
+		case "NEW":
+			return newGame(words);
+		case "SPIN":
+			return spin();
+		case "MOVE":
+			return move();
+		case "TAKE":
+		case "STAY":
+			return ladder(words[0].equals("TAKE"));
+		case "STATE":
+			return state();
+		case "PING":
+			reply.append("PONG");
+			return true;
+		case "QUIT":
+			reply.append("BYE");
+			return false;
+		default:
+			return error("unknown command");
+		}
+	}
+
+	// helper method to answer with an error, keeping the session open
+	private boolean error(String reason) {
+		reply.append("ERR ").append(reason);
+		return true;
+	}
+
+	private boolean newGame(String[] words) {
+		long seed;
+		try {
+			seed = words.length > 1 ? Long.parseLong(words[1]) : System.nanoTime() ^ (id << 32);
+		} catch (NumberFormatException e) {
+			return error("seed must be a number");
+		}
+		RandomSource random = RandomSource.seeded(seed);
+		for (Player p : roster) {
+			p.setRandomSource(random);
+		}
+		state.reset(new BoardModel(random), roster);
+		phase = TURN;
+		reply.append("GAME ").append(seed).append(' ').append(state.getCurrentPlayer().playerColor);
+		return true;
+	}
+
+	private boolean spin() {
+		if (phase != TURN)
+			return error(phaseError());
+		Player p = state.getCurrentPlayer();
+		if (p.spinTimes >= 2)
+			return error("no spins left");
+		state.spin();
+		reply.append("SPUN ").append(p.playerColor).append(' ').append(p.latestSpin).append(' ')
+				.append(2 - p.spinTimes);
+		return true;
+	}
+
+	private boolean move() {
+		if (phase != TURN)
+			return error(phaseError());
+		Player p = state.getCurrentPlayer();
+		if (p.spinTimes == 0)
+			return error("spin first");
+		state.move();
+		if (state.isLadder() && state.canTakeLadder()) {
+			phase = LADDER;
+			reply.append("LADDER ").append(p.playerColor).append(' ').append(p.currentPosition).append(' ')
+					.append(p.tokens).append(' ').append(state.getLadderCost());
+			return true;
+		}
+		state.takeChuteOrLadder();
+		endTurn(p);
+		return true;
+	}
+
+	private boolean ladder(boolean take) {
+		if (phase != LADDER)
+			return error("no ladder to choose");
+		Player p = state.getCurrentPlayer();
+		if (take)
+			state.takeChuteOrLadder();
+		phase = TURN;
+		endTurn(p);
+		return true;
+	}
+
+	// helper method to end the turn of player p and answer with where they ended
+	// up and who plays next
+	private void endTurn(Player p) {
+		reply.append("MOVED ").append(p.playerColor).append(' ').append(p.currentPosition).append(' ')
+				.append(p.tokens);
+		if (state.endTurn()) {
+			phase = OVER;
+			Player winner = state.getWinner();
+			reply.append(" WINNER ").append(winner.playerColor).append(' ').append(winner.tokens);
+		} else {
+			reply.append(" NEXT ").append(state.getCurrentPlayer().playerColor);
+		}
+	}
+
+	private boolean state() {
+		if (phase == NO_GAME)
+			return error(phaseError());
+		reply.append("STATE ").append(state.getCurrentPlayer().playerColor);
+		for (Player p : roster) {
+			reply.append(' ').append(p.playerColor).append(' ').append(p.currentPosition).append(' ').append(p.tokens);
+		}
+		return true;
+	}
+
+	// helper method to explain why a game command cannot be played now
+	private String phaseError() {
+		switch (phase) {
+		case NO_GAME:
+			return "no game, send NEW";
+		case LADDER:
+			return "choose TAKE or STAY";
+		default:
+			return "game over, send NEW";
+		}
+	}
+}
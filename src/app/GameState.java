@@ -0,0 +1,333 @@
+package app;
+
+import edu.princeton.cs.algs4.MaxPQ;
+import edu.princeton.cs.algs4.Queue;
+
+/**
+ * Represents the mutable state of a single game of Chutes and Ladders played on
+ * a {@link BoardModel}, along with the rules that advance it. Uses a queue to
+ * track the order of turns of each Player. Contains no drawing code, so it can
+ * be driven by the GUI through {@link GameDirector} or played headless by the
+ * {@link GameEngine}.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class GameState {
+	private BoardModel board;
+	private JumpTable jumps;
+	private Queue<Player> players;
+	private Queue<Player> ranking;
+	private Player currentPlayer;
+	private Player playerWinner;
+
+	private int totalTurns;
+	private int tokenChange;
+	private boolean active;
+
+	private GameJournal journal;
+
+	/**
+	 * Initializes an empty game state. {@link #reset(BoardModel, Player[])} must
+	 * be called before the game can be played.
+	 */
+	public GameState() {
+		players = new Queue<Player>();
+	}
+
+	/**
+	 * Sets the journal every spin, move, chute, ladder, and turn of the game is
+	 * recorded to.
+	 *
+	 * @param journal journal to record to, or null to stop recording
+	 */
+	public void setJournal(GameJournal journal) {
+		this.journal = journal;
+	}
+
+	/**
+	 * Starts a new game on the given board with the given players. Every player
+	 * is reset and the first player in the array takes the first turn.
+	 *
+	 * @param board   board to play on
+	 * @param roster  players in turn order
+	 */
+	public void reset(BoardModel board, Player[] roster) {
+		this.board = board;
+		this.jumps = board.getJumpTable();
+
+		while (!players.isEmpty()) {
+			players.dequeue();
+		}
+		for (Player player : roster) {
+			player.resetPlayer();
+			player.finish = jumps.finish();
+			player.playerPath.setJumpTable(jumps);
+			players.enqueue(player);
+		}
+
+		totalTurns = 0;
+		tokenChange = 0;
+		active = true;
+		ranking = null;
+		playerWinner = null;
+		currentPlayer = players.dequeue();
+	}
+
+	/**
+	 * Spins the spinner for the current player.
+	 */
+	public void spin() {
+		PhaseEvent phase = Metrics.ENABLED ? Metrics.SPIN.start() : null;
+		currentPlayer.spinSpinner();
+		currentPlayer.spinTimes++;
+		currentPlayer.totalSpins++;
+		if (journal != null)
+			journal.record(GameJournal.SPIN, currentPlayer, currentPlayer.latestSpin, 0, 0);
+		if (phase != null)
+			Metrics.SPIN.record(phase);
+	}
+
+	/**
+	 * Moves the current player to the square of their latest spin.
+	 *
+	 * @return number of tokens collected by the move
+	 */
+	public int move() {
+		PhaseEvent phase = Metrics.ENABLED ? Metrics.MOVE.start() : null;
+		currentPlayer.spinTimes = 0;
+		currentPlayer.turns++;
+		totalTurns++;
+		int from = currentPlayer.currentPosition;
+		tokenChange = getPlayerTokensEarned(currentPlayer);
+
+		currentPlayer.move();
+		if (journal != null)
+			journal.record(GameJournal.MOVE, currentPlayer, from, currentPlayer.currentPosition, currentPlayer.tokens);
+		if (phase != null)
+			Metrics.MOVE.record(phase);
+		return tokenChange;
+	}
+
+	// helper method to calculate the number of tokens the player earned
+	private int getPlayerTokensEarned(Player p) {
+		int tokens = jumps.tokensForMove(p.currentPosition, p.nextPosition);
+		p.tokens += tokens;
+		return tokens;
+	}
+
+	/**
+	 * Sends the current player up a ladder or down a chute if they are standing
+	 * on either. A ladder is only taken if the player can afford it.
+	 *
+	 * @return square the player was sent to, or -1 if they did not move
+	 */
+	public int takeChuteOrLadder() {
+		if (!Metrics.ENABLED)
+			return jump();
+		PhaseEvent phase = Metrics.CHUTE_OR_LADDER.start();
+		int square = jump();
+		Metrics.CHUTE_OR_LADDER.record(phase);
+		return square;
+	}
+
+	// helper method to take the chute or ladder the current player stands on
+	private int jump() {
+		int square = currentPlayer.currentPosition;
+		tokenChange = 0;
+
+		switch (jumps.kind(square)) {
+		case JumpTable.LADDER:
+			if (!canTakeLadder())
+				return -1;
+			currentPlayer.jump(jumps.target(square));
+
+			tokenChange = jumps.weight(square);
+			currentPlayer.tokens += tokenChange;
+			if (journal != null)
+				journal.record(GameJournal.LADDER, currentPlayer, square, currentPlayer.currentPosition,
+						currentPlayer.tokens);
+			return currentPlayer.currentPosition;
+		case JumpTable.CHUTE:
+			currentPlayer.jump(jumps.target(square));
+
+			if (-jumps.weight(square) < currentPlayer.tokens) {
+				tokenChange = jumps.weight(square);
+				currentPlayer.tokens += tokenChange;
+			} else
+				currentPlayer.tokens = 0;
+			if (journal != null)
+				journal.record(GameJournal.CHUTE, currentPlayer, square, currentPlayer.currentPosition,
+						currentPlayer.tokens);
+			return currentPlayer.currentPosition;
+		default:
+			return -1;
+		}
+	}
+
+	/**
+	 * Checks if the current player has won, and ends their turn. If they have not
+	 * won, they will be requeue'd and the next player in the queue is selected as
+	 * the new current player.
+	 *
+	 * @return true if the game is over
+	 */
+	public boolean endTurn() {
+		PhaseEvent phase = Metrics.ENABLED ? Metrics.END_TURN.start() : null;
+		if (journal != null) {
+			// a player still standing at the bottom of a ladder chose not to climb it
+			if (jumps.kind(currentPlayer.currentPosition) == JumpTable.LADDER)
+				journal.record(GameJournal.PASS, currentPlayer, currentPlayer.currentPosition, 0, 0);
+			journal.record(GameJournal.TURN, currentPlayer, totalTurns, 0, 0);
+		}
+		players.enqueue(currentPlayer);
+		if (currentPlayer.hasFinished()) {
+			playerFinished();
+		} else {
+			currentPlayer = players.dequeue();
+		}
+		if (phase != null)
+			Metrics.END_TURN.record(phase);
+		return !active;
+	}
+
+	// helper method to rank the players once someone has finished
+	private void playerFinished() {
+		active = false;
+
+		MaxPQ<Player> heap = new MaxPQ<>();
+		for (Player player : players) {
+			heap.insert(player);
+		}
+
+		ranking = new Queue<>();
+		while (!heap.isEmpty()) {
+			ranking.enqueue(heap.delMax());
+		}
+		playerWinner = ranking.peek();
+	}
+
+	/**
+	 * Checks if the current player has landed on a chute square.
+	 *
+	 * @return true or false
+	 */
+	public boolean isChute() {
+		return jumps.kind(currentPlayer.currentPosition) == JumpTable.CHUTE;
+	}
+
+	/**
+	 * Checks if the current player has landed on a ladder square.
+	 *
+	 * @return true or false
+	 */
+	public boolean isLadder() {
+		return jumps.kind(currentPlayer.currentPosition) == JumpTable.LADDER;
+	}
+
+	/**
+	 * Checks if the current player can take the ladder they are standing on.
+	 *
+	 * @return true or false
+	 */
+	public boolean canTakeLadder() {
+		return jumps.canTakeLadder(currentPlayer.currentPosition, currentPlayer.tokens);
+	}
+
+	/**
+	 * Returns the cost to take the ladder based on it's edge weight.
+	 *
+	 * @return ladder cost, or 0 if there is no ladder
+	 */
+	public int getLadderCost() {
+		return jumps.ladderCost(currentPlayer.currentPosition);
+	}
+
+	/**
+	 * Returns the player that's in the lead.
+	 */
+	public Player getLead() {
+		Player currentLead = null;
+		for (Player player : players) {
+			if (currentLead == null)
+				currentLead = player;
+			else if (player.currentPosition > currentLead.currentPosition)
+				currentLead = player;
+		}
+		return currentLead;
+	}
+
+	/**
+	 * Returns the number of tokens gained or lost by the latest move, ladder, or
+	 * chute.
+	 *
+	 * @return latest token change
+	 */
+	public int getTokenChange() {
+		return tokenChange;
+	}
+
+	/**
+	 * Returns true while no player has reached the finish.
+	 *
+	 * @return true if the game is still being played
+	 */
+	public boolean isActive() {
+		return active;
+	}
+
+	/**
+	 * Returns the sum of all turns by each player.
+	 *
+	 * @return number of total turns
+	 */
+	public int getTotalTurns() {
+		return totalTurns;
+	}
+
+	/**
+	 * Returns the which players turn it currently is.
+	 *
+	 * @return current player
+	 */
+	public Player getCurrentPlayer() {
+		return currentPlayer;
+	}
+
+	/**
+	 * Returns the queue of players waiting for their turn.
+	 *
+	 * @return queue of players
+	 */
+	public Queue<Player> getPlayers() {
+		return players;
+	}
+
+	/**
+	 * Returns the players ordered from most to fewest tokens once the game has
+	 * ended.
+	 *
+	 * @return ranked players, or null while the game is active
+	 */
+	public Iterable<Player> getRanking() {
+		return ranking;
+	}
+
+	/**
+	 * Returns the player that has won the game.
+	 *
+	 * @return player that won
+	 */
+	public Player getWinner() {
+		return playerWinner;
+	}
+
+	/**
+	 * Returns the board the game is played on.
+	 *
+	 * @return board model
+	 */
+	public BoardModel getBoard() {
+		return board;
+	}
+}
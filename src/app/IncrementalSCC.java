@@ -0,0 +1,91 @@
+package app;
+
+import edu.princeton.cs.algs4.UF;
+
+/**
+ * Tracks the strong components of a board's digraph as edges are added to it.
+ * Every square on a board already has an edge to the square after it, so the
+ * only edges that can close a cycle are edges that lead backwards, like a
+ * chute. A chute from v down to w makes every square from w to v reachable from
+ * every other, which means each strong component is a run of consecutive
+ * squares. The runs are kept in a union-find, and each square is joined to the
+ * square after it at most once, so adding all edges takes near linear time in
+ * the number of squares and each query takes near constant time.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class IncrementalSCC {
+	private UF uf;
+	private int[] nextGap; // nextGap[v] leads to the first square >= v not yet joined to its successor
+	private int count;
+
+	/**
+	 * Initializes the strong components of a board with <code>V</code> squares
+	 * where each square only has edges to the squares after it.
+	 *
+	 * @param V number of squares
+	 */
+	public IncrementalSCC(int V) {
+		uf = new UF(V);
+		nextGap = new int[V];
+		for (int v = 0; v < V; v++) {
+			nextGap[v] = v;
+		}
+		count = V;
+	}
+
+	/**
+	 * Updates the strong components after the edge v->w is added. Edges that lead
+	 * forward never change the components.
+	 *
+	 * @param v square the edge starts at
+	 * @param w square the edge ends at
+	 */
+	public void addEdge(int v, int w) {
+		if (w >= v)
+			return;
+
+		// join every square from w to v with the square after it
+		for (int s = gap(w); s < v; s = gap(s + 1)) {
+			uf.union(s, s + 1);
+			nextGap[s] = s + 1;
+			count--;
+		}
+	}
+
+	// helper method to find the first square at or after v that is not yet joined
+	// to its successor, compressing the path along the way
+	private int gap(int v) {
+		int root = v;
+		while (nextGap[root] != root) {
+			root = nextGap[root];
+		}
+		while (nextGap[v] != root) {
+			int next = nextGap[v];
+			nextGap[v] = root;
+			v = next;
+		}
+		return root;
+	}
+
+	/**
+	 * Checks if v and w are in the same strong component.
+	 *
+	 * @param v square
+	 * @param w square
+	 * @return true if v and w can each be reached from the other
+	 */
+	public boolean stronglyConnected(int v, int w) {
+		return uf.find(v) == uf.find(w);
+	}
+
+	/**
+	 * Returns the number of strong components.
+	 *
+	 * @return number of strong components
+	 */
+	public int count() {
+		return count;
+	}
+}
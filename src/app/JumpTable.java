@@ -0,0 +1,169 @@
+package app;
+
+import edu.princeton.cs.algs4.DirectedEdge;
+import edu.princeton.cs.algs4.EdgeWeightedDigraph;
+
+/**
+ * Compiled form of a board's graph for answering questions about a square in
+ * constant time. Every chute and ladder is copied out of the
+ * EdgeWeightedDigraph into flat arrays indexed by the square it starts on:
+ * where it leads, whether it is a chute or a ladder, its edge weight, and what
+ * a ladder costs to climb. Looking up a square does not walk the adjacency
+ * lists or create any objects.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class JumpTable {
+	/** Kind of a square without a chute or ladder. */
+	public static final int NONE = 0;
+	/** Kind of a square with a chute. */
+	public static final int CHUTE = 1;
+	/** Kind of a square with a ladder. */
+	public static final int LADDER = 2;
+
+	private final int finish;
+	private final int[] jumpTarget;
+	private final int[] jumpKind;
+	private final int[] jumpWeight;
+	private final int[] ladderCost;
+
+	/**
+	 * Compiles the chutes and ladders of the given board graph. Edges with a
+	 * negative weight are chutes and edges with a weight above 6 are ladders; the
+	 * last square of the graph is the finish.
+	 *
+	 * @param graph board graph
+	 */
+	public JumpTable(EdgeWeightedDigraph graph) {
+		int V = graph.V();
+		finish = V - 1;
+		jumpTarget = new int[V];
+		jumpKind = new int[V];
+		jumpWeight = new int[V];
+		ladderCost = new int[V];
+
+		for (int v = 0; v < V; v++) {
+			jumpTarget[v] = v;
+			for (DirectedEdge edge : graph.adj(v)) {
+				if (edge.weight() > 6) {
+					jumpKind[v] = LADDER;
+					ladderCost[v] = (int) edge.weight() / 2;
+				} else if (edge.weight() < 0) {
+					jumpKind[v] = CHUTE;
+				} else
+					continue;
+
+				jumpTarget[v] = edge.to();
+				jumpWeight[v] = (int) edge.weight();
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Compiles the chutes and ladders of the given layout without building its
+	 * graph.
+	 *
+	 * @param layout board layout
+	 */
+	public JumpTable(BoardLayout layout) {
+		int V = layout.squares();
+		finish = V - 1;
+		jumpTarget = new int[V];
+		jumpKind = new int[V];
+		jumpWeight = new int[V];
+		ladderCost = new int[V];
+
+		for (int v = 0; v < V; v++) {
+			jumpTarget[v] = v;
+		}
+		for (int i = 0; i < layout.chutes(); i++) {
+			int v = layout.chuteFrom(i);
+			jumpKind[v] = CHUTE;
+			jumpTarget[v] = layout.chuteTo(i);
+			jumpWeight[v] = layout.chuteWeight(i);
+		}
+		for (int i = 0; i < layout.ladders(); i++) {
+			int v = layout.ladderFrom(i);
+			jumpKind[v] = LADDER;
+			jumpTarget[v] = layout.ladderTo(i);
+			jumpWeight[v] = layout.ladderWeight(i);
+			ladderCost[v] = layout.ladderWeight(i) / 2;
+		}
+	}
+
+	/**
+	 * Returns the number of the last square of the board.
+	 *
+	 * @return finish square
+	 */
+	public int finish() {
+		return finish;
+	}
+
+	/**
+	 * Returns the square reached by taking the chute or ladder on square v.
+	 *
+	 * @param v square
+	 * @return target square, or v if there is no chute or ladder
+	 */
+	public int target(int v) {
+		return jumpTarget[v];
+	}
+
+	/**
+	 * Returns whether square v has a chute, a ladder, or neither.
+	 *
+	 * @param v square
+	 * @return {@link #NONE}, {@link #CHUTE}, or {@link #LADDER}
+	 */
+	public int kind(int v) {
+		return jumpKind[v];
+	}
+
+	/**
+	 * Returns the edge weight of the chute or ladder on square v. Ladders have a
+	 * positive weight (tokens collected) and chutes a negative one (tokens lost).
+	 *
+	 * @param v square
+	 * @return edge weight, or 0 if there is no chute or ladder
+	 */
+	public int weight(int v) {
+		return jumpWeight[v];
+	}
+
+	/**
+	 * Returns the number of tokens shown as the cost of the ladder on square v.
+	 *
+	 * @param v square
+	 * @return ladder cost, or 0 if there is no ladder
+	 */
+	public int ladderCost(int v) {
+		return ladderCost[v];
+	}
+
+	/**
+	 * Checks if a player with the given number of tokens may climb the ladder on
+	 * square v. A ladder needs at least half of its weight in tokens.
+	 *
+	 * @param v      square
+	 * @param tokens tokens held by the player
+	 * @return true if there is a ladder the player can take
+	 */
+	public boolean canTakeLadder(int v, int tokens) {
+		return jumpKind[v] == LADDER && jumpWeight[v] <= 2 * tokens;
+	}
+
+	/**
+	 * Returns the number of tokens collected for moving from square v to square
+	 * w with a spin. A spin that overshoots the finish does not collect any.
+	 *
+	 * @param v square the player moves from
+	 * @param w square the spin leads to
+	 * @return tokens collected
+	 */
+	public int tokensForMove(int v, int w) {
+		return w <= finish ? w - v : 0;
+	}
+}
@@ -0,0 +1,492 @@
+package app;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+import edu.princeton.cs.algs4.Queue;
+import edu.princeton.cs.algs4.Stack;
+
+/**
+ * A running ranking of players, strategies, or seats over many games. Every
+ * entry has a name and a score, and entries are ranked from the highest score
+ * down, with ties broken by name. A finished game gives each player's entry
+ * points for the place they finished in: 3 for the winner, 2 for second, 1
+ * for third and 0 for last.
+ * <p>
+ * Entries are kept in a treap, a binary search tree in ranking order whose
+ * nodes also form a heap on random priorities, which keeps it balanced with
+ * high probability. Every node knows the size of its subtree, so the rank of
+ * an entry and the entry of a given rank are found on one path down the tree.
+ * A hash map finds the node of a name. Changing a score removes the node from
+ * the tree and puts it back in its new place, so updates, rank queries, and
+ * lookups all take O(log n) time, and the top k entries take O(log n + k).
+ * <p>
+ * The leaderboard is saved to and loaded from a file so it carries on across
+ * sessions. The file starts with a magic number, the format version, and the
+ * number of entries, followed by every entry in rank order. It is written to a
+ * temporary file and renamed over the old one, so a crash while saving leaves
+ * the last save as it was.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class Leaderboard {
+	static final int MAGIC = 0x434C4C31; // "CLL1"
+	static final int VERSION = 1;
+
+	/** Points for finishing first to fourth in a game. */
+	private static final int[] PLACE_POINTS = { 3, 2, 1, 0 };
+
+	private final HashMap<String, Entry> entries = new HashMap<>();
+	private final SplittableRandom priorities = new SplittableRandom();
+	private Entry root;
+
+	/**
+	 * An entity on the leaderboard and its totals over every game recorded.
+	 */
+	public static final class Entry {
+		private final String name;
+		private long score;
+		private long games;
+		private long wins;
+		private long tokens;
+
+		// treap links
+		private final int priority;
+		private int size = 1;
+		private Entry left;
+		private Entry right;
+
+		private Entry(String name, int priority) {
+			this.name = name;
+			this.priority = priority;
+		}
+
+		/**
+		 * Returns the name of the entity.
+		 *
+		 * @return name
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Returns the points the entity scored.
+		 *
+		 * @return points
+		 */
+		public long getScore() {
+			return score;
+		}
+
+		/**
+		 * Returns the number of games the entity played.
+		 *
+		 * @return number of games
+		 */
+		public long getGames() {
+			return games;
+		}
+
+		/**
+		 * Returns the number of games the entity won.
+		 *
+		 * @return number of wins
+		 */
+		public long getWins() {
+			return wins;
+		}
+
+		/**
+		 * Returns the tokens the entity held at the end of every game it played,
+		 * added up.
+		 *
+		 * @return total tokens
+		 */
+		public long getTokens() {
+			return tokens;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s: %d points, %d wins in %d games, %d tokens", name, score, wins, games, tokens);
+		}
+	}
+
+	/**
+	 * Records a finished game, giving the entity of every player points for the
+	 * place they finished in.
+	 *
+	 * @param game   game that has ended
+	 * @param entity name of the entity a player is counted for
+	 */
+	public synchronized void record(GameState game, Function<Player, String> entity) {
+		Iterable<Player> ranking = game.getRanking();
+		if (ranking == null)
+			throw new IllegalStateException("The game has not ended");
+		int place = 0;
+		for (Player p : ranking) {
+			Entry e = remove(entity.apply(p));
+			e.score += PLACE_POINTS[Math.min(place, PLACE_POINTS.length - 1)];
+			e.games++;
+			if (place == 0)
+				e.wins++;
+			e.tokens += p.tokens;
+			root = insert(root, e);
+			place++;
+		}
+	}
+
+	/**
+	 * Adds points to the score of an entity, adding the entity if it is new.
+	 *
+	 * @param name   name of the entity
+	 * @param points points to add, which may be negative
+	 */
+	public synchronized void add(String name, long points) {
+		Entry e = remove(name);
+		e.score += points;
+		root = insert(root, e);
+	}
+
+	// helper method to take the entry of name out of the tree, creating it if
+	// there is none
+	private Entry remove(String name) {
+		Entry e = entries.get(name);
+		if (e == null) {
+			e = new Entry(name, priorities.nextInt());
+			entries.put(name, e);
+			return e;
+		}
+		root = delete(root, e);
+		e.left = null;
+		e.right = null;
+		e.size = 1;
+		return e;
+	}
+
+	/**
+	 * Returns the entry of an entity.
+	 *
+	 * @param name name of the entity
+	 * @return entry, or null if the entity has not played
+	 */
+	public synchronized Entry get(String name) {
+		return entries.get(name);
+	}
+
+	/**
+	 * Returns the rank of an entity, 1 being the highest score.
+	 *
+	 * @param name name of the entity
+	 * @return rank, or -1 if the entity has not played
+	 */
+	public synchronized int rank(String name) {
+		Entry e = entries.get(name);
+		if (e == null)
+			return -1;
+		int rank = 0;
+		Entry h = root;
+		while (h != e) {
+			if (before(e, h)) {
+				h = h.left;
+			} else {
+				rank += size(h.left) + 1;
+				h = h.right;
+			}
+		}
+		return rank + size(h.left) + 1;
+	}
+
+	/**
+	 * Returns the entry of the given rank.
+	 *
+	 * @param rank rank from 1 to {@link #size()}
+	 * @return entry
+	 */
+	public synchronized Entry select(int rank) {
+		if (rank < 1 || rank > size())
+			throw new IllegalArgumentException("No rank " + rank + " among " + size() + " entries");
+		Entry h = root;
+		int r = rank;
+		while (true) {
+			int leftSize = size(h.left);
+			if (r <= leftSize) {
+				h = h.left;
+			} else if (r == leftSize + 1) {
+				return h;
+			} else {
+				r -= leftSize + 1;
+				h = h.right;
+			}
+		}
+	}
+
+	/**
+	 * Returns the k entries with the highest scores, highest first.
+	 *
+	 * @param k number of entries
+	 * @return top entries
+	 */
+	public Queue<Entry> top(int k) {
+		return range(1, k);
+	}
+
+	/**
+	 * Returns up to count entries in rank order, starting at the given rank.
+	 *
+	 * @param from  rank of the first entry, from 1
+	 * @param count most entries to return
+	 * @return entries in rank order
+	 */
+	public synchronized Queue<Entry> range(int from, int count) {
+		Queue<Entry> result = new Queue<>();
+		if (from < 1 || from > size() || count <= 0)
+			return result;
+
+		// walks down to the first entry, keeping every node still to be visited
+		// after it in order
+		Stack<Entry> pending = new Stack<>();
+		Entry h = root;
+		int r = from;
+		while (h != null) {
+			int leftSize = size(h.left);
+			if (r <= leftSize) {
+				pending.push(h);
+				h = h.left;
+			} else if (r == leftSize + 1) {
+				pending.push(h);
+				break;
+			} else {
+				r -= leftSize + 1;
+				h = h.right;
+			}
+		}
+
+		while (!pending.isEmpty() && result.size() < count) {
+			Entry e = pending.pop();
+			result.enqueue(e);
+			for (Entry x = e.right; x != null; x = x.left) {
+				pending.push(x);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of entities on the leaderboard.
+	 *
+	 * @return number of entries
+	 */
+	public synchronized int size() {
+		return size(root);
+	}
+
+	// helper method to check if entry a ranks above entry b
+	private static boolean before(Entry a, Entry b) {
+		if (a.score != b.score)
+			return a.score > b.score;
+		return a.name.compareTo(b.name) < 0;
+	}
+
+	private static int size(Entry h) {
+		return h == null ? 0 : h.size;
+	}
+
+	// helper method to recount the size of h's subtree from its children
+	private static void resize(Entry h) {
+		h.size = size(h.left) + size(h.right) + 1;
+	}
+
+	// helper method to insert x into the subtree rooted at h, rotating it up
+	// while its priority is higher than its parent's
+	private static Entry insert(Entry h, Entry x) {
+		if (h == null)
+			return x;
+		if (before(x, h)) {
+			h.left = insert(h.left, x);
+			if (h.left.priority > h.priority)
+				h = rotateRight(h);
+		} else {
+			h.right = insert(h.right, x);
+			if (h.right.priority > h.priority)
+				h = rotateLeft(h);
+		}
+		resize(h);
+		return h;
+	}
+
+	// helper method to delete x from the subtree rooted at h
+	private static Entry delete(Entry h, Entry x) {
+		if (h == x)
+			return merge(h.left, h.right);
+		if (before(x, h))
+			h.left = delete(h.left, x);
+		else
+			h.right = delete(h.right, x);
+		resize(h);
+		return h;
+	}
+
+	// helper method to join two subtrees, every entry of a ranking above every
+	// entry of b
+	private static Entry merge(Entry a, Entry b) {
+		if (a == null)
+			return b;
+		if (b == null)
+			return a;
+		if (a.priority > b.priority) {
+			a.right = merge(a.right, b);
+			resize(a);
+			return a;
+		}
+		b.left = merge(a, b.left);
+		resize(b);
+		return b;
+	}
+
+	private static Entry rotateRight(Entry h) {
+		Entry x = h.left;
+		h.left = x.right;
+		x.right = h;
+		resize(h);
+		return x;
+	}
+
+	private static Entry rotateLeft(Entry h) {
+		Entry x = h.right;
+		h.right = x.left;
+		x.left = h;
+		resize(h);
+		return x;
+	}
+
+	/**
+	 * Saves the leaderboard to a file.
+	 *
+	 * @param path file to save to
+	 * @throws IOException if the file cannot be written
+	 */
+	public synchronized void save(Path path) throws IOException {
+		Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+		try (OutputStream file = Files.newOutputStream(temp);
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(size());
+			Stack<Entry> pending = new Stack<>();
+			for (Entry h = root; h != null || !pending.isEmpty(); h = h.right) {
+				for (; h != null; h = h.left) {
+					pending.push(h);
+				}
+				h = pending.pop();
+				out.writeUTF(h.name);
+				out.writeLong(h.score);
+				out.writeLong(h.games);
+				out.writeLong(h.wins);
+				out.writeLong(h.tokens);
+			}
+		}
+		try {
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Loads a leaderboard from a file, or returns an empty one if the file does
+	 * not exist yet.
+	 *
+	 * @param path file saved with {@link #save(Path)}
+	 * @return leaderboard
+	 * @throws IOException if the file cannot be read or is not a leaderboard
+	 */
+	public static Leaderboard load(Path path) throws IOException {
+		Leaderboard board = new Leaderboard();
+		if (!Files.exists(path))
+			return board;
+		try (InputStream file = Files.newInputStream(path);
+				DataInputStream in = new DataInputStream(new BufferedInputStream(file, 1 << 16))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				throw new IOException("Not a leaderboard: " + path);
+			// the entries come in rank order, so the treap is built in linear time
+			// along its right spine: an entry goes at the bottom of the spine, below
+			// every entry of a higher priority, and the entries of a lower priority
+			// it passes become its left subtree
+			Stack<Entry> spine = new Stack<>();
+			int n = in.readInt();
+			for (int i = 0; i < n; i++) {
+				Entry e = new Entry(in.readUTF(), board.priorities.nextInt());
+				e.score = in.readLong();
+				e.games = in.readLong();
+				e.wins = in.readLong();
+				e.tokens = in.readLong();
+				if (board.entries.put(e.name, e) != null)
+					throw new IOException("Leaderboard " + path + " has " + e.name + " twice");
+
+				Entry passed = null;
+				while (!spine.isEmpty() && spine.peek().priority < e.priority) {
+					passed = spine.pop();
+					resize(passed);
+				}
+				e.left = passed;
+				if (!spine.isEmpty())
+					spine.peek().right = e;
+				spine.push(e);
+			}
+			while (!spine.isEmpty()) {
+				board.root = spine.pop();
+				resize(board.root);
+			}
+		}
+		return board;
+	}
+
+	/**
+	 * Plays a tournament of games on new boards and adds it to the leaderboard in
+	 * a file, then prints the top entries. Every game is played by one policy,
+	 * and each player is counted for their policy and seat. Accepts the number
+	 * of games, the leaderboard file, and the number of entries to print.
+	 */
+	public static void main(String[] args) throws IOException {
+		long games = args.length > 0 ? Long.parseLong(args[0]) : 10_000;
+		Path path = Paths.get(args.length > 1 ? args[1] : "leaderboard.bin");
+		int k = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+		Leaderboard leaderboard = load(path);
+		String[] names = { "simulation", "greedy" };
+		GameEngine[] engines = { new GameEngine(TurnPolicy.SIMULATION), new GameEngine(TurnPolicy.GREEDY) };
+		RandomSource random = RandomSource.seeded(new SplittableRandom().nextLong());
+		for (GameEngine engine : engines) {
+			engine.setRandomSource(random);
+		}
+
+		for (long i = 0; i < games; i++) {
+			int e = (int) (i % engines.length);
+			GameState game = engines[e].play(new BoardModel(random));
+			leaderboard.record(game, p -> names[e] + " " + p.playerColor);
+		}
+		leaderboard.save(path);
+
+		System.out.println("Top " + k + " of " + leaderboard.size() + ":");
+		int rank = 1;
+		for (Entry entry : leaderboard.top(k)) {
+			System.out.println(rank++ + ". " + entry);
+		}
+	}
+}
@@ -0,0 +1,182 @@
+package app;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays games against a {@link GameServer} from many clients at once to measure
+ * how many commands per second it can answer. Every client connects once and
+ * plays games back to back. It spins once or twice at random and climbs ladders
+ * at random, so every part of the protocol is used. The spins and the move of a
+ * turn are sent together and their answers read together, the way a bot that
+ * already knows its choices would play, which saves round trips.
+ * <p>
+ * Clients run on the same kind of threads as the sessions of the server, and
+ * each records the time every round trip took in its own {@link LogHistogram}.
+ * The histograms are merged at the end.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class LoadGenerator {
+	private final int port;
+	private final int clients;
+	private final long durationNanos;
+
+	/**
+	 * Initializes a load generator.
+	 *
+	 * @param port           port of the server on the local machine
+	 * @param clients        number of clients playing at once
+	 * @param durationMillis how long the clients play
+	 */
+	public LoadGenerator(int port, int clients, long durationMillis) {
+		this.port = port;
+		this.clients = clients;
+		this.durationNanos = TimeUnit.MILLISECONDS.toNanos(durationMillis);
+	}
+
+	/**
+	 * Outcome of a client, or of every client merged.
+	 */
+	public static class Result {
+		/** Time each round trip took, in microseconds. */
+		public final LogHistogram latency = new LogHistogram();
+		/** Number of commands answered. */
+		public long commands;
+		/** Number of games played to the end. */
+		public long games;
+		/** Number of answers that were errors. */
+		public long errors;
+
+		void merge(Result other) {
+			latency.merge(other.latency);
+			commands += other.commands;
+			games += other.games;
+			errors += other.errors;
+		}
+	}
+
+	/**
+	 * Runs every client until the duration is over and merges their results.
+	 *
+	 * @return merged results
+	 * @throws IOException if a client cannot connect
+	 */
+	public Result run() throws IOException {
+		ExecutorService executor = GameServer.newSessionExecutor();
+		long end = System.nanoTime() + durationNanos;
+		List<Future<Result>> futures = new ArrayList<>();
+		for (int c = 0; c < clients; c++) {
+			long seed = c;
+			futures.add(executor.submit(() -> play(seed, end)));
+		}
+
+		Result total = new Result();
+		try {
+			for (Future<Result> future : futures) {
+				total.merge(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw new IOException("A client failed", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+		return total;
+	}
+
+	// runs on a client thread: plays games until the end time
+	private Result play(long seed, long end) throws IOException {
+		Result result = new Result();
+		SplittableRandom random = new SplittableRandom(seed);
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+			socket.setTcpNoDelay(true);
+			BufferedReader in = new BufferedReader(
+					new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+			OutputStream out = socket.getOutputStream();
+
+			String answer = send("NEW " + random.nextLong() + "\n", 1, in, out, result);
+			while (System.nanoTime() < end) {
+				if (answer.contains("WINNER")) {
+					result.games++;
+					answer = send("NEW " + random.nextLong() + "\n", 1, in, out, result);
+				} else if (random.nextInt(4) == 0) {
+					answer = send("SPIN\nSPIN\nMOVE\n", 3, in, out, result);
+				} else {
+					answer = send("SPIN\nMOVE\n", 2, in, out, result);
+				}
+				if (answer.startsWith("LADDER"))
+					answer = send(random.nextBoolean() ? "TAKE\n" : "STAY\n", 1, in, out, result);
+			}
+			send("QUIT\n", 1, in, out, result);
+		}
+		return result;
+	}
+
+	// helper method to send a number of commands at once and wait for their
+	// answers, returning the last one
+	private static String send(String commands, int count, BufferedReader in, OutputStream out, Result result)
+			throws IOException {
+		long start = System.nanoTime();
+		out.write(commands.getBytes(StandardCharsets.US_ASCII));
+		String answer = null;
+		for (int i = 0; i < count; i++) {
+			answer = in.readLine();
+			if (answer == null)
+				throw new IOException("Server closed the connection");
+			if (answer.startsWith("ERR"))
+				result.errors++;
+		}
+		result.latency.record((System.nanoTime() - start) / 1000);
+		result.commands += count;
+		return answer;
+	}
+
+	/**
+	 * Runs a load test and prints its throughput and latency. Accepts the port,
+	 * the number of clients, and the duration in seconds. Starts a server in the
+	 * same JVM if the port is "local".
+	 */
+	public static void main(String[] args) throws IOException {
+		boolean local = args.length == 0 || args[0].equals("local");
+		int clients = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		long seconds = args.length > 2 ? Long.parseLong(args[2]) : 10;
+
+		GameServer server = null;
+		int port;
+		if (local) {
+			server = new GameServer(0, new SessionManager());
+			server.start();
+			port = server.getPort();
+		} else {
+			port = Integer.parseInt(args[0]);
+		}
+
+		LoadGenerator generator = new LoadGenerator(port, clients, seconds * 1000);
+		long start = System.nanoTime();
+		Result result = generator.run();
+		double elapsed = (System.nanoTime() - start) / 1e9;
+		if (server != null)
+			server.close();
+
+		LogHistogram latency = result.latency;
+		System.out.printf("%d clients: %d commands in %.2f s: %.0f commands/s, %d games, %d errors%n", clients,
+				result.commands, elapsed, result.commands / elapsed, result.games, result.errors);
+		System.out.printf("Round trips: p50 %d us, p99 %d us, p99.9 %d us, max %d us%n", latency.quantile(0.5),
+				latency.quantile(0.99), latency.quantile(0.999), latency.getMax());
+	}
+}
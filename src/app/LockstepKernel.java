@@ -0,0 +1,23 @@
+package app;
+
+/**
+ * Plays one turn in every game of a {@link LockstepSimulator} at once. The
+ * simulator loads a kernel that uses the Vector API if the JVM has it, and the
+ * scalar kernel otherwise.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+interface LockstepKernel {
+	/**
+	 * Plays the turn of the player in the given slot of every active game: spins,
+	 * moves, collects tokens, and slides down any chute. Writes the lanes whose
+	 * player reached the finish to finished, in increasing order.
+	 *
+	 * @param sim      simulator whose lanes are played
+	 * @param slot     turn slot of the player, 0 to 3
+	 * @param finished lanes whose games ended on this turn
+	 * @return number of lanes written to finished
+	 */
+	int step(LockstepSimulator sim, int slot, int[] finished);
+}
@@ -0,0 +1,316 @@
+package app;
+
+import java.util.SplittableRandom;
+
+import edu.princeton.cs.algs4.MaxPQ;
+
+/**
+ * Simulates thousands of games on one board at once, for players following the
+ * simulation policy. Instead of a Player object per player, every game is a
+ * lane in a few parallel arrays of ints: the square, tokens, and turns of each
+ * of the four turn slots, and the state of the lane's random number generator.
+ * All games take the turn of the same slot in lockstep, so a turn is one pass
+ * down a handful of arrays, which the CPU streams through its caches and which
+ * a {@link LockstepKernel} can play many lanes at a time.
+ * <p>
+ * A chute is looked up in two tables indexed by square: the square it leads to
+ * (the square itself if there is none) and the tokens it takes (0 if there is
+ * none). Every lane is then played the same way whether it hit a chute or not,
+ * without branches. Ladders are never climbed and second spins never taken, as
+ * in {@link TurnPolicy#SIMULATION}.
+ * <p>
+ * When a game ends its lane starts a new game right away. The first player of
+ * the new game takes the next slot, and which color a slot belongs to is kept
+ * per lane, so every lane stays busy until the last games are started. Lanes
+ * that have no more games to start are swapped to the end and dropped.
+ * <p>
+ * The kernel using the Vector API is in the src-vector source root, which the
+ * benchmark build compiles along with src. It is loaded by name if it is on the
+ * class path and the JVM was started with
+ * <code>--add-modules jdk.incubator.vector</code>, and a scalar kernel is used
+ * otherwise or if <code>-Dapp.lockstep.vector=false</code> is set. Spins come
+ * from a xorshift generator per lane seeded from the simulator's seed, so the
+ * games are not the same games a GameEngine would play with that seed, but
+ * they follow the same rules and have the same distributions.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class LockstepSimulator {
+	/** Number of lanes used by default. */
+	public static final int DEFAULT_LANES = 4096;
+	static final int PLAYERS = PlayerColor.values().length;
+
+	// the state of every lane, read and written by the kernels
+	final int finish;
+	final int[] chuteTarget;
+	final int[] chuteWeight;
+	final int[][] position = new int[PLAYERS][];
+	final int[][] tokens = new int[PLAYERS][];
+	final int[][] turns = new int[PLAYERS][];
+	final int[] rng;
+	int lanes;
+
+	private final int[] firstSlot; // slot of the first player of the game in each lane
+	private final SplittableRandom seeds;
+	private final LockstepKernel kernel;
+
+	// numbers of the game that ended, by color
+	private final int[] endTurns = new int[PLAYERS];
+	private final int[] endTokens = new int[PLAYERS];
+	private final Player[] ranking = new Player[PLAYERS];
+	private final MaxPQ<Player> heap = new MaxPQ<>();
+
+	/**
+	 * Initializes a simulator with the default number of lanes.
+	 *
+	 * @param board board every game is played on
+	 * @param seed  seed of the spins
+	 */
+	public LockstepSimulator(BoardModel board, long seed) {
+		this(board, DEFAULT_LANES, seed);
+	}
+
+	/**
+	 * Initializes a simulator.
+	 *
+	 * @param board board every game is played on
+	 * @param lanes most games played at once
+	 * @param seed  seed of the spins
+	 */
+	public LockstepSimulator(BoardModel board, int lanes, long seed) {
+		this(board, lanes, seed, loadKernel());
+	}
+
+	// initializes a simulator that plays with the given kernel
+	LockstepSimulator(BoardModel board, int lanes, long seed, LockstepKernel kernel) {
+		if (lanes < 1)
+			throw new IllegalArgumentException("A simulator needs at least one lane");
+		JumpTable jumps = board.getJumpTable();
+		this.finish = jumps.finish();
+		this.kernel = kernel;
+
+		chuteTarget = new int[finish + 1];
+		chuteWeight = new int[finish + 1];
+		for (int v = 0; v <= finish; v++) {
+			boolean chute = jumps.kind(v) == JumpTable.CHUTE;
+			chuteTarget[v] = chute ? jumps.target(v) : v;
+			chuteWeight[v] = chute ? jumps.weight(v) : 0;
+		}
+
+		for (int s = 0; s < PLAYERS; s++) {
+			position[s] = new int[lanes];
+			tokens[s] = new int[lanes];
+			turns[s] = new int[lanes];
+		}
+		rng = new int[lanes];
+		firstSlot = new int[lanes];
+		for (PlayerColor color : PlayerColor.values()) {
+			ranking[color.ordinal()] = new Player(color);
+		}
+		seeds = new SplittableRandom(seed);
+		for (int g = 0; g < lanes; g++) {
+			rng[g] = nextSeed();
+		}
+	}
+
+	/**
+	 * Returns the kernel that uses the Vector API if it can be loaded, or the
+	 * scalar kernel.
+	 *
+	 * @return kernel to play turns with
+	 */
+	static LockstepKernel loadKernel() {
+		if (Boolean.parseBoolean(System.getProperty("app.lockstep.vector", "true"))) {
+			try {
+				return (LockstepKernel) Class.forName("app.LockstepVectorKernel").getDeclaredConstructor()
+						.newInstance();
+			} catch (ReflectiveOperationException | LinkageError e) {
+				// the kernel or the incubator module is not there, play without it
+			}
+		}
+		return new ScalarKernel();
+	}
+
+	/**
+	 * Plays one lane at a time.
+	 */
+	static final class ScalarKernel implements LockstepKernel {
+		@Override
+		public int step(LockstepSimulator sim, int slot, int[] finished) {
+			int count = 0;
+			for (int g = 0; g < sim.lanes; g++) {
+				if (stepLane(sim, slot, g))
+					finished[count++] = g;
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * Plays the turn of the player in the given slot of one lane, the same way as
+	 * every lane of a kernel.
+	 *
+	 * @param sim  simulator
+	 * @param slot turn slot of the player
+	 * @param g    lane
+	 * @return true if the player reached the finish
+	 */
+	static boolean stepLane(LockstepSimulator sim, int slot, int g) {
+		int x = sim.rng[g];
+		x ^= x << 13;
+		x ^= x >>> 17;
+		x ^= x << 5;
+		sim.rng[g] = x;
+		int spin = ((x >>> 8) * 6 >>> 24) + 1;
+
+		int to = sim.position[slot][g] + spin;
+		int held = sim.tokens[slot][g];
+		if (to > sim.finish)
+			to = sim.finish;
+		else
+			held += spin;
+
+		int target = sim.chuteTarget[to];
+		sim.position[slot][g] = target;
+		sim.tokens[slot][g] = Math.max(0, held + sim.chuteWeight[to]);
+		sim.turns[slot][g]++;
+		return target == sim.finish;
+	}
+
+	/**
+	 * Plays the given number of games.
+	 *
+	 * @param games number of games
+	 * @return results of every game
+	 */
+	public SimulationResults simulate(long games) {
+		SimulationResults results = new SimulationResults();
+		int[] finished = new int[position[0].length];
+		lanes = (int) Math.min(games, position[0].length);
+		for (int g = 0; g < lanes; g++) {
+			clear(g, 0);
+		}
+		long started = lanes;
+
+		int slot = 0;
+		while (lanes > 0) {
+			int count = kernel.step(this, slot, finished);
+			// from the last lane down, so a lane swapped in from the end has played
+			for (int i = count - 1; i >= 0; i--) {
+				int g = finished[i];
+				record(results, g, slot);
+				if (started < games) {
+					clear(g, (slot + 1) % PLAYERS);
+					started++;
+				} else {
+					drop(g);
+				}
+			}
+			slot = (slot + 1) % PLAYERS;
+		}
+		return results;
+	}
+
+	// helper method to record the game in lane g, which the player in the given
+	// slot just won the race to the finish of
+	private void record(SimulationResults results, int g, int slot) {
+		for (int s = 0; s < PLAYERS; s++) {
+			int color = (s - firstSlot[g] + PLAYERS) % PLAYERS;
+			endTurns[color] = turns[s][g];
+			endTokens[color] = tokens[s][g];
+		}
+
+		// ranks the players the way a GameState does, starting after the player
+		// who finished, so ties go to the same player
+		for (int k = 1; k <= PLAYERS; k++) {
+			Player p = ranking[(slot + k - firstSlot[g] + PLAYERS) % PLAYERS];
+			p.tokens = endTokens[p.playerColor.ordinal()];
+			heap.insert(p);
+		}
+		int winner = heap.delMax().playerColor.ordinal();
+		while (!heap.isEmpty()) {
+			heap.delMax();
+		}
+		// every turn of the simulation policy takes one spin
+		results.record(winner, turns[slot][g], endTurns, endTokens, endTurns);
+	}
+
+	// helper method to start a new game in lane g whose first player takes the
+	// given slot
+	private void clear(int g, int first) {
+		for (int s = 0; s < PLAYERS; s++) {
+			position[s][g] = 0;
+			tokens[s][g] = 0;
+			turns[s][g] = 0;
+		}
+		firstSlot[g] = first;
+	}
+
+	// helper method to stop playing lane g by moving the last lane into it
+	private void drop(int g) {
+		int last = --lanes;
+		for (int s = 0; s < PLAYERS; s++) {
+			position[s][g] = position[s][last];
+			tokens[s][g] = tokens[s][last];
+			turns[s][g] = turns[s][last];
+		}
+		rng[g] = rng[last];
+		firstSlot[g] = firstSlot[last];
+	}
+
+	// helper method to draw the nonzero seed of a lane
+	private int nextSeed() {
+		int x;
+		do {
+			x = seeds.nextInt();
+		} while (x == 0);
+		return x;
+	}
+
+	/**
+	 * Returns the name of the kernel turns are played with.
+	 *
+	 * @return kernel name
+	 */
+	public String getKernelName() {
+		return kernel.getClass().getSimpleName();
+	}
+
+	/**
+	 * Plays a number of games on one board with a GameEngine and with the
+	 * lockstep simulator, and prints how many games per second each played on one
+	 * thread. Each first plays a tenth as many games so its code is compiled
+	 * before it is timed. Accepts the number of games and the number of lanes.
+	 */
+	public static void main(String[] args) {
+		long games = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+		int lanes = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_LANES;
+		BoardModel board = new BoardModel(RandomSource.seeded(1));
+
+		GameEngine engine = new GameEngine();
+		engine.setRandomSource(RandomSource.seeded(1));
+		for (long i = 0; i < games / 10; i++) {
+			engine.play(board);
+		}
+		SimulationResults objects = new SimulationResults();
+		long start = System.nanoTime();
+		for (long i = 0; i < games; i++) {
+			objects.record(engine.play(board));
+		}
+		double engineSeconds = (System.nanoTime() - start) / 1e9;
+
+		LockstepSimulator[] simulators = { new LockstepSimulator(board, lanes, 1, new ScalarKernel()),
+				new LockstepSimulator(board, lanes, 1) };
+		System.out.printf("GameEngine:     %10.0f games/s, average length %.3f%n", games / engineSeconds,
+				objects.getAverageGameLength());
+		for (LockstepSimulator simulator : simulators) {
+			simulator.simulate(games / 10);
+			start = System.nanoTime();
+			SimulationResults results = simulator.simulate(games);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			System.out.printf("%-15s %10.0f games/s, average length %.3f (%.1fx)%n", simulator.getKernelName() + ":",
+					games / seconds, results.getAverageGameLength(), engineSeconds / seconds);
+		}
+	}
+}
@@ -0,0 +1,237 @@
+package app;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Counts non-negative whole numbers in buckets whose width grows with the value,
+ * the same way as an HdrHistogram. Values below 2<sup>p</sup> for a precision of
+ * p bits are counted exactly, and every doubling above that is split into
+ * 2<sup>p-1</sup> buckets of equal width, so any value is known to within a
+ * relative error of 2<sup>1-p</sup>. However many values are recorded, a
+ * histogram never takes more than a few thousand counts, and a quantile is
+ * found in a single pass over them.
+ * <p>
+ * A histogram is not thread safe. Each thread records into its own histogram,
+ * which needs no lock, and the histograms are merged once the threads are done.
+ * Histograms can be written to a stream and read back to merge the results of
+ * other processes. Merging only adds counts, so the result does not depend on
+ * the order histograms are merged in.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class LogHistogram {
+	/** Precision in bits used by default, for a relative error below 1.6%. */
+	public static final int DEFAULT_PRECISION = 7;
+
+	private final int precision;
+	private final int exact; // values below exact have a bucket of their own
+	private final int half; // buckets per doubling above exact
+	private final int maxBuckets;
+	private long[] counts = new long[0]; // grows up to maxBuckets as larger values arrive
+	private long count;
+	private long min = Long.MAX_VALUE;
+	private long max = Long.MIN_VALUE;
+
+	/**
+	 * Initializes an empty histogram with the default precision.
+	 */
+	public LogHistogram() {
+		this(DEFAULT_PRECISION);
+	}
+
+	/**
+	 * Initializes an empty histogram.
+	 *
+	 * @param precision number of significant bits kept of every value, from 1 to
+	 *                  20
+	 */
+	public LogHistogram(int precision) {
+		if (precision < 1 || precision > 20)
+			throw new IllegalArgumentException("Precision must be between 1 and 20 bits");
+		this.precision = precision;
+		exact = 1 << precision;
+		half = exact >> 1;
+		maxBuckets = index(Long.MAX_VALUE) + 1;
+	}
+
+	// helper method to find the bucket of a value
+	private int index(long value) {
+		if (value < exact)
+			return (int) value;
+		int shift = 64 - Long.numberOfLeadingZeros(value) - precision;
+		return exact + (shift - 1) * half + (int) ((value >>> shift) - half);
+	}
+
+	// helper method to find the lowest value of a bucket
+	private long lowest(int index) {
+		if (index < exact)
+			return index;
+		int shift = (index - exact) / half + 1;
+		return (long) (half + (index - exact) % half) << shift;
+	}
+
+	// helper method to find the highest value of a bucket
+	private long highest(int index) {
+		if (index < exact)
+			return index;
+		int shift = (index - exact) / half + 1;
+		return lowest(index) + (1L << shift) - 1;
+	}
+
+	/**
+	 * Records a value. Negative values are counted as 0.
+	 *
+	 * @param value value to record
+	 */
+	public void record(long value) {
+		record(value, 1);
+	}
+
+	/**
+	 * Records a value a number of times. Negative values are counted as 0.
+	 *
+	 * @param value value to record
+	 * @param times number of times the value occurred
+	 */
+	public void record(long value, long times) {
+		if (value < 0)
+			value = 0;
+		int i = index(value);
+		if (i >= counts.length)
+			counts = Arrays.copyOf(counts, Math.min(maxBuckets, Math.max(i + 1, 2 * counts.length)));
+		counts[i] += times;
+		count += times;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	/**
+	 * Adds every value recorded in other to this histogram.
+	 *
+	 * @param other histogram with the same precision
+	 */
+	public void merge(LogHistogram other) {
+		if (other.precision != precision)
+			throw new IllegalArgumentException("Cannot merge histograms of different precision");
+		if (other.counts.length > counts.length)
+			counts = Arrays.copyOf(counts, other.counts.length);
+		for (int i = 0; i < other.counts.length; i++) {
+			counts[i] += other.counts[i];
+		}
+		count += other.count;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	/**
+	 * Returns the number of values recorded.
+	 *
+	 * @return number of values
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the smallest value recorded.
+	 *
+	 * @return smallest value, or 0 if none was recorded
+	 */
+	public long getMin() {
+		return count == 0 ? 0 : min;
+	}
+
+	/**
+	 * Returns the largest value recorded.
+	 *
+	 * @return largest value, or 0 if none was recorded
+	 */
+	public long getMax() {
+		return count == 0 ? 0 : max;
+	}
+
+	/**
+	 * Returns the number of values recorded that fall in the same bucket as the
+	 * given value.
+	 *
+	 * @param value value
+	 * @return number of values counted with it
+	 */
+	public long getCountAt(long value) {
+		int i = index(Math.max(value, 0));
+		return i < counts.length ? counts[i] : 0;
+	}
+
+	/**
+	 * Returns the value below which the given fraction of the recorded values
+	 * lie, to within the precision of the histogram. The largest value that
+	 * shares a bucket with the quantile is returned, but never more than the
+	 * largest value recorded.
+	 *
+	 * @param q fraction between 0 and 1, like 0.5 for the median
+	 * @return quantile, or 0 if no value was recorded
+	 */
+	public long quantile(double q) {
+		if (count == 0)
+			return 0;
+		long rank = Math.max(1, (long) Math.ceil(q * count));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank)
+				return Math.max(min, Math.min(max, highest(i)));
+		}
+		return max;
+	}
+
+	/**
+	 * Writes the histogram to a stream. Only the buckets up to the highest one in
+	 * use are written.
+	 *
+	 * @param out stream to write to
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		int used = counts.length;
+		while (used > 0 && counts[used - 1] == 0)
+			used--;
+		out.writeByte(precision);
+		out.writeLong(count);
+		out.writeLong(min);
+		out.writeLong(max);
+		out.writeInt(used);
+		for (int i = 0; i < used; i++) {
+			out.writeLong(counts[i]);
+		}
+	}
+
+	/**
+	 * Reads a histogram written by {@link #writeTo(DataOutput)}.
+	 *
+	 * @param in stream to read from
+	 * @return histogram
+	 * @throws IOException if the stream cannot be read or does not hold a
+	 *                     histogram
+	 */
+	public static LogHistogram read(DataInput in) throws IOException {
+		int precision = in.readByte();
+		if (precision < 1 || precision > 20)
+			throw new IOException("Not a histogram");
+		LogHistogram h = new LogHistogram(precision);
+		h.count = in.readLong();
+		h.min = in.readLong();
+		h.max = in.readLong();
+		int used = in.readInt();
+		if (used < 0 || used > h.maxBuckets)
+			throw new IOException("Not a histogram");
+		h.counts = new long[used];
+		for (int i = 0; i < used; i++) {
+			h.counts[i] = in.readLong();
+		}
+		return h;
+	}
+}
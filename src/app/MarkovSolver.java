@@ -0,0 +1,291 @@
+package app;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Computes exactly how long a player takes to finish a board by treating the
+ * board as an absorbing Markov chain. A state is the square a player is on and
+ * the number of tokens they hold, and the finish is the only absorbing state.
+ * Each turn the probability of every state is pushed through the spinner: a
+ * first spin of 1-6, an optional second spin that never repeats the first, a
+ * move that stops at the finish when it overshoots, and then the chute or
+ * ladder on the square, where a ladder is only climbed if the player can
+ * afford it. The chain is stepped until the chance of still being on the board
+ * is negligible, which gives the full distribution of turns needed to finish.
+ * <p>
+ * Tokens are only part of the state when the TurnPolicy depends on them. They
+ * are then tracked exactly up to the cost of the most expensive ladder plus the
+ * number of squares on the board, and a player holding more is treated as
+ * holding exactly that many. Such a player can still afford every ladder unless
+ * a run of chutes costs them more tokens than there are squares on the board.
+ * <p>
+ * The solver checks every turn whether its thread was interrupted and stops
+ * with a CancellationException if it was, so a solve can be cancelled.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class MarkovSolver {
+	/** Probability of still being on the board at which the solver stops. */
+	static final double EPSILON = 1e-12;
+	/** Most turns the solver steps through before it stops. */
+	static final int MAX_TURNS = 1_000_000;
+
+	private final JumpTable jumps;
+	private final TurnPolicy policy;
+	private final int finish;
+	private final int tokenCap;
+
+	private int[] start; // outcomes of state i are start[i] to start[i + 1] - 1
+	private int[] target; // state reached by an outcome, or -1 for the finish
+	private double[] chance; // probability of an outcome
+
+	private double[] finishedOn; // finishedOn[t] = probability of finishing on turn t
+	private int turns;
+	private double expectedTurns;
+
+	/**
+	 * Solves the given board for a player following the simulation policy.
+	 *
+	 * @param board board to solve
+	 */
+	public MarkovSolver(BoardModel board) {
+		this(board, TurnPolicy.SIMULATION);
+	}
+
+	/**
+	 * Solves the given board for a player following the given policy.
+	 *
+	 * @param board  board to solve
+	 * @param policy choices the player makes during their turns
+	 */
+	public MarkovSolver(BoardModel board, TurnPolicy policy) {
+		this.jumps = board.getJumpTable();
+		this.policy = policy;
+		this.finish = jumps.finish();
+		this.tokenCap = policy.dependsOnTokens() ? maxLadderCost() + finish : 0;
+		solve();
+	}
+
+	// helper method to find the cost of the most expensive ladder
+	private int maxLadderCost() {
+		int max = 0;
+		for (int v = 0; v < finish; v++) {
+			if (jumps.kind(v) == JumpTable.LADDER)
+				max = Math.max(max, (jumps.weight(v) + 1) / 2);
+		}
+		return max;
+	}
+
+	// helper method to list the outcomes of a turn from every state, so stepping
+	// the chain does not need to ask the policy or the jump table again
+	private void buildTransitions(int states, int width) {
+		start = new int[states + 1];
+		target = new int[states * 30];
+		chance = new double[states * 30];
+		int n = 0;
+
+		for (int i = 0; i < states; i++) {
+			start[i] = n;
+			int square = i / width;
+			int tokens = i % width;
+			for (int first = 1; first <= 6; first++) {
+				if (policy.respin(square, tokens, first)) {
+					for (int second = 1; second <= 6; second++) {
+						if (second != first)
+							n = addTransition(i, land(square, tokens, second, width), 1.0 / 30, n);
+					}
+				} else {
+					n = addTransition(i, land(square, tokens, first, width), 1.0 / 6, n);
+				}
+			}
+		}
+		start[states] = n;
+	}
+
+	// helper method to add an outcome to state i, combining it with an earlier
+	// outcome that leads to the same state
+	private int addTransition(int i, int to, double p, int n) {
+		for (int k = start[i]; k < n; k++) {
+			if (target[k] == to) {
+				chance[k] += p;
+				return n;
+			}
+		}
+		target[n] = to;
+		chance[n] = p;
+		return n + 1;
+	}
+
+	// helper method to move a player by one spin and take the chute or ladder they
+	// land on, returning the state they end up in or -1 if they reached the finish
+	private int land(int square, int tokens, int spin, int width) {
+		int to = square + spin;
+		tokens += jumps.tokensForMove(square, to);
+		if (to > finish)
+			to = finish;
+
+		switch (jumps.kind(to)) {
+		case JumpTable.LADDER:
+			if (jumps.canTakeLadder(to, tokens) && policy.takeLadder(to, Math.min(tokens, tokenCap))) {
+				tokens += jumps.weight(to);
+				to = jumps.target(to);
+			}
+			break;
+		case JumpTable.CHUTE:
+			tokens = -jumps.weight(to) < tokens ? tokens + jumps.weight(to) : 0;
+			to = jumps.target(to);
+			break;
+		default:
+			break;
+		}
+
+		if (to == finish)
+			return -1;
+		return to * width + Math.min(tokens, tokenCap);
+	}
+
+	// steps the chain one turn at a time until the player has almost surely
+	// finished
+	private void solve() {
+		int width = tokenCap + 1;
+		int states = finish * width;
+		buildTransitions(states, width);
+
+		double[] current = new double[states];
+		double[] next = new double[states];
+		finishedOn = new double[64];
+		current[0] = 1.0;
+
+		double remaining = 1.0;
+		int t = 0;
+		while (remaining > EPSILON && t < MAX_TURNS) {
+			if (Thread.currentThread().isInterrupted())
+				throw new CancellationException("Solving the board was interrupted");
+			t++;
+			double absorbed = 0;
+			for (int i = 0; i < states; i++) {
+				double p = current[i];
+				if (p == 0)
+					continue;
+				current[i] = 0;
+				for (int k = start[i]; k < start[i + 1]; k++) {
+					if (target[k] < 0)
+						absorbed += p * chance[k];
+					else
+						next[target[k]] += p * chance[k];
+				}
+			}
+
+			if (t == finishedOn.length)
+				finishedOn = Arrays.copyOf(finishedOn, 2 * t);
+			finishedOn[t] = absorbed;
+			remaining -= absorbed;
+
+			double[] swap = current;
+			current = next;
+			next = swap;
+		}
+
+		turns = t;
+		expectedTurns = 0;
+		for (int k = 1; k <= turns; k++) {
+			expectedTurns += k * finishedOn[k];
+		}
+		start = null;
+		target = null;
+		chance = null;
+	}
+
+	/**
+	 * Returns the expected number of turns a single player takes to finish.
+	 *
+	 * @return expected turns
+	 */
+	public double expectedTurns() {
+		return expectedTurns;
+	}
+
+	/**
+	 * Returns the probability that a single player finishes on the given turn.
+	 *
+	 * @param turn turn number, starting at 1
+	 * @return probability
+	 */
+	public double probabilityOfFinishingOn(int turn) {
+		return turn > 0 && turn <= turns ? finishedOn[turn] : 0;
+	}
+
+	/**
+	 * Returns the distribution of turns a single player takes to finish, where
+	 * entry t is the probability of finishing on turn t.
+	 *
+	 * @return turn-count distribution
+	 */
+	public double[] turnDistribution() {
+		return Arrays.copyOf(finishedOn, turns + 1);
+	}
+
+	/**
+	 * Returns the distribution of the length of a game between the given number
+	 * of players, measured in turns of the player who finishes. Players move
+	 * independently, so a game lasts longer than t turns only if every player
+	 * does.
+	 *
+	 * @param players number of players
+	 * @return game length distribution
+	 */
+	public double[] gameLengthDistribution(int players) {
+		double[] dist = new double[turns + 1];
+		double stillPlaying = 1.0; // probability that one player has not finished after t turns
+		double before = 1.0; // probability that nobody has finished after t - 1 turns
+		for (int t = 1; t <= turns; t++) {
+			stillPlaying -= finishedOn[t];
+			double after = Math.pow(Math.max(stillPlaying, 0), players);
+			dist[t] = before - after;
+			before = after;
+		}
+		return dist;
+	}
+
+	/**
+	 * Returns the expected length of a game between the given number of players,
+	 * measured in turns of the player who finishes.
+	 *
+	 * @param players number of players
+	 * @return expected game length
+	 */
+	public double expectedGameLength(int players) {
+		double[] dist = gameLengthDistribution(players);
+		double expected = 0;
+		for (int t = 1; t < dist.length; t++) {
+			expected += t * dist[t];
+		}
+		return expected;
+	}
+
+	/**
+	 * Returns the number of turns the solver stepped through.
+	 *
+	 * @return number of turns solved
+	 */
+	public int turnsSolved() {
+		return turns;
+	}
+
+	/**
+	 * Solves a newly generated board and prints its expected game lengths.
+	 */
+	public static void main(String[] args) {
+		BoardModel board = new BoardModel();
+		for (TurnPolicy policy : new TurnPolicy[] { TurnPolicy.SIMULATION, TurnPolicy.GREEDY }) {
+			long start = System.nanoTime();
+			MarkovSolver solver = new MarkovSolver(board, policy);
+			double millis = (System.nanoTime() - start) / 1e6;
+
+			System.out.printf("Expected turns %.3f (one player), %.3f (4 players); solved %d turns in %.2f ms%n",
+					solver.expectedTurns(), solver.expectedGameLength(4), solver.turnsSolved(), millis);
+		}
+	}
+}
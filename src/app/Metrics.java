@@ -0,0 +1,365 @@
+package app;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counts and times the phases of board generation, of a turn, and of painting
+ * the board, so a long simulation run can be profiled without a profiler.
+ * <p>
+ * Metrics are off unless the JVM is started with <code>-Dapp.metrics=true</code>.
+ * {@link #ENABLED} is a static final flag, so when it is false the JIT compiles
+ * every <code>if (Metrics.ENABLED)</code> at the call sites away and the phases
+ * run exactly as if they were not measured. When it is true:
+ * <ul>
+ * <li>every counter and timer adds to LongAdders, which threads of a batch run
+ * can add to without contending on one counter</li>
+ * <li>every timed phase is also committed as a {@link PhaseEvent} to JDK Flight
+ * Recorder if a recording is running, e.g. with
+ * <code>-XX:StartFlightRecording</code></li>
+ * <li>the registry is registered with the platform MBean server as
+ * <code>app:type=Metrics</code>, see {@link MetricsMXBean}</li>
+ * <li>if <code>-Dapp.metrics.dump=seconds</code> is set, every metric is dumped
+ * that often to standard error, or to the file named by
+ * <code>-Dapp.metrics.file</code>, as text or as JSON if
+ * <code>-Dapp.metrics.format=json</code></li>
+ * </ul>
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public final class Metrics {
+	/** True if metrics are recorded. */
+	public static final boolean ENABLED = Boolean.getBoolean("app.metrics");
+
+	private static final ConcurrentSkipListMap<String, Counter> counters = new ConcurrentSkipListMap<>();
+	private static final ConcurrentSkipListMap<String, Timer> timers = new ConcurrentSkipListMap<>();
+
+	/** Time spent adding the chutes of a new board. */
+	public static final Timer ADD_CHUTES = timer("generation.addChutes");
+	/** Time spent adding the ladders of a new board. */
+	public static final Timer ADD_LADDERS = timer("generation.addLadders");
+	/** Time spent finding the shortest path of a new board. */
+	public static final Timer SHORTEST_PATH = timer("generation.bfs");
+	/** Number of checks whether a ladder would be part of a cycle. */
+	public static final Counter IS_CYCLE = counter("generation.isCycle");
+	/** Time spent spinning. */
+	public static final Timer SPIN = timer("turn.spin");
+	/** Time spent moving by the latest spin. */
+	public static final Timer MOVE = timer("turn.move");
+	/** Time spent taking chutes and ladders. */
+	public static final Timer CHUTE_OR_LADDER = timer("turn.chuteOrLadder");
+	/** Time spent ending turns, including ranking the players. */
+	public static final Timer END_TURN = timer("turn.endTurn");
+	/** Time spent painting the board. */
+	public static final Timer PAINT = timer("paint.board");
+
+	static {
+		if (ENABLED)
+			start();
+	}
+
+	private Metrics() {
+	}
+
+	/**
+	 * A count of events that can be added to from any thread.
+	 */
+	public static final class Counter {
+		private final LongAdder count = new LongAdder();
+
+		/**
+		 * Adds one to the count.
+		 */
+		public void increment() {
+			count.increment();
+		}
+
+		/**
+		 * Adds n to the count.
+		 *
+		 * @param n amount to add
+		 */
+		public void add(long n) {
+			count.add(n);
+		}
+
+		/**
+		 * Returns the count.
+		 *
+		 * @return count
+		 */
+		public long get() {
+			return count.sum();
+		}
+
+		void reset() {
+			count.reset();
+		}
+	}
+
+	/**
+	 * The number of times a phase ran and the total and longest time it took.
+	 * Starting a phase begins a {@link PhaseEvent}, which recording the phase
+	 * ends and commits:
+	 *
+	 * <pre>
+	 * PhaseEvent phase = Metrics.ENABLED ? Metrics.MOVE.start() : null;
+	 * ...
+	 * if (phase != null)
+	 * 	Metrics.MOVE.record(phase);
+	 * </pre>
+	 */
+	public static final class Timer {
+		private final String name;
+		private final LongAdder count = new LongAdder();
+		private final LongAdder totalNanos = new LongAdder();
+		private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+		Timer(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Starts a run of the phase.
+		 *
+		 * @return event of the run, to pass to {@link #record(PhaseEvent)}
+		 */
+		public PhaseEvent start() {
+			PhaseEvent event = new PhaseEvent();
+			event.phase = name;
+			event.startNanos = System.nanoTime();
+			event.begin();
+			return event;
+		}
+
+		/**
+		 * Records a run of the phase that has ended, and commits its event if a
+		 * recording wants it.
+		 *
+		 * @param event event returned by {@link #start()} when the run started
+		 */
+		public void record(PhaseEvent event) {
+			event.end();
+			long elapsed = System.nanoTime() - event.startNanos;
+			count.increment();
+			totalNanos.add(elapsed);
+			maxNanos.accumulate(elapsed);
+
+			if (event.shouldCommit())
+				event.commit();
+		}
+
+		/**
+		 * Returns the number of runs recorded.
+		 *
+		 * @return count
+		 */
+		public long getCount() {
+			return count.sum();
+		}
+
+		/**
+		 * Returns the total time of every run recorded.
+		 *
+		 * @return total time in nanoseconds
+		 */
+		public long getTotalNanos() {
+			return totalNanos.sum();
+		}
+
+		/**
+		 * Returns the time of the longest run recorded.
+		 *
+		 * @return longest time in nanoseconds
+		 */
+		public long getMaxNanos() {
+			return maxNanos.get();
+		}
+
+		void reset() {
+			count.reset();
+			totalNanos.reset();
+			maxNanos.reset();
+		}
+	}
+
+	/**
+	 * Returns the counter with the given name, creating it if there is none.
+	 *
+	 * @param name name of the counter
+	 * @return counter
+	 */
+	public static Counter counter(String name) {
+		return counters.computeIfAbsent(name, n -> new Counter());
+	}
+
+	/**
+	 * Returns the timer with the given name, creating it if there is none.
+	 *
+	 * @param name name of the timer
+	 * @return timer
+	 */
+	public static Timer timer(String name) {
+		return timers.computeIfAbsent(name, Timer::new);
+	}
+
+	/**
+	 * Returns every count by name: the counters, and the number of runs and the
+	 * total and longest time in nanoseconds of every timer.
+	 *
+	 * @return counts in order of name
+	 */
+	public static Map<String, Long> snapshot() {
+		Map<String, Long> map = new TreeMap<>();
+		for (Map.Entry<String, Counter> e : counters.entrySet()) {
+			map.put(e.getKey(), e.getValue().get());
+		}
+		for (Map.Entry<String, Timer> e : timers.entrySet()) {
+			Timer t = e.getValue();
+			map.put(e.getKey() + ".count", t.getCount());
+			map.put(e.getKey() + ".totalNanos", t.getTotalNanos());
+			map.put(e.getKey() + ".maxNanos", t.getMaxNanos());
+		}
+		return map;
+	}
+
+	/**
+	 * Sets every counter and timer back to zero.
+	 */
+	public static void reset() {
+		for (Counter c : counters.values()) {
+			c.reset();
+		}
+		for (Timer t : timers.values()) {
+			t.reset();
+		}
+	}
+
+	/**
+	 * Returns every metric as text, one per line, with the mean and longest time
+	 * of the timers in microseconds.
+	 *
+	 * @return metrics as text
+	 */
+	public static String toText() {
+		StringBuilder sb = new StringBuilder();
+		for (Map.Entry<String, Counter> e : counters.entrySet()) {
+			sb.append(String.format("%-28s %12d%n", e.getKey(), e.getValue().get()));
+		}
+		for (Map.Entry<String, Timer> e : timers.entrySet()) {
+			Timer t = e.getValue();
+			long count = t.getCount();
+			double mean = count == 0 ? 0 : t.getTotalNanos() / 1e3 / count;
+			sb.append(String.format("%-28s %12d  mean %10.2f us  max %10.2f us  total %10.2f ms%n", e.getKey(),
+					count, mean, t.getMaxNanos() / 1e3, t.getTotalNanos() / 1e6));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns every metric as one JSON object, with the counters by name and the
+	 * count and total and longest time in nanoseconds of the timers by name.
+	 *
+	 * @return metrics as JSON
+	 */
+	public static String toJson() {
+		StringBuilder sb = new StringBuilder("{\"counters\":{");
+		String comma = "";
+		for (Map.Entry<String, Counter> e : counters.entrySet()) {
+			sb.append(comma).append('"').append(e.getKey()).append("\":").append(e.getValue().get());
+			comma = ",";
+		}
+		sb.append("},\"timers\":{");
+		comma = "";
+		for (Map.Entry<String, Timer> e : timers.entrySet()) {
+			Timer t = e.getValue();
+			sb.append(comma).append('"').append(e.getKey()).append("\":{\"count\":").append(t.getCount())
+					.append(",\"totalNanos\":").append(t.getTotalNanos()).append(",\"maxNanos\":")
+					.append(t.getMaxNanos()).append('}');
+			comma = ",";
+		}
+		return sb.append("}}").toString();
+	}
+
+	// registers the MXBean and starts the periodic dump if one is asked for
+	private static void start() {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), new ObjectName("app:type=Metrics"));
+		} catch (JMException e) {
+			System.err.println("Could not register metrics with JMX: " + e);
+		}
+
+		long seconds = Long.getLong("app.metrics.dump", 0);
+		if (seconds <= 0)
+			return;
+		boolean json = "json".equalsIgnoreCase(System.getProperty("app.metrics.format"));
+		String file = System.getProperty("app.metrics.file");
+		ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "Metrics dump");
+			t.setDaemon(true);
+			return t;
+		});
+		dumper.scheduleAtFixedRate(() -> dump(json, file), seconds, seconds, TimeUnit.SECONDS);
+	}
+
+	// helper method to write every metric to standard error, or over the file by
+	// writing a new file and renaming it, so a reader never sees half a dump
+	private static void dump(boolean json, String file) {
+		String text = json ? toJson() + System.lineSeparator() : toText();
+		if (file == null) {
+			PrintStream err = System.err;
+			err.print(text);
+			err.flush();
+			return;
+		}
+		try {
+			Path path = Paths.get(file);
+			Path temp = Paths.get(file + ".tmp");
+			Files.write(temp, text.getBytes(StandardCharsets.UTF_8));
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			System.err.println("Could not dump metrics: " + e);
+		}
+	}
+
+	// the registry as seen through JMX
+	private static final class Bean implements MetricsMXBean {
+		@Override
+		public Map<String, Long> getCounts() {
+			return snapshot();
+		}
+
+		@Override
+		public String getText() {
+			return toText();
+		}
+
+		@Override
+		public String getJson() {
+			return toJson();
+		}
+
+		@Override
+		public void reset() {
+			Metrics.reset();
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package app;
+
+import java.util.Map;
+
+/**
+ * Management interface of the {@link Metrics} registry, registered with the
+ * platform MBean server as <code>app:type=Metrics</code> so the metrics of a
+ * running simulation can be read with JConsole or any other JMX client.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public interface MetricsMXBean {
+	/**
+	 * Returns every count by name, as from {@link Metrics#snapshot()}.
+	 *
+	 * @return counts by name
+	 */
+	Map<String, Long> getCounts();
+
+	/**
+	 * Returns every metric as text.
+	 *
+	 * @return metrics as text
+	 */
+	String getText();
+
+	/**
+	 * Returns every metric as JSON.
+	 *
+	 * @return metrics as JSON
+	 */
+	String getJson();
+
+	/**
+	 * Sets every counter and timer back to zero.
+	 */
+	void reset();
+}
@@ -0,0 +1,272 @@
+package app;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Finds the choices that earn a player the most tokens by the end of the game
+ * on one board, by value iteration over the state of a player: the square they
+ * stand on, the tokens they hold, and for the choice to spin again, the value
+ * of their first spin. The choices are then kept in a table of one byte per
+ * square and number of tokens, so looking one up takes O(1) time.
+ * <p>
+ * A game ends when any player reaches the finish. The solver plays a single
+ * player and treats the others as ending the game after each turn with a fixed
+ * probability 1 - &gamma;, which makes the value of a state the expected tokens
+ * the player holds when the game ends, discounted by &gamma; per turn. By
+ * default &gamma; is chosen so the game lasts as long on average as one between
+ * the other three players of a four player game playing the simulation policy.
+ * <p>
+ * Tokens are tracked exactly up to the cost of the most expensive ladder plus
+ * the number of squares, the same way as in the {@link MarkovSolver}. Above
+ * that every ladder is affordable and no chute takes all of a player's tokens,
+ * so more tokens only add to the value and never change a choice.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class OptimalPolicy implements TurnPolicy {
+	/** Largest change of any value at which value iteration stops. */
+	static final double EPSILON = 1e-9;
+	/** Most states the solver will take on. */
+	static final int MAX_STATES = 50_000_000;
+
+	// bits of a table entry: bit spin - 1 is set to spin again after that first
+	// spin, and TAKE_LADDER to climb the ladder on the square
+	private static final int TAKE_LADDER = 1 << 6;
+
+	private final JumpTable jumps;
+	private final int finish;
+	private final int tokenCap;
+	private final int width;
+	private final double discount;
+
+	private final double[] value; // value[square * width + tokens]
+	private final byte[] table;
+	private int sweeps;
+
+	/**
+	 * Solves the given board for a player in a four player game. Solving checks
+	 * at every square whether its thread was interrupted, so a solve that is no
+	 * longer wanted can be stopped by cancelling its Future.
+	 *
+	 * @param board board to solve
+	 * @throws CancellationException if the thread is interrupted while solving
+	 */
+	public OptimalPolicy(BoardModel board) {
+		this(board, discountFor(board, 4));
+	}
+
+	/**
+	 * Solves the given board for a player whose game goes on after each turn
+	 * with the given probability.
+	 *
+	 * @param board    board to solve
+	 * @param discount probability the game goes on after a turn, below 1
+	 * @throws CancellationException if the thread is interrupted while solving
+	 */
+	public OptimalPolicy(BoardModel board, double discount) {
+		if (!(discount > 0 && discount < 1))
+			throw new IllegalArgumentException("Discount must be between 0 and 1");
+		this.jumps = board.getJumpTable();
+		this.finish = jumps.finish();
+		this.discount = discount;
+
+		int maxCost = 0;
+		for (int v = 0; v < finish; v++) {
+			if (jumps.kind(v) == JumpTable.LADDER)
+				maxCost = Math.max(maxCost, (jumps.weight(v) + 1) / 2);
+		}
+		tokenCap = maxCost + finish;
+		width = tokenCap + 1;
+		if ((long) finish * width > MAX_STATES)
+			throw new IllegalArgumentException("Board has too many squares to solve");
+
+		value = new double[finish * width];
+		table = new byte[(finish + 1) * width];
+		solve();
+	}
+
+	/**
+	 * Returns the discount for a player in a game with the given number of
+	 * players: the chance that none of the others finishes on a turn, if their
+	 * games lasted as long as one between them playing the simulation policy.
+	 *
+	 * @param board   board played on
+	 * @param players number of players including the one solved for
+	 * @return discount per turn
+	 */
+	public static double discountFor(BoardModel board, int players) {
+		if (players < 2)
+			return 0.999;
+		double length = new MarkovSolver(board).expectedGameLength(players - 1);
+		return Math.min(0.999, 1 - 1 / length);
+	}
+
+	// helper method to find the value of a state, including the finish and
+	// states with more tokens than are tracked
+	private double valueOf(int square, int tokens) {
+		if (square == finish)
+			return tokens;
+		if (tokens > tokenCap)
+			return value[square * width + tokenCap] + tokens - tokenCap;
+		return value[square * width + tokens];
+	}
+
+	// helper method to find the value of a state at the end of a turn, when the
+	// game may end before the player's next turn
+	private double afterTurn(int square, int tokens) {
+		if (square == finish)
+			return tokens;
+		return (1 - discount) * tokens + discount * valueOf(square, tokens);
+	}
+
+	// helper method to find the value of moving by one spin and taking the chute
+	// on the square, or the ladder if climbing it is worth more. Records the
+	// ladder choice in the table if record is set.
+	private double land(int square, int tokens, int spin, boolean record) {
+		int to = square + spin;
+		tokens += jumps.tokensForMove(square, to);
+		if (to > finish)
+			to = finish;
+
+		switch (jumps.kind(to)) {
+		case JumpTable.LADDER:
+			double stay = afterTurn(to, tokens);
+			if (!jumps.canTakeLadder(to, tokens))
+				return stay;
+			double climb = afterTurn(jumps.target(to), tokens + jumps.weight(to));
+			if (record && climb > stay)
+				table[to * width + Math.min(tokens, tokenCap)] |= TAKE_LADDER;
+			return Math.max(stay, climb);
+		case JumpTable.CHUTE:
+			tokens = -jumps.weight(to) < tokens ? tokens + jumps.weight(to) : 0;
+			return afterTurn(jumps.target(to), tokens);
+		default:
+			return afterTurn(to, tokens);
+		}
+	}
+
+	// helper method to find the value of a state at the start of a turn, where
+	// the player spins again whenever the average of the other five spins is
+	// worth more than the first. Records the choices if record is set.
+	private double turn(int square, int tokens, double[] outcome, boolean record) {
+		double sum = 0;
+		for (int spin = 1; spin <= 6; spin++) {
+			outcome[spin] = land(square, tokens, spin, record);
+			sum += outcome[spin];
+		}
+
+		double total = 0;
+		for (int first = 1; first <= 6; first++) {
+			double again = (sum - outcome[first]) / 5;
+			if (again > outcome[first]) {
+				total += again;
+				if (record)
+					table[square * width + tokens] |= 1 << (first - 1);
+			} else {
+				total += outcome[first];
+			}
+		}
+		return total / 6;
+	}
+
+	// runs value iteration until no value changes by more than EPSILON. Players
+	// mostly move forward, so sweeping from the finish back to the start lets
+	// most values use the new values of the squares after them in the same
+	// sweep.
+	private void solve() {
+		double[] outcome = new double[7];
+		double change;
+		do {
+			change = 0;
+			for (int square = finish - 1; square >= 0; square--) {
+				if (Thread.currentThread().isInterrupted())
+					throw new CancellationException("Solving the board was interrupted");
+				for (int tokens = 0; tokens <= tokenCap; tokens++) {
+					int i = square * width + tokens;
+					double v = turn(square, tokens, outcome, false);
+					change = Math.max(change, Math.abs(v - value[i]));
+					value[i] = v;
+				}
+			}
+			sweeps++;
+		} while (change > EPSILON);
+
+		for (int square = 0; square < finish; square++) {
+			for (int tokens = 0; tokens <= tokenCap; tokens++) {
+				turn(square, tokens, outcome, true);
+			}
+		}
+	}
+
+	@Override
+	public boolean respin(int square, int tokens, int spin) {
+		return (table[square * width + Math.min(tokens, tokenCap)] & (1 << (spin - 1))) != 0;
+	}
+
+	@Override
+	public boolean takeLadder(int square, int tokens) {
+		return (table[square * width + Math.min(tokens, tokenCap)] & TAKE_LADDER) != 0;
+	}
+
+	/**
+	 * Returns the tokens a player on the given square with the given tokens is
+	 * expected to hold when the game ends, following this policy.
+	 *
+	 * @param square square at the start of the player's turn
+	 * @param tokens tokens held by the player
+	 * @return expected tokens at the end of the game
+	 */
+	public double expectedTokens(int square, int tokens) {
+		return valueOf(square, tokens);
+	}
+
+	/**
+	 * Returns the probability that the game goes on after a turn used to solve
+	 * the board.
+	 *
+	 * @return discount per turn
+	 */
+	public double getDiscount() {
+		return discount;
+	}
+
+	/**
+	 * Returns the number of sweeps over every state value iteration took.
+	 *
+	 * @return number of sweeps
+	 */
+	public int sweeps() {
+		return sweeps;
+	}
+
+	/**
+	 * Solves a newly generated board and plays games on it with the simulation,
+	 * greedy, and optimal policies. Accepts the number of games per policy.
+	 */
+	public static void main(String[] args) {
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+		BoardModel board = new BoardModel();
+
+		long start = System.nanoTime();
+		OptimalPolicy optimal = new OptimalPolicy(board);
+		double millis = (System.nanoTime() - start) / 1e6;
+		System.out.printf("Solved in %.1f ms (%d sweeps, discount %.4f): %.2f tokens expected from the start%n",
+				millis, optimal.sweeps(), optimal.getDiscount(), optimal.expectedTokens(0, 0));
+
+		String[] names = { "simulation", "greedy", "optimal" };
+		TurnPolicy[] policies = { TurnPolicy.SIMULATION, TurnPolicy.GREEDY, optimal };
+		for (int k = 0; k < policies.length; k++) {
+			GameEngine engine = new GameEngine(policies[k]);
+			engine.setRandomSource(RandomSource.seeded(k));
+			long tokens = 0;
+			for (int i = 0; i < games; i++) {
+				for (Player p : engine.play(board).getPlayers()) {
+					tokens += p.tokens;
+				}
+			}
+			System.out.printf("%-10s %.2f tokens per player at the end of a game%n", names[k],
+					(double) tokens / games / PlayerColor.values().length);
+		}
+	}
+}
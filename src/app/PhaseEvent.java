@@ -0,0 +1,33 @@
+package app;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event for one run of a phase timed by a
+ * {@link Metrics.Timer}, such as adding the chutes of a board or moving a
+ * player. The event begins when the timer starts the phase and ends when the
+ * phase is recorded, so its duration is the time of the phase and the usual
+ * duration views and thresholds apply to it. Events are only committed while
+ * metrics are enabled and a recording is running. Stack traces are left out,
+ * since the phase names where the time went.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+@Name("app.Phase")
+@Label("Phase")
+@Category("Chutes and Ladders")
+@Description("A phase of board generation, of a turn, or of painting")
+@StackTrace(false)
+class PhaseEvent extends jdk.jfr.Event {
+	@Label("Phase")
+	String phase;
+
+	// System.nanoTime() when the phase started, for the Metrics totals; transient
+	// fields are not written to the recording
+	transient long startNanos;
+}
@@ -3,9 +3,6 @@ package app;
 
 import java.awt.Color;
 
-import edu.princeton.cs.algs4.Queue;
-import edu.princeton.cs.algs4.StdRandom;
-
 /**
  * Represents a current player on the board. Each player (max of 4) will have a distinct PlayerColor and
  * methods to navigate the board.
@@ -20,16 +17,28 @@ public class Player implements Comparable<Player>{
 	protected int nextPosition;
 	protected int latestSpin;
 	
-	protected Queue<Integer> playerPath;
+	protected PlayerPath playerPath = new PlayerPath();
 	protected int tokens;
 	protected int spinTimes;
 	protected int totalSpins;
 	protected int turns;
+	protected int finish = BoardGenerator.DEFAULT_SQUARES;
+	
+	protected RandomSource random;
 	
 	protected int size;
 	protected int offsetX;
 	protected int offsetY;
 	
+	/**
+	 * Initializes a player that is never drawn, for games played without a board
+	 * display.
+	 * @param color from PlayerColor Enum
+	 */
+	public Player(PlayerColor color) {
+		this(color, 0);
+	}
+	
 	/**
 	 * Initializes all player fields;
 	 * @param color from PlayerColor Enum
@@ -37,6 +46,7 @@ public class Player implements Comparable<Player>{
 	public Player(PlayerColor color, int squareSize) {
 		this.playerColor = color;
 		this.size = squareSize / 4;
+		this.random = RandomSource.GLOBAL;
 		resetPlayer();
 		
 		//offset positioning for drawing players on an individual square of the board
@@ -68,9 +78,10 @@ public class Player implements Comparable<Player>{
 		nextPosition = -1;
 		latestSpin = -1;
 		
-		playerPath = new Queue<>();
+		playerPath.clear();
 		
 		spinTimes = 0;
+		totalSpins = 0;
 		tokens = 0;
 		turns = 0;
 	}
@@ -83,29 +94,44 @@ public class Player implements Comparable<Player>{
 		if (spinTimes == 1) {
 			int secondSpin = 0;
 			do {
-				secondSpin = StdRandom.uniform(1, 7);
+				secondSpin = random.uniform(1, 7);
 			} while(secondSpin == latestSpin);
 			latestSpin = secondSpin;
 		} else {
-			latestSpin = StdRandom.uniform(1, 7);
+			latestSpin = random.uniform(1, 7);
 		}
 		nextPosition = currentPosition + latestSpin;
 	}
 	
+	/**
+	 * Sets the random source the player's spinner uses.
+	 * 
+	 * @param random random source
+	 */
+	public void setRandomSource(RandomSource random) {
+		this.random = random;
+	}
+	
 	/**
 	 * Moves the player's <code>currentPosition</code> to the specified <code>nextPosition</code>.
 	 * 
 	 * @param moves number of positions the player should move
 	 */
 	public void move() {
-		if (nextPosition >= 100) {
-			currentPosition = 100;
-			playerPath.enqueue(currentPosition);
-		}
-		else {
-			currentPosition = nextPosition;
-			playerPath.enqueue(currentPosition);
-		}
+		int to = Math.min(nextPosition, finish);
+		playerPath.move(to - currentPosition);
+		currentPosition = to;
+	}
+	
+	/**
+	 * Sends the player up the ladder or down the chute they are standing on.
+	 * 
+	 * @param target square the ladder or chute leads to
+	 */
+	public void jump(int target) {
+		playerPath.jump();
+		nextPosition = target;
+		currentPosition = target;
 	}
 	
 	/**
@@ -137,12 +163,12 @@ public class Player implements Comparable<Player>{
 	}
 	
 	/**
-	 * Checks if the player is at position 99 which indicates that the player has reached the finish line and won.
+	 * Checks if the player is on the finish square which indicates that the player has reached the finish line and won.
 	 * 
-	 * @return true if player's at position 99, false if not
+	 * @return true if player's on the finish square, false if not
 	 */
 	public boolean hasFinished() {
-		return currentPosition == 100;
+		return currentPosition == finish;
 	}
 
 	@Override
@@ -0,0 +1,156 @@
+package app;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * The squares a player went through in a game, stored as one byte per move.
+ * Each byte holds the number of squares the move went forward (1-6, or fewer
+ * for a spin that reached the finish) in its low three bits, and a flag that
+ * the player took the chute or ladder they landed on in the fourth. The square
+ * a chute or ladder leads to is looked up in the board's JumpTable, so it is
+ * not stored.
+ * <p>
+ * The bytes are kept in an array that doubles when full and is kept when the
+ * path is cleared, so once a player has played a game as long as the next one
+ * recording a move creates no objects. Iterating gives the same squares as the
+ * Queue of squares players used to keep: the square landed on after every
+ * move, followed by the square reached if a chute or ladder was taken. The
+ * iterator is a {@link PrimitiveIterator.OfInt}, so squares can be read
+ * without boxing them.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class PlayerPath implements Iterable<Integer> {
+	private static final int STEP = 0x07;
+	private static final int JUMP = 0x08;
+	private static final int INITIAL_CAPACITY = 64;
+
+	private byte[] moves = new byte[INITIAL_CAPACITY];
+	private int size;
+	private JumpTable jumps;
+
+	/**
+	 * Sets the board whose chutes and ladders the path's jumps are looked up in.
+	 *
+	 * @param jumps jump table of the board being played
+	 */
+	public void setJumpTable(JumpTable jumps) {
+		this.jumps = jumps;
+	}
+
+	/**
+	 * Removes every move, keeping the memory they took for the next game.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Records a move forward by the given number of squares.
+	 *
+	 * @param step squares moved, 1 to 6
+	 */
+	public void move(int step) {
+		if (step < 0 || step > STEP)
+			throw new IllegalArgumentException("Not a move: " + step);
+		if (size == moves.length)
+			moves = Arrays.copyOf(moves, size * 2);
+		moves[size++] = (byte) step;
+	}
+
+	/**
+	 * Records that the player took the chute or ladder on the square of their
+	 * last move.
+	 */
+	public void jump() {
+		if (size == 0)
+			throw new IllegalStateException("No move to jump from");
+		if (jumps == null)
+			throw new IllegalStateException("No jump table to look the jump up in");
+		moves[size - 1] |= JUMP;
+	}
+
+	/**
+	 * Returns the number of moves in the path.
+	 *
+	 * @return number of moves
+	 */
+	public int moves() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of squares in the path, counting both ends of every
+	 * chute or ladder taken.
+	 *
+	 * @return number of squares
+	 */
+	public int size() {
+		int squares = size;
+		for (int i = 0; i < size; i++) {
+			squares += (moves[i] & JUMP) >>> 3;
+		}
+		return squares;
+	}
+
+	/**
+	 * Checks if the path has no moves.
+	 *
+	 * @return true if no move was recorded
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns an iterator over the squares of the path, decoding them as it goes.
+	 *
+	 * @return iterator over squares
+	 */
+	@Override
+	public PrimitiveIterator.OfInt iterator() {
+		return new SquareIterator();
+	}
+
+	// decodes one square at a time: the landing square of a move, then the
+	// target of its jump if it had one
+	private class SquareIterator implements PrimitiveIterator.OfInt {
+		private int next;
+		private int square;
+		private boolean jumpPending;
+
+		@Override
+		public boolean hasNext() {
+			return jumpPending || next < size;
+		}
+
+		@Override
+		public int nextInt() {
+			if (jumpPending) {
+				jumpPending = false;
+				square = jumps.target(square);
+				return square;
+			}
+			if (next >= size)
+				throw new NoSuchElementException();
+			int move = moves[next++];
+			square += move & STEP;
+			jumpPending = (move & JUMP) != 0;
+			return square;
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder s = new StringBuilder();
+		for (PrimitiveIterator.OfInt it = iterator(); it.hasNext();) {
+			if (s.length() > 0)
+				s.append(' ');
+			s.append(it.nextInt());
+		}
+		return s.toString();
+	}
+}
@@ -0,0 +1,216 @@
+package app;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Estimates quantiles of positive real numbers to within a fixed relative
+ * error, the same way as a DDSketch. Bucket i holds the values from
+ * &gamma;<sup>i-1</sup> to &gamma;<sup>i</sup> with &gamma; = (1 + &alpha;) /
+ * (1 - &alpha;), so the middle of a bucket is within a fraction &alpha; of every
+ * value in it. Values are only accepted between a lowest and a highest value,
+ * which bounds the number of buckets: values below the lowest are counted as 0
+ * and values above the highest as the highest.
+ * <p>
+ * A sketch is not thread safe. Each thread records into its own sketch, which
+ * needs no lock, and the sketches are merged once the threads are done. The
+ * buckets only depend on &alpha; and the range, never on the values seen, so
+ * merging only adds counts and the result does not depend on the order sketches
+ * are merged in. Sketches can be written to a stream and read back to merge the
+ * results of other processes.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class QuantileSketch {
+	/** Relative error used by default. */
+	public static final double DEFAULT_ACCURACY = 0.01;
+
+	private final double accuracy;
+	private final double lowestValue;
+	private final double highestValue;
+	private final double logGamma;
+	private final int minIndex;
+	private final int maxIndex;
+
+	private long[] counts = new long[0]; // counts[i] is bucket offset + i
+	private int offset;
+	private long zeroCount; // values below lowestValue
+	private long count;
+
+	/**
+	 * Initializes an empty sketch with the default relative error for values from
+	 * 0.001 to 10<sup>9</sup>.
+	 */
+	public QuantileSketch() {
+		this(DEFAULT_ACCURACY, 1e-3, 1e9);
+	}
+
+	/**
+	 * Initializes an empty sketch.
+	 *
+	 * @param accuracy     relative error of every quantile, between 0 and 1
+	 * @param lowestValue  smallest positive value told apart from 0
+	 * @param highestValue largest value told apart from smaller ones
+	 */
+	public QuantileSketch(double accuracy, double lowestValue, double highestValue) {
+		if (!(accuracy > 0 && accuracy < 1))
+			throw new IllegalArgumentException("Accuracy must be between 0 and 1");
+		if (!(lowestValue > 0 && highestValue > lowestValue))
+			throw new IllegalArgumentException("Invalid range of values");
+		this.accuracy = accuracy;
+		this.lowestValue = lowestValue;
+		this.highestValue = highestValue;
+		logGamma = Math.log((1 + accuracy) / (1 - accuracy));
+		minIndex = index(lowestValue);
+		maxIndex = index(highestValue);
+		offset = minIndex;
+	}
+
+	// helper method to find the bucket of a value in range
+	private int index(double value) {
+		return (int) Math.ceil(Math.log(value) / logGamma);
+	}
+
+	// helper method to find the value that stands for a bucket
+	private double value(int index) {
+		return 2 * Math.exp(index * logGamma) / (Math.exp(logGamma) + 1);
+	}
+
+	/**
+	 * Records a value.
+	 *
+	 * @param value value to record
+	 */
+	public void record(double value) {
+		count++;
+		if (!(value >= lowestValue)) {
+			zeroCount++;
+			return;
+		}
+		int i = value >= highestValue ? maxIndex : Math.min(maxIndex, Math.max(minIndex, index(value)));
+		grow(i, i);
+		counts[i - offset]++;
+	}
+
+	// helper method to make room for the buckets from lo to hi
+	private void grow(int lo, int hi) {
+		if (counts.length == 0) {
+			offset = lo;
+			counts = new long[hi - lo + 1];
+			return;
+		}
+		int newLo = Math.min(lo, offset);
+		int newHi = Math.max(hi, offset + counts.length - 1);
+		if (newLo == offset && newHi == offset + counts.length - 1)
+			return;
+		// leaves some room on the side that grew so a slowly widening range
+		// does not copy the counts on every value
+		int size = newHi - newLo + 1;
+		if (newLo < offset)
+			newLo = Math.max(minIndex, newHi - Math.max(size, 2 * counts.length) + 1);
+		else
+			newHi = Math.min(maxIndex, newLo + Math.max(size, 2 * counts.length) - 1);
+		long[] grown = new long[newHi - newLo + 1];
+		System.arraycopy(counts, 0, grown, offset - newLo, counts.length);
+		counts = grown;
+		offset = newLo;
+	}
+
+	/**
+	 * Adds every value recorded in other to this sketch.
+	 *
+	 * @param other sketch with the same accuracy and range
+	 */
+	public void merge(QuantileSketch other) {
+		if (other.accuracy != accuracy || other.lowestValue != lowestValue || other.highestValue != highestValue)
+			throw new IllegalArgumentException("Cannot merge sketches of different accuracy or range");
+		if (other.counts.length > 0) {
+			grow(other.offset, other.offset + other.counts.length - 1);
+			for (int i = 0; i < other.counts.length; i++) {
+				counts[other.offset + i - offset] += other.counts[i];
+			}
+		}
+		zeroCount += other.zeroCount;
+		count += other.count;
+	}
+
+	/**
+	 * Returns the number of values recorded.
+	 *
+	 * @return number of values
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the value below which the given fraction of the recorded values
+	 * lie, to within the relative error of the sketch.
+	 *
+	 * @param q fraction between 0 and 1, like 0.5 for the median
+	 * @return quantile, or 0 if no value was recorded
+	 */
+	public double quantile(double q) {
+		if (count == 0)
+			return 0;
+		long rank = Math.max(1, (long) Math.ceil(q * count));
+		long seen = zeroCount;
+		if (seen >= rank)
+			return 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank)
+				return value(offset + i);
+		}
+		return value(offset + counts.length - 1);
+	}
+
+	/**
+	 * Writes the sketch to a stream.
+	 *
+	 * @param out stream to write to
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		out.writeDouble(accuracy);
+		out.writeDouble(lowestValue);
+		out.writeDouble(highestValue);
+		out.writeLong(count);
+		out.writeLong(zeroCount);
+		out.writeInt(offset);
+		out.writeInt(counts.length);
+		for (long c : counts) {
+			out.writeLong(c);
+		}
+	}
+
+	/**
+	 * Reads a sketch written by {@link #writeTo(DataOutput)}.
+	 *
+	 * @param in stream to read from
+	 * @return sketch
+	 * @throws IOException if the stream cannot be read or does not hold a sketch
+	 */
+	public static QuantileSketch read(DataInput in) throws IOException {
+		QuantileSketch s;
+		try {
+			s = new QuantileSketch(in.readDouble(), in.readDouble(), in.readDouble());
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Not a quantile sketch", e);
+		}
+		s.count = in.readLong();
+		s.zeroCount = in.readLong();
+		s.offset = in.readInt();
+		int length = in.readInt();
+		if (length < 0 || length > s.maxIndex - s.minIndex + 1 || s.offset < s.minIndex
+				|| s.offset + length - 1 > s.maxIndex)
+			throw new IOException("Not a quantile sketch");
+		s.counts = new long[length];
+		for (int i = 0; i < length; i++) {
+			s.counts[i] = in.readLong();
+		}
+		return s;
+	}
+}
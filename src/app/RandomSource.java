@@ -0,0 +1,94 @@
+package app;
+
+import java.util.SplittableRandom;
+
+import edu.princeton.cs.algs4.StdRandom;
+
+/**
+ * Supplies the random numbers used to spin the spinner and to generate boards.
+ * Each thread of a simulation uses its own source, split from or derived from
+ * one master seed, so threads never share a generator and a run can be
+ * repeated exactly.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public interface RandomSource {
+	/**
+	 * The shared algs4 StdRandom generator, used by the GUI. Seeding StdRandom
+	 * seeds this source.
+	 */
+	RandomSource GLOBAL = new RandomSource() {
+		public int uniform(int a, int b) {
+			return StdRandom.uniform(a, b);
+		}
+
+		public RandomSource split() {
+			long seed = ((long) StdRandom.uniform(Integer.MAX_VALUE) << 32) ^ StdRandom.uniform(Integer.MAX_VALUE);
+			return new SplittableSource(new SplittableRandom(seed));
+		}
+	};
+
+	/**
+	 * Returns a random integer uniformly in [a, b).
+	 *
+	 * @param a lowest value
+	 * @param b one more than the highest value
+	 * @return random integer
+	 */
+	int uniform(int a, int b);
+
+	/**
+	 * Returns a new source whose numbers are independent of this one. Splitting
+	 * the same source the same way always gives the same sources.
+	 *
+	 * @return new random source
+	 */
+	RandomSource split();
+
+	/**
+	 * Returns a source seeded with the given seed.
+	 *
+	 * @param seed seed
+	 * @return random source
+	 */
+	static RandomSource seeded(long seed) {
+		return new SplittableSource(new SplittableRandom(seed));
+	}
+
+	/**
+	 * Returns stream number <code>index</code> of a master seed. Every stream can
+	 * be created directly, without creating the streams before it, so work can be
+	 * handed out to any number of threads and each piece of work still gets the
+	 * same numbers.
+	 *
+	 * @param masterSeed seed of the whole run
+	 * @param index      number of the stream
+	 * @return random source
+	 */
+	static RandomSource stream(long masterSeed, long index) {
+		// the first number of a generator seeded from the stream index is mixed
+		// well enough to seed the stream itself
+		long seed = new SplittableRandom(masterSeed ^ (index * 0x9E3779B97F4A7C15L)).nextLong();
+		return seeded(seed);
+	}
+
+	/**
+	 * Random source backed by a java.util.SplittableRandom.
+	 */
+	class SplittableSource implements RandomSource {
+		private final SplittableRandom random;
+
+		SplittableSource(SplittableRandom random) {
+			this.random = random;
+		}
+
+		public int uniform(int a, int b) {
+			return random.nextInt(a, b);
+		}
+
+		public RandomSource split() {
+			return new SplittableSource(random.split());
+		}
+	}
+}
@@ -8,9 +8,6 @@ import java.awt.BorderLayout;
 import javax.swing.JLabel;
 import javax.swing.SwingConstants;
 
-import edu.princeton.cs.algs4.MaxPQ;
-import edu.princeton.cs.algs4.Queue;
-
 import java.awt.Font;
 import java.awt.Color;
 import javax.swing.JTextArea;
@@ -27,12 +24,13 @@ public class ResultsWindow extends JPanel {
 	private StringBuilder stats;
 	
 	private Iterable<Integer> shortestPath;
+	private int finish;
 	private int leastNumOfSpins;
 	private int totalTurns;
 	private int rank;
 	private Player winner;
-	private Queue<Player> players;
-	private MaxPQ<Player> ranking;
+	private Iterable<Player> ranking;
+	private Leaderboard leaderboard;
 	
 	public ResultsWindow(GameDirector game) {
 		this.game = game;
@@ -78,19 +76,17 @@ public class ResultsWindow extends JPanel {
 
 	// initializes fields
 	private void setGameStats() {
-		shortestPath = game.getGameBoard().graph.shortestPath;
+		shortestPath = game.getBoardModel().getShortestPath();
+		finish = game.getBoardModel().getJumpTable().finish();
 		leastNumOfSpins = -1;
 		shortestPath.forEach((e) -> {leastNumOfSpins++;} );
 		
 		totalTurns = game.getTotalTurns();
 		winner = game.getWinner();
-		players = game.getPlayers();
 		
 		rank = 1;
-		ranking = new MaxPQ<>();
-		for (Player player : players) {
-			ranking.insert(player);
-		}
+		ranking = game.getGameState().getRanking();
+		leaderboard = game.getLeaderboard();
 	}
 	
 	private void writeGameStats() {
@@ -99,7 +95,7 @@ public class ResultsWindow extends JPanel {
 		stats.append("Game Genereal Stats:\n");
 		stats.append("The shortest possible path of squares to reach the finish is:\n");
 		shortestPath.forEach((e) -> {
-			if (!e.equals(0) && !e.equals(100))
+			if (!e.equals(0) && !e.equals(finish))
 				stats.append(e + " -> ");
 			else if(!e.equals(0))
 				stats.append(e + "\n");
@@ -116,13 +112,19 @@ public class ResultsWindow extends JPanel {
 			stats.append("Number of tokens earned: " + p.tokens + "\n");
 			stats.append("Path player took:\n");
 			p.playerPath.forEach((e) -> {
-				if (!e.equals(0) && !e.equals(100))
+				if (!e.equals(0) && !e.equals(finish))
 					stats.append(e + " -> ");
 				else if(!e.equals(0))
 					stats.append(e);
 				});
 			stats.append("\nNumber of spins used: " + p.totalSpins + "\n");
-			stats.append("Turns taken: " + p.turns + "\n\n");
+			stats.append("Turns taken: " + p.turns + "\n");
+			if (leaderboard != null) {
+				String name = p.playerColor.toString();
+				stats.append("Leaderboard: " + leaderboard.rank(name) + " of " + leaderboard.size()
+						+ " with " + leaderboard.get(name).getScore() + " points\n");
+			}
+			stats.append("\n");
 		});
 	}
 }
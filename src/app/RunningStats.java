@@ -0,0 +1,152 @@
+package app;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Keeps the count, mean, variance, minimum and maximum of a stream of whole
+ * numbers in constant memory. The sum and the sum of squares are kept as exact
+ * longs rather than as a running mean, so merging the stats of several threads
+ * or processes gives the same result in any order, to the last bit.
+ * <p>
+ * Stats are not thread safe. Each thread records into its own stats, which
+ * needs no lock, and they are merged once the threads are done. The sums
+ * overflow after about 9 &times; 10<sup>18</sup> / v<sup>2</sup> values of
+ * size v, which is far beyond any simulation.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class RunningStats {
+	private long count;
+	private long sum;
+	private long sumOfSquares;
+	private long min = Long.MAX_VALUE;
+	private long max = Long.MIN_VALUE;
+
+	/**
+	 * Records a value.
+	 *
+	 * @param value value to record
+	 */
+	public void record(long value) {
+		count++;
+		sum += value;
+		sumOfSquares += value * value;
+		if (value < min)
+			min = value;
+		if (value > max)
+			max = value;
+	}
+
+	/**
+	 * Adds every value recorded in other to these stats.
+	 *
+	 * @param other stats from another thread or process
+	 */
+	public void merge(RunningStats other) {
+		count += other.count;
+		sum += other.sum;
+		sumOfSquares += other.sumOfSquares;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	/**
+	 * Returns the number of values recorded.
+	 *
+	 * @return number of values
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the sum of the values recorded.
+	 *
+	 * @return sum
+	 */
+	public long getSum() {
+		return sum;
+	}
+
+	/**
+	 * Returns the mean of the values recorded.
+	 *
+	 * @return mean, or 0 if no value was recorded
+	 */
+	public double getMean() {
+		return count == 0 ? 0 : (double) sum / count;
+	}
+
+	/**
+	 * Returns the sample variance of the values recorded.
+	 *
+	 * @return variance, or 0 if fewer than two values were recorded
+	 */
+	public double getVariance() {
+		if (count < 2)
+			return 0;
+		double mean = (double) sum / count;
+		return Math.max(0, (sumOfSquares - mean * sum) / (count - 1));
+	}
+
+	/**
+	 * Returns the sample standard deviation of the values recorded.
+	 *
+	 * @return standard deviation
+	 */
+	public double getStandardDeviation() {
+		return Math.sqrt(getVariance());
+	}
+
+	/**
+	 * Returns the smallest value recorded.
+	 *
+	 * @return smallest value, or 0 if none was recorded
+	 */
+	public long getMin() {
+		return count == 0 ? 0 : min;
+	}
+
+	/**
+	 * Returns the largest value recorded.
+	 *
+	 * @return largest value, or 0 if none was recorded
+	 */
+	public long getMax() {
+		return count == 0 ? 0 : max;
+	}
+
+	/**
+	 * Writes the stats to a stream.
+	 *
+	 * @param out stream to write to
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		out.writeLong(count);
+		out.writeLong(sum);
+		out.writeLong(sumOfSquares);
+		out.writeLong(min);
+		out.writeLong(max);
+	}
+
+	/**
+	 * Reads stats written by {@link #writeTo(DataOutput)}.
+	 *
+	 * @param in stream to read from
+	 * @return stats
+	 * @throws IOException if the stream cannot be read
+	 */
+	public static RunningStats read(DataInput in) throws IOException {
+		RunningStats s = new RunningStats();
+		s.count = in.readLong();
+		s.sum = in.readLong();
+		s.sumOfSquares = in.readLong();
+		s.min = in.readLong();
+		s.max = in.readLong();
+		return s;
+	}
+}
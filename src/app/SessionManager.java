@@ -0,0 +1,142 @@
+package app;
+
+import java.io.Closeable;
+import java.net.Socket;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps track of the open {@link GameSession}s of a {@link GameServer}. A
+ * background thread checks the sessions a few times per idle timeout and closes
+ * every session whose client has sent nothing for longer, and no more than a
+ * fixed number of sessions are open at once, so the memory taken by sessions is
+ * bounded.
+ * <p>
+ * Every command answered by any session is counted in a LongAdder, which
+ * sessions on many threads can add to without contending on one counter.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class SessionManager implements Closeable {
+	/** Time after which a silent session is closed by default. */
+	public static final long DEFAULT_IDLE_MILLIS = 60_000;
+	/** Most sessions open at once by default. */
+	public static final int DEFAULT_MAX_SESSIONS = 100_000;
+
+	private final ConcurrentHashMap<Long, GameSession> sessions = new ConcurrentHashMap<>();
+	private final AtomicLong nextId = new AtomicLong();
+	private final LongAdder actions = new LongAdder();
+	private final LongAdder evicted = new LongAdder();
+	private final long idleNanos;
+	private final int maxSessions;
+	private final ScheduledExecutorService reaper;
+
+	/**
+	 * Initializes a manager with the default idle timeout and session limit.
+	 */
+	public SessionManager() {
+		this(DEFAULT_IDLE_MILLIS, DEFAULT_MAX_SESSIONS);
+	}
+
+	/**
+	 * Initializes a manager and starts the thread that evicts idle sessions.
+	 *
+	 * @param idleMillis  time after which a silent session is closed
+	 * @param maxSessions most sessions open at once
+	 */
+	public SessionManager(long idleMillis, int maxSessions) {
+		this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+		this.maxSessions = maxSessions;
+		reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "SessionManager reaper");
+			t.setDaemon(true);
+			return t;
+		});
+		long period = Math.max(1, idleMillis / 4);
+		reaper.scheduleAtFixedRate(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Registers a session for a client that just connected.
+	 *
+	 * @param socket connection to the client
+	 * @return new session, or null if the limit of open sessions is reached
+	 */
+	public GameSession open(Socket socket) {
+		if (sessions.size() >= maxSessions)
+			return null;
+		GameSession session = new GameSession(nextId.incrementAndGet(), socket, this);
+		sessions.put(session.getId(), session);
+		return session;
+	}
+
+	/**
+	 * Removes a session once it has ended.
+	 *
+	 * @param session session that ended
+	 */
+	void closed(GameSession session) {
+		sessions.remove(session.getId());
+	}
+
+	/**
+	 * Counts one command answered by a session.
+	 */
+	void countAction() {
+		actions.increment();
+	}
+
+	// closes every session that has been silent for longer than the idle timeout
+	private void evictIdle() {
+		long now = System.nanoTime();
+		for (GameSession session : sessions.values()) {
+			if (now - session.getLastActive() > idleNanos) {
+				evicted.increment();
+				session.close();
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of open sessions.
+	 *
+	 * @return number of sessions
+	 */
+	public int size() {
+		return sessions.size();
+	}
+
+	/**
+	 * Returns the number of commands answered by every session so far.
+	 *
+	 * @return number of commands
+	 */
+	public long actions() {
+		return actions.sum();
+	}
+
+	/**
+	 * Returns the number of sessions closed for being idle.
+	 *
+	 * @return number of evicted sessions
+	 */
+	public long evicted() {
+		return evicted.sum();
+	}
+
+	/**
+	 * Stops evicting sessions and closes every open session.
+	 */
+	@Override
+	public void close() {
+		reaper.shutdownNow();
+		for (GameSession session : sessions.values()) {
+			session.close();
+		}
+	}
+}
@@ -0,0 +1,419 @@
+package app;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import edu.princeton.cs.algs4.Queue;
+
+/**
+ * Plays a {@link ShardJob} on several worker processes. The job is split into
+ * shards, and every worker is handed one shard at a time, getting the next one
+ * when it sends back the results of the last. Workers are started and reached
+ * through a {@link ShardTransport}, so they may be processes on this machine,
+ * processes on other machines, or threads in tests.
+ * <p>
+ * A worker playing a shard sends a heartbeat every so often. A worker whose
+ * connection fails, or that sends no heartbeat for a while, is given up on: its
+ * connection is closed, its shard goes back in the queue for another worker,
+ * and a new worker is started in its place, up to a limit. Results a worker
+ * sends for a shard that was already done are ignored.
+ * <p>
+ * The results of the shards are merged in the order of the shards once every
+ * shard is done, so a run gives the same results as any other run of the same
+ * job, whatever the number of workers and whichever of them failed.
+ * <p>
+ * Messages are an int type followed by its fields, written with a
+ * DataOutputStream. The coordinator sends JOB (the job and the heartbeat
+ * interval), SHARD (a shard) and STOP. Workers send HEARTBEAT (the shard being
+ * played, or -1, and the games played of it) and RESULT (a shard and its
+ * results).
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class ShardCoordinator {
+	static final int JOB = 1;
+	static final int SHARD = 2;
+	static final int STOP = 3;
+	static final int HEARTBEAT = 4;
+	static final int RESULT = 5;
+
+	private final ShardJob job;
+	private final ShardTransport transport;
+	private final int workers;
+	private final int heartbeatMillis;
+	private final long timeoutMillis;
+	private final int maxStarts;
+
+	private final List<Worker> running = new ArrayList<>();
+	private final Queue<Worker> idle = new Queue<>();
+	private ExecutorService launcher;
+	private Queue<ShardJob.Shard> pending;
+	private SimulationResults[] results;
+	private int remaining;
+	private int started;
+	private int failures;
+	private boolean finished;
+	private IOException failure;
+
+	/**
+	 * Initializes a coordinator that sends heartbeats every second and gives up
+	 * on a worker after ten seconds without one.
+	 *
+	 * @param job       job to play
+	 * @param transport transport workers are started with
+	 * @param workers   number of workers
+	 */
+	public ShardCoordinator(ShardJob job, ShardTransport transport, int workers) {
+		this(job, transport, workers, 1000, 10_000, 2 * workers + 2);
+	}
+
+	/**
+	 * Initializes a coordinator.
+	 *
+	 * @param job             job to play
+	 * @param transport       transport workers are started with
+	 * @param workers         number of workers
+	 * @param heartbeatMillis time between heartbeats of a worker
+	 * @param timeoutMillis   time without a heartbeat before a worker is given
+	 *                        up on
+	 * @param maxStarts       most workers started in all, counting replacements
+	 */
+	public ShardCoordinator(ShardJob job, ShardTransport transport, int workers, int heartbeatMillis,
+			long timeoutMillis, int maxStarts) {
+		if (workers < 1 || maxStarts < workers)
+			throw new IllegalArgumentException("Need at least one worker and a start for every worker");
+		this.job = job;
+		this.transport = transport;
+		this.workers = workers;
+		this.heartbeatMillis = heartbeatMillis;
+		this.timeoutMillis = timeoutMillis;
+		this.maxStarts = maxStarts;
+	}
+
+	// a connection to a worker and the shard it is playing
+	private class Worker {
+		final int number;
+		final ShardTransport.Link link;
+		final DataOutputStream out;
+		ShardJob.Shard shard;
+		long lastHeard;
+		long progress;
+		boolean dead;
+
+		Worker(int number, ShardTransport.Link link) {
+			this.number = number;
+			this.link = link;
+			this.out = new DataOutputStream(new BufferedOutputStream(link.out));
+		}
+
+		// reads the worker's messages until the connection fails
+		void listen() {
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(link.in))) {
+				while (true) {
+					int type = in.readInt();
+					int id = in.readInt();
+					if (type == HEARTBEAT) {
+						long games = in.readLong();
+						heard(this, id, games);
+					} else if (type == RESULT) {
+						completed(this, id, SimulationResults.read(in));
+					} else {
+						throw new IOException("Unknown message " + type);
+					}
+				}
+			} catch (IOException e) {
+				failed(this, e.toString());
+			}
+		}
+	}
+
+	/**
+	 * Plays every shard of the job and merges their results.
+	 *
+	 * @param boardsPerShard most boards in a shard
+	 * @param blocksPerShard most seed blocks in a shard
+	 * @return merged results of every game of the job
+	 * @throws IOException if every worker failed or no more could be started
+	 */
+	public SimulationResults run(long boardsPerShard, int blocksPerShard) throws IOException {
+		ScheduledExecutorService monitor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "ShardCoordinator monitor");
+			t.setDaemon(true);
+			return t;
+		});
+		synchronized (this) {
+			pending = job.split(boardsPerShard, blocksPerShard);
+			results = new SimulationResults[pending.size()];
+			remaining = pending.size();
+			launcher = Executors.newCachedThreadPool(r -> {
+				Thread t = new Thread(r, "ShardCoordinator worker");
+				t.setDaemon(true);
+				return t;
+			});
+			for (int i = 0; i < workers; i++) {
+				start();
+			}
+		}
+		monitor.scheduleWithFixedDelay(this::checkHeartbeats, heartbeatMillis, heartbeatMillis,
+				TimeUnit.MILLISECONDS);
+
+		try {
+			synchronized (this) {
+				while (remaining > 0 && failure == null) {
+					wait();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for shards", e);
+		} finally {
+			monitor.shutdownNow();
+			stopAll();
+		}
+		if (failure != null)
+			throw failure;
+
+		SimulationResults merged = new SimulationResults();
+		for (SimulationResults r : results) {
+			merged.merge(r);
+		}
+		return merged;
+	}
+
+	// helper method to start a new worker on a launcher thread, which connects
+	// to it, sends it the job and its first shard, and then reads its messages
+	private void start() {
+		if (finished)
+			return;
+		int number = started++;
+		launcher.execute(() -> {
+			Worker w = null;
+			try {
+				w = new Worker(number, transport.open(number));
+				w.out.writeInt(JOB);
+				job.writeTo(w.out);
+				w.out.writeInt(heartbeatMillis);
+				w.out.flush();
+			} catch (IOException e) {
+				if (w != null)
+					close(w);
+				synchronized (this) {
+					failures++;
+					System.err.println("Worker " + number + " could not be started: " + e);
+					replace();
+				}
+				return;
+			}
+			synchronized (this) {
+				if (finished) {
+					close(w);
+					return;
+				}
+				running.add(w);
+				assign(w);
+			}
+			w.listen();
+		});
+	}
+
+	// helper method to give a worker the next shard, or park it if there is none
+	private void assign(Worker w) {
+		if (w.dead)
+			return;
+		if (pending.isEmpty()) {
+			w.shard = null;
+			idle.enqueue(w);
+			return;
+		}
+		w.shard = pending.dequeue();
+		w.lastHeard = System.nanoTime();
+		w.progress = 0;
+		try {
+			w.out.writeInt(SHARD);
+			ShardJob.writeShard(w.shard, w.out);
+			w.out.flush();
+		} catch (IOException e) {
+			failed(w, e.toString());
+		}
+	}
+
+	// called when a worker sends a heartbeat; a heartbeat about a shard the
+	// worker has already sent the results of is still a sign of life, but its
+	// progress belongs to that shard and is not counted again
+	private synchronized void heard(Worker w, int id, long games) {
+		w.lastHeard = System.nanoTime();
+		if (w.shard != null && id == w.shard.id)
+			w.progress = games;
+	}
+
+	// called when a worker sends the results of a shard
+	private synchronized void completed(Worker w, int id, SimulationResults r) {
+		if (results[id] == null) {
+			results[id] = r;
+			if (--remaining == 0)
+				notifyAll();
+		}
+		assign(w);
+	}
+
+	// helper method to give up on a worker, put its shard back in the queue, and
+	// start another worker in its place
+	private synchronized void failed(Worker w, String cause) {
+		if (w.dead)
+			return;
+		w.dead = true;
+		running.remove(w);
+		close(w);
+		if (finished || remaining == 0)
+			return;
+
+		failures++;
+		System.err.println("Worker " + w.number + " failed" + (w.shard != null ? " on " + w.shard : "") + ": " + cause);
+		if (w.shard != null && results[w.shard.id] == null) {
+			pending.enqueue(w.shard);
+			while (!idle.isEmpty() && !pending.isEmpty()) {
+				assign(idle.dequeue());
+			}
+		}
+		replace();
+	}
+
+	// helper method to start a worker in place of one that failed, or to fail the
+	// run if no more may be started and none are left
+	private void replace() {
+		if (started < maxStarts) {
+			start();
+		} else if (running.isEmpty()) {
+			failure = new IOException("Every worker failed and " + maxStarts + " were started");
+			notifyAll();
+		}
+	}
+
+	// runs on the monitor thread: gives up on workers that have not sent a
+	// heartbeat in too long
+	private synchronized void checkHeartbeats() {
+		long now = System.nanoTime();
+		for (Worker w : new ArrayList<>(running)) {
+			if (w.shard != null && now - w.lastHeard > TimeUnit.MILLISECONDS.toNanos(timeoutMillis))
+				failed(w, "no heartbeat for " + timeoutMillis + " ms");
+		}
+	}
+
+	// helper method to tell every worker to stop and close the connections
+	private synchronized void stopAll() {
+		finished = true;
+		for (Worker w : running) {
+			w.dead = true;
+			try {
+				w.out.writeInt(STOP);
+				w.out.flush();
+			} catch (IOException e) {
+				// the worker is stopped by closing the connection anyway
+			}
+			close(w);
+		}
+		running.clear();
+		launcher.shutdownNow();
+	}
+
+	// helper method to close the connection to a worker, which stops it if the
+	// transport started it
+	private static void close(Worker w) {
+		try {
+			w.link.close();
+		} catch (IOException e) {
+			// the worker is gone either way
+		}
+	}
+
+	/**
+	 * Returns the number of games played so far, counting shards that are done
+	 * and the progress last heard from every worker.
+	 *
+	 * @return games played
+	 */
+	public synchronized long getGamesPlayed() {
+		long games = 0;
+		if (results != null) {
+			for (SimulationResults r : results) {
+				if (r != null)
+					games += r.getGames();
+			}
+		}
+		for (Worker w : running) {
+			if (w.shard != null)
+				games += w.progress;
+		}
+		return games;
+	}
+
+	/**
+	 * Returns the number of workers that failed or could not be started.
+	 *
+	 * @return number of failures
+	 */
+	public synchronized int getFailures() {
+		return failures;
+	}
+
+	/**
+	 * Plays a job on worker processes and prints the results. Accepts the number
+	 * of workers, the number of boards, the number of games per board, the master
+	 * seed, the transport ("processes", "memory", or "sockets:port" for workers
+	 * started by hand with <code>ShardWorker host port</code>), the
+	 * policy ("simulation", "greedy", or "optimal"), and a board library file to
+	 * read the boards from instead of generating them.
+	 */
+	public static void main(String[] args) throws IOException {
+		int workers = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		long boards = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+		int gamesPerBoard = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+		long seed = args.length > 3 ? Long.parseLong(args[3]) : new SplittableRandom().nextLong();
+		String transportName = args.length > 4 ? args[4] : "processes";
+		String policy = args.length > 5 ? args[5] : "simulation";
+		String library = args.length > 6 ? args[6] : null;
+
+		// about eight shards per worker, so a slow or failed worker holds up little
+		int blocks = Math.min(gamesPerBoard, 64);
+		long targetShards = 8L * workers;
+		long boardsPerShard = Math.max(1, (boards + targetShards - 1) / targetShards);
+		int blocksPerShard = boards >= targetShards ? blocks
+				: (int) Math.max(1, (blocks * boards + targetShards - 1) / targetShards);
+		ShardJob job = new ShardJob(seed, BoardGenerator.DEFAULT_SQUARES, boards, gamesPerBoard, blocks, policy,
+				library);
+
+		ShardTransport transport;
+		if (transportName.equals("memory")) {
+			transport = new ShardTransport.InMemory();
+		} else if (transportName.startsWith("sockets")) {
+			int port = transportName.startsWith("sockets:") ? Integer.parseInt(transportName.substring(8)) : 0;
+			ShardTransport.Sockets sockets = new ShardTransport.Sockets(port);
+			System.out.println("Waiting for " + workers + " workers: java app.ShardWorker <host> " + sockets.getPort());
+			transport = sockets;
+		} else {
+			transport = new ShardTransport.Processes();
+		}
+
+		long start = System.nanoTime();
+		SimulationResults results;
+		try (ShardTransport t = transport) {
+			results = new ShardCoordinator(job, t, workers).run(boardsPerShard, blocksPerShard);
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.print(results);
+		System.out.printf("Simulated in %.2f s: %.0f games/s on %d workers%n", seconds, job.games() / seconds,
+				workers);
+	}
+}
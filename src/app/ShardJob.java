@@ -0,0 +1,236 @@
+package app;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.princeton.cs.algs4.Queue;
+
+/**
+ * A simulation split into shards that can be played by different processes.
+ * The job plays a number of boards, each a number of times. The games of a
+ * board are split into seed blocks, and a shard is a range of boards times a
+ * range of seed blocks.
+ * <p>
+ * Board k is read from a board library if the job has one, or generated from
+ * stream -1-k of the master seed. The games of seed block b on board k draw
+ * their spins from stream k*blocks+b. Every game is thus decided by the job
+ * alone, whichever process plays it. Splitting the job another way plays the
+ * same games, and a job split the same way and merged in shard order gives
+ * exactly the same results.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class ShardJob {
+	private final long seed;
+	private final int squares;
+	private final long boards;
+	private final int gamesPerBoard;
+	private final int blocks;
+	private final String policy;
+	private final String library;
+
+	/**
+	 * A range of boards times a range of seed blocks of a job.
+	 */
+	public static final class Shard {
+		final int id;
+		final long boardFrom;
+		final long boardTo;
+		final int blockFrom;
+		final int blockTo;
+
+		Shard(int id, long boardFrom, long boardTo, int blockFrom, int blockTo) {
+			this.id = id;
+			this.boardFrom = boardFrom;
+			this.boardTo = boardTo;
+			this.blockFrom = blockFrom;
+			this.blockTo = blockTo;
+		}
+
+		@Override
+		public String toString() {
+			return "shard " + id + " (boards " + boardFrom + "-" + (boardTo - 1) + ", blocks " + blockFrom + "-"
+					+ (blockTo - 1) + ")";
+		}
+	}
+
+	/**
+	 * Initializes a job.
+	 *
+	 * @param seed          master seed
+	 * @param squares       number of squares of generated boards
+	 * @param boards        number of boards
+	 * @param gamesPerBoard number of games played on every board
+	 * @param blocks        number of seed blocks the games of a board are split
+	 *                      into
+	 * @param policy        "simulation", "greedy", or "optimal" to solve every
+	 *                      board for the optimal policy
+	 * @param library       board library file the boards are read from, or null
+	 *                      to generate them
+	 */
+	public ShardJob(long seed, int squares, long boards, int gamesPerBoard, int blocks, String policy,
+			String library) {
+		if (boards < 1 || gamesPerBoard < 1 || blocks < 1 || blocks > gamesPerBoard)
+			throw new IllegalArgumentException("A job needs boards, games, and at most one seed block per game");
+		if (!policy.equals("simulation") && !policy.equals("greedy") && !policy.equals("optimal"))
+			throw new IllegalArgumentException("Unknown policy: " + policy);
+		this.seed = seed;
+		this.squares = squares;
+		this.boards = boards;
+		this.gamesPerBoard = gamesPerBoard;
+		this.blocks = blocks;
+		this.policy = policy;
+		this.library = library;
+	}
+
+	/**
+	 * Returns the total number of games of the job.
+	 *
+	 * @return number of games
+	 */
+	public long games() {
+		return boards * gamesPerBoard;
+	}
+
+	/**
+	 * Splits the job into shards of at most the given number of boards and seed
+	 * blocks, board range by board range.
+	 *
+	 * @param boardsPerShard most boards in a shard
+	 * @param blocksPerShard most seed blocks in a shard
+	 * @return shards in order
+	 */
+	public Queue<Shard> split(long boardsPerShard, int blocksPerShard) {
+		Queue<Shard> shards = new Queue<>();
+		int id = 0;
+		for (long b = 0; b < boards; b += boardsPerShard) {
+			for (int s = 0; s < blocks; s += blocksPerShard) {
+				shards.enqueue(new Shard(id++, b, Math.min(boards, b + boardsPerShard), s,
+						Math.min(blocks, s + blocksPerShard)));
+			}
+		}
+		return shards;
+	}
+
+	/**
+	 * Plays every game of a shard.
+	 *
+	 * @param shard    shard to play
+	 * @param store    board library of the job, or null if it has none
+	 * @param progress counter of games played, added to as they are played
+	 * @return results of the games of the shard
+	 */
+	public SimulationResults play(Shard shard, BoardStore store, AtomicLong progress) {
+		SimulationResults results = new SimulationResults();
+		for (long k = shard.boardFrom; k < shard.boardTo; k++) {
+			BoardModel board = board(k, store);
+			GameEngine engine = new GameEngine(policy(board));
+			for (int b = shard.blockFrom; b < shard.blockTo; b++) {
+				engine.setRandomSource(RandomSource.stream(seed, k * blocks + b));
+				long games = blockGames(b + 1) - blockGames(b);
+				for (long i = 0; i < games; i++) {
+					results.record(engine.play(board));
+					progress.incrementAndGet();
+				}
+			}
+		}
+		return results;
+	}
+
+	// helper method to count the games of a board before seed block b
+	private long blockGames(int b) {
+		return (long) gamesPerBoard * b / blocks;
+	}
+
+	// helper method to read or generate board k
+	private BoardModel board(long k, BoardStore store) {
+		if (store != null)
+			return store.board(k);
+		RandomSource random = RandomSource.stream(seed, -1 - k);
+		if (squares == BoardGenerator.DEFAULT_SQUARES)
+			return new BoardModel(random);
+		return new BoardModel(random, squares);
+	}
+
+	// helper method to make the policy the players of a board follow
+	private TurnPolicy policy(BoardModel board) {
+		switch (policy) {
+		case "greedy":
+			return TurnPolicy.GREEDY;
+		case "optimal":
+			return new OptimalPolicy(board);
+		default:
+			return TurnPolicy.SIMULATION;
+		}
+	}
+
+	/**
+	 * Opens the board library of the job.
+	 *
+	 * @return board library, or null if the boards are generated
+	 * @throws IOException if the library cannot be read or has too few boards
+	 */
+	public BoardStore openLibrary() throws IOException {
+		if (library == null)
+			return null;
+		BoardStore store = new BoardStore(Paths.get(library));
+		if (store.size() < boards) {
+			store.close();
+			throw new IOException("Board library " + library + " has fewer than " + boards + " boards");
+		}
+		return store;
+	}
+
+	/**
+	 * Writes the job to a stream.
+	 *
+	 * @param out stream to write to
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		out.writeLong(seed);
+		out.writeInt(squares);
+		out.writeLong(boards);
+		out.writeInt(gamesPerBoard);
+		out.writeInt(blocks);
+		out.writeUTF(policy);
+		out.writeUTF(library == null ? "" : library);
+	}
+
+	/**
+	 * Reads a job written by {@link #writeTo(DataOutput)}.
+	 *
+	 * @param in stream to read from
+	 * @return job
+	 * @throws IOException if the stream cannot be read
+	 */
+	public static ShardJob read(DataInput in) throws IOException {
+		long seed = in.readLong();
+		int squares = in.readInt();
+		long boards = in.readLong();
+		int gamesPerBoard = in.readInt();
+		int blocks = in.readInt();
+		String policy = in.readUTF();
+		String library = in.readUTF();
+		return new ShardJob(seed, squares, boards, gamesPerBoard, blocks, policy,
+				library.isEmpty() ? null : library);
+	}
+
+	// writes the ranges of a shard
+	static void writeShard(Shard shard, DataOutput out) throws IOException {
+		out.writeInt(shard.id);
+		out.writeLong(shard.boardFrom);
+		out.writeLong(shard.boardTo);
+		out.writeInt(shard.blockFrom);
+		out.writeInt(shard.blockTo);
+	}
+
+	// reads the ranges of a shard
+	static Shard readShard(DataInput in) throws IOException {
+		return new Shard(in.readInt(), in.readLong(), in.readLong(), in.readInt(), in.readInt());
+	}
+}
@@ -0,0 +1,175 @@
+package app;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.nio.file.Paths;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Starts the workers of a {@link ShardCoordinator} and connects it to them.
+ * Whatever carries the bytes, a connection to a worker is a pair of streams,
+ * and the coordinator and {@link ShardWorker} speak the same protocol over
+ * any of them: local worker processes over their standard input and output,
+ * workers on any machine over sockets, or workers on threads of the same JVM
+ * over in-memory pipes, which stand in for the others in tests.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public interface ShardTransport extends Closeable {
+	/**
+	 * Starts a worker, or waits for one to connect, and returns the connection
+	 * to it.
+	 *
+	 * @param worker number of the worker, counting every worker started
+	 * @return connection to the worker
+	 * @throws IOException if the worker cannot be started
+	 */
+	Link open(int worker) throws IOException;
+
+	@Override
+	default void close() throws IOException {
+	}
+
+	/**
+	 * A connection to one worker. Closing it ends the connection, and stops the
+	 * worker if the transport started it.
+	 */
+	final class Link implements Closeable {
+		final InputStream in;
+		final OutputStream out;
+		private final Closeable closer;
+
+		Link(InputStream in, OutputStream out, Closeable closer) {
+			this.in = in;
+			this.out = out;
+			this.closer = closer;
+		}
+
+		@Override
+		public void close() throws IOException {
+			closer.close();
+		}
+	}
+
+	/**
+	 * Starts every worker as a process on this machine running
+	 * {@link ShardWorker}, with the class path of this JVM. The worker's error
+	 * stream goes to this process's.
+	 */
+	class Processes implements ShardTransport {
+		public Link open(int worker) throws IOException {
+			String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+			Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+					ShardWorker.class.getName()).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+			return new Link(process.getInputStream(), process.getOutputStream(), () -> {
+				process.destroyForcibly();
+			});
+		}
+	}
+
+	/**
+	 * Waits for workers started anywhere to connect to a server socket, by
+	 * running {@link ShardWorker} with the coordinator's host and port.
+	 */
+	class Sockets implements ShardTransport {
+		private final ServerSocket server;
+
+		/**
+		 * Opens a server socket on every address of this machine.
+		 *
+		 * @param port port to listen on, or 0 for any free port
+		 * @throws IOException if the socket cannot be opened
+		 */
+		public Sockets(int port) throws IOException {
+			this.server = new ServerSocket(port);
+		}
+
+		/**
+		 * Opens a server socket that only workers on this machine can connect to.
+		 *
+		 * @param port     port to listen on, or 0 for any free port
+		 * @param loopback true to listen on the loopback address only
+		 * @throws IOException if the socket cannot be opened
+		 */
+		public Sockets(int port, boolean loopback) throws IOException {
+			this.server = loopback ? new ServerSocket(port, 50, InetAddress.getLoopbackAddress())
+					: new ServerSocket(port);
+		}
+
+		/**
+		 * Returns the port workers connect to.
+		 *
+		 * @return port
+		 */
+		public int getPort() {
+			return server.getLocalPort();
+		}
+
+		public Link open(int worker) throws IOException {
+			Socket socket = server.accept();
+			socket.setTcpNoDelay(true);
+			return new Link(socket.getInputStream(), socket.getOutputStream(), socket);
+		}
+
+		@Override
+		public void close() throws IOException {
+			server.close();
+		}
+	}
+
+	/**
+	 * Runs every worker on a daemon thread of this JVM, connected by in-memory
+	 * pipes. A worker can be killed to see how the coordinator copes with
+	 * workers that fail.
+	 */
+	class InMemory implements ShardTransport {
+		private final ConcurrentHashMap<Integer, Link> links = new ConcurrentHashMap<>();
+
+		public Link open(int worker) throws IOException {
+			Pipe toWorker = Pipe.open();
+			Pipe fromWorker = Pipe.open();
+			Closeable closer = () -> {
+				toWorker.sink().close();
+				toWorker.source().close();
+				fromWorker.sink().close();
+				fromWorker.source().close();
+			};
+			InputStream workerIn = Channels.newInputStream(toWorker.source());
+			OutputStream workerOut = Channels.newOutputStream(fromWorker.sink());
+			Thread thread = new Thread(() -> {
+				try {
+					new ShardWorker().run(workerIn, workerOut);
+				} catch (IOException e) {
+					// the pipes were closed, as when a worker process is killed
+				}
+			}, "ShardWorker " + worker);
+			thread.setDaemon(true);
+			thread.start();
+
+			Link link = new Link(Channels.newInputStream(fromWorker.source()),
+					Channels.newOutputStream(toWorker.sink()), closer);
+			links.put(worker, link);
+			return link;
+		}
+
+		/**
+		 * Kills a worker by closing its pipes, as if its process had died.
+		 *
+		 * @param worker number of the worker
+		 * @throws IOException if the pipes cannot be closed
+		 */
+		public void kill(int worker) throws IOException {
+			Link link = links.get(worker);
+			if (link != null)
+				link.close();
+		}
+	}
+}
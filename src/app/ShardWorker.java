@@ -0,0 +1,104 @@
+package app;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.Socket;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plays the shards a {@link ShardCoordinator} hands it. The coordinator first
+ * sends the job and how often to send heartbeats, then one shard at a time.
+ * The worker plays each shard and sends back its results as written by
+ * {@link SimulationResults#writeTo(java.io.DataOutput)}. While it plays, a
+ * background thread sends a heartbeat with the number of games it has played,
+ * so the coordinator can tell a slow worker from a dead one. The worker stops
+ * when the coordinator tells it to or closes the connection.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class ShardWorker {
+	private volatile int shard = -1;
+	private final AtomicLong progress = new AtomicLong();
+
+	/**
+	 * Plays shards sent over the given streams until told to stop.
+	 *
+	 * @param input  stream from the coordinator
+	 * @param output stream to the coordinator
+	 * @throws IOException if the connection fails or is closed
+	 */
+	public void run(InputStream input, OutputStream output) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(input));
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output));
+		if (in.readInt() != ShardCoordinator.JOB)
+			throw new IOException("Expected a job");
+		ShardJob job = ShardJob.read(in);
+		long heartbeatMillis = in.readInt();
+
+		ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "ShardWorker heartbeat");
+			t.setDaemon(true);
+			return t;
+		});
+		heartbeat.scheduleAtFixedRate(() -> {
+			try {
+				synchronized (out) {
+					out.writeInt(ShardCoordinator.HEARTBEAT);
+					out.writeInt(shard);
+					out.writeLong(progress.get());
+					out.flush();
+				}
+			} catch (IOException e) {
+				// the main thread finds out when it next reads
+			}
+		}, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+
+		try (BoardStore store = job.openLibrary()) {
+			while (in.readInt() == ShardCoordinator.SHARD) {
+				ShardJob.Shard next = ShardJob.readShard(in);
+				progress.set(0);
+				shard = next.id;
+				SimulationResults results = job.play(next, store, progress);
+				synchronized (out) {
+					out.writeInt(ShardCoordinator.RESULT);
+					out.writeInt(next.id);
+					results.writeTo(out);
+					out.flush();
+				}
+				shard = -1;
+			}
+		} finally {
+			heartbeat.shutdownNow();
+		}
+	}
+
+	/**
+	 * Runs a worker. With no arguments it talks to the coordinator that started
+	 * it over its standard input and output; given a host and port it connects to
+	 * a coordinator listening there.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length >= 2) {
+			try (Socket socket = new Socket(args[0], Integer.parseInt(args[1]))) {
+				socket.setTcpNoDelay(true);
+				new ShardWorker().run(socket.getInputStream(), socket.getOutputStream());
+			}
+			return;
+		}
+		// anything printed would end up in the middle of the protocol
+		PrintStream protocol = System.out;
+		System.setOut(System.err);
+		new ShardWorker().run(System.in, protocol);
+		protocol.flush();
+	}
+}
@@ -0,0 +1,422 @@
+package app;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Collects the outcome of many simulated games: how often each PlayerColor
+ * won, how many turns each game lasted, and how many tokens each player ended
+ * with. Every simulation thread fills in its own results, which are merged
+ * together once the threads are done, so recording a game never needs a lock.
+ * <p>
+ * The distributions of game length and of each color's turns, tokens, and
+ * spins are kept in {@link LogHistogram}s and {@link RunningStats}, and the
+ * tokens each color earned per turn in a {@link QuantileSketch}, so quantiles
+ * like the median or the 99th percentile game length take the same memory
+ * however many games are simulated. Results can be written to a stream and
+ * read back to merge the results of other processes.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class SimulationResults {
+	/** Longest game length and highest token count counted individually. */
+	public static final int MAX_TRACKED = 1000;
+
+	private long games;
+	private long[] wins;
+	private long[] gameLengths;
+	private long[][] tokens;
+	private long totalTurns;
+
+	private LogHistogram gameLengthHistogram = new LogHistogram();
+	private RunningStats gameLengthStats = new RunningStats();
+	private LogHistogram[] turnHistograms;
+	private LogHistogram[] tokenHistograms;
+	private LogHistogram[] spinHistograms;
+	private RunningStats[] turnStats;
+	private RunningStats[] tokenStats;
+	private RunningStats[] spinStats;
+	private QuantileSketch[] tokenRates;
+
+	/**
+	 * Initializes empty results.
+	 */
+	public SimulationResults() {
+		int colors = PlayerColor.values().length;
+		wins = new long[colors];
+		gameLengths = new long[MAX_TRACKED + 1];
+		tokens = new long[colors][MAX_TRACKED + 1];
+
+		turnHistograms = new LogHistogram[colors];
+		tokenHistograms = new LogHistogram[colors];
+		spinHistograms = new LogHistogram[colors];
+		turnStats = new RunningStats[colors];
+		tokenStats = new RunningStats[colors];
+		spinStats = new RunningStats[colors];
+		tokenRates = new QuantileSketch[colors];
+		for (int c = 0; c < colors; c++) {
+			turnHistograms[c] = new LogHistogram();
+			tokenHistograms[c] = new LogHistogram();
+			spinHistograms[c] = new LogHistogram();
+			turnStats[c] = new RunningStats();
+			tokenStats[c] = new RunningStats();
+			spinStats[c] = new RunningStats();
+			tokenRates[c] = new QuantileSketch();
+		}
+	}
+
+	/**
+	 * Records the outcome of a finished game. The length of a game is the number
+	 * of turns taken by the player who reached the finish.
+	 *
+	 * @param game game that is no longer active
+	 */
+	public void record(GameState game) {
+		games++;
+		wins[game.getWinner().playerColor.ordinal()]++;
+		int length = game.getCurrentPlayer().turns;
+		gameLengths[bucket(length)]++;
+		gameLengthHistogram.record(length);
+		gameLengthStats.record(length);
+		totalTurns += game.getTotalTurns();
+
+		for (Player p : game.getPlayers()) {
+			recordPlayer(p.playerColor.ordinal(), p.turns, p.tokens, p.totalSpins);
+		}
+	}
+
+	/**
+	 * Records the outcome of a finished game from the numbers of each player, for
+	 * simulators that do not keep a GameState. Arrays are indexed by the ordinal
+	 * of each player's PlayerColor.
+	 *
+	 * @param winner ordinal of the color of the winner
+	 * @param length number of turns taken by the player who reached the finish
+	 * @param turns  turns taken by each player
+	 * @param tokens tokens held by each player
+	 * @param spins  spins used by each player
+	 */
+	public void record(int winner, int length, int[] turns, int[] tokens, int[] spins) {
+		games++;
+		wins[winner]++;
+		gameLengths[bucket(length)]++;
+		gameLengthHistogram.record(length);
+		gameLengthStats.record(length);
+
+		for (int c = 0; c < turns.length; c++) {
+			totalTurns += turns[c];
+			recordPlayer(c, turns[c], tokens[c], spins[c]);
+		}
+	}
+
+	// helper method to record the turns, tokens, and spins of the player of color c
+	private void recordPlayer(int c, int turns, int tokens, int spins) {
+		this.tokens[c][bucket(tokens)]++;
+		turnHistograms[c].record(turns);
+		tokenHistograms[c].record(tokens);
+		spinHistograms[c].record(spins);
+		turnStats[c].record(turns);
+		tokenStats[c].record(tokens);
+		spinStats[c].record(spins);
+		if (turns > 0)
+			tokenRates[c].record((double) tokens / turns);
+	}
+
+	// helper method to clamp a value into the tracked range
+	private static int bucket(int value) {
+		if (value < 0)
+			return 0;
+		return value > MAX_TRACKED ? MAX_TRACKED : value;
+	}
+
+	/**
+	 * Adds the games recorded in other to these results.
+	 *
+	 * @param other results from another simulation
+	 */
+	public void merge(SimulationResults other) {
+		games += other.games;
+		totalTurns += other.totalTurns;
+		gameLengthHistogram.merge(other.gameLengthHistogram);
+		gameLengthStats.merge(other.gameLengthStats);
+		for (int c = 0; c < wins.length; c++) {
+			wins[c] += other.wins[c];
+			for (int t = 0; t <= MAX_TRACKED; t++) {
+				tokens[c][t] += other.tokens[c][t];
+			}
+			turnHistograms[c].merge(other.turnHistograms[c]);
+			tokenHistograms[c].merge(other.tokenHistograms[c]);
+			spinHistograms[c].merge(other.spinHistograms[c]);
+			turnStats[c].merge(other.turnStats[c]);
+			tokenStats[c].merge(other.tokenStats[c]);
+			spinStats[c].merge(other.spinStats[c]);
+			tokenRates[c].merge(other.tokenRates[c]);
+		}
+		for (int t = 0; t <= MAX_TRACKED; t++) {
+			gameLengths[t] += other.gameLengths[t];
+		}
+	}
+
+	/**
+	 * Returns the number of games recorded.
+	 *
+	 * @return number of games
+	 */
+	public long getGames() {
+		return games;
+	}
+
+	/**
+	 * Returns the number of games won by the given color.
+	 *
+	 * @param color player color
+	 * @return number of wins
+	 */
+	public long getWins(PlayerColor color) {
+		return wins[color.ordinal()];
+	}
+
+	/**
+	 * Returns the fraction of games won by the given color.
+	 *
+	 * @param color player color
+	 * @return win rate between 0 and 1
+	 */
+	public double getWinRate(PlayerColor color) {
+		return games == 0 ? 0 : (double) wins[color.ordinal()] / games;
+	}
+
+	/**
+	 * Returns how many games lasted the given number of turns. Games longer than
+	 * {@link #MAX_TRACKED} turns are counted at MAX_TRACKED.
+	 *
+	 * @param turns game length
+	 * @return number of games
+	 */
+	public long getGameLengthCount(int turns) {
+		return gameLengths[bucket(turns)];
+	}
+
+	/**
+	 * Returns how many times a player of the given color finished a game with the
+	 * given number of tokens. Token counts above {@link #MAX_TRACKED} are counted
+	 * at MAX_TRACKED.
+	 *
+	 * @param color  player color
+	 * @param amount number of tokens
+	 * @return number of players
+	 */
+	public long getTokenCount(PlayerColor color, int amount) {
+		return tokens[color.ordinal()][bucket(amount)];
+	}
+
+	/**
+	 * Returns the average number of turns of the player who reached the finish.
+	 *
+	 * @return average game length
+	 */
+	public double getAverageGameLength() {
+		return gameLengthStats.getMean();
+	}
+
+	/**
+	 * Returns the average number of tokens held by a player of the given color at
+	 * the end of a game.
+	 *
+	 * @param color player color
+	 * @return average tokens
+	 */
+	public double getAverageTokens(PlayerColor color) {
+		return games == 0 ? 0 : (double) tokenStats[color.ordinal()].getSum() / games;
+	}
+
+	/**
+	 * Returns the histogram of the number of turns of the player who reached the
+	 * finish.
+	 *
+	 * @return game length histogram
+	 */
+	public LogHistogram getGameLengthHistogram() {
+		return gameLengthHistogram;
+	}
+
+	/**
+	 * Returns the mean, variance, and range of the number of turns of the player
+	 * who reached the finish.
+	 *
+	 * @return game length stats
+	 */
+	public RunningStats getGameLengthStats() {
+		return gameLengthStats;
+	}
+
+	/**
+	 * Returns the histogram of the turns a player of the given color took per
+	 * game.
+	 *
+	 * @param color player color
+	 * @return turn histogram
+	 */
+	public LogHistogram getTurnHistogram(PlayerColor color) {
+		return turnHistograms[color.ordinal()];
+	}
+
+	/**
+	 * Returns the histogram of the tokens a player of the given color held at the
+	 * end of a game.
+	 *
+	 * @param color player color
+	 * @return token histogram
+	 */
+	public LogHistogram getTokenHistogram(PlayerColor color) {
+		return tokenHistograms[color.ordinal()];
+	}
+
+	/**
+	 * Returns the histogram of the spins a player of the given color made per
+	 * game, including spins taken again.
+	 *
+	 * @param color player color
+	 * @return spin histogram
+	 */
+	public LogHistogram getSpinHistogram(PlayerColor color) {
+		return spinHistograms[color.ordinal()];
+	}
+
+	/**
+	 * Returns the stats of the turns a player of the given color took per game.
+	 *
+	 * @param color player color
+	 * @return turn stats
+	 */
+	public RunningStats getTurnStats(PlayerColor color) {
+		return turnStats[color.ordinal()];
+	}
+
+	/**
+	 * Returns the stats of the tokens a player of the given color held at the end
+	 * of a game.
+	 *
+	 * @param color player color
+	 * @return token stats
+	 */
+	public RunningStats getTokenStats(PlayerColor color) {
+		return tokenStats[color.ordinal()];
+	}
+
+	/**
+	 * Returns the stats of the spins a player of the given color made per game.
+	 *
+	 * @param color player color
+	 * @return spin stats
+	 */
+	public RunningStats getSpinStats(PlayerColor color) {
+		return spinStats[color.ordinal()];
+	}
+
+	/**
+	 * Returns the sketch of the tokens a player of the given color earned per
+	 * turn in each game.
+	 *
+	 * @param color player color
+	 * @return tokens per turn sketch
+	 */
+	public QuantileSketch getTokenRateSketch(PlayerColor color) {
+		return tokenRates[color.ordinal()];
+	}
+
+	/**
+	 * Returns the sum of all turns by each player across every game.
+	 *
+	 * @return number of total turns
+	 */
+	public long getTotalTurns() {
+		return totalTurns;
+	}
+
+	/**
+	 * Writes the results to a stream, so the results of several processes can be
+	 * merged.
+	 *
+	 * @param out stream to write to
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		out.writeInt(wins.length);
+		out.writeInt(MAX_TRACKED);
+		out.writeLong(games);
+		out.writeLong(totalTurns);
+		for (int t = 0; t <= MAX_TRACKED; t++) {
+			out.writeLong(gameLengths[t]);
+		}
+		gameLengthHistogram.writeTo(out);
+		gameLengthStats.writeTo(out);
+		for (int c = 0; c < wins.length; c++) {
+			out.writeLong(wins[c]);
+			for (int t = 0; t <= MAX_TRACKED; t++) {
+				out.writeLong(tokens[c][t]);
+			}
+			turnHistograms[c].writeTo(out);
+			tokenHistograms[c].writeTo(out);
+			spinHistograms[c].writeTo(out);
+			turnStats[c].writeTo(out);
+			tokenStats[c].writeTo(out);
+			spinStats[c].writeTo(out);
+			tokenRates[c].writeTo(out);
+		}
+	}
+
+	/**
+	 * Reads results written by {@link #writeTo(DataOutput)}.
+	 *
+	 * @param in stream to read from
+	 * @return results
+	 * @throws IOException if the stream cannot be read or does not hold results
+	 */
+	public static SimulationResults read(DataInput in) throws IOException {
+		SimulationResults r = new SimulationResults();
+		if (in.readInt() != r.wins.length || in.readInt() != MAX_TRACKED)
+			throw new IOException("Results were written for different colors or tracked range");
+		r.games = in.readLong();
+		r.totalTurns = in.readLong();
+		for (int t = 0; t <= MAX_TRACKED; t++) {
+			r.gameLengths[t] = in.readLong();
+		}
+		r.gameLengthHistogram = LogHistogram.read(in);
+		r.gameLengthStats = RunningStats.read(in);
+		for (int c = 0; c < r.wins.length; c++) {
+			r.wins[c] = in.readLong();
+			for (int t = 0; t <= MAX_TRACKED; t++) {
+				r.tokens[c][t] = in.readLong();
+			}
+			r.turnHistograms[c] = LogHistogram.read(in);
+			r.tokenHistograms[c] = LogHistogram.read(in);
+			r.spinHistograms[c] = LogHistogram.read(in);
+			r.turnStats[c] = RunningStats.read(in);
+			r.tokenStats[c] = RunningStats.read(in);
+			r.spinStats[c] = RunningStats.read(in);
+			r.tokenRates[c] = QuantileSketch.read(in);
+		}
+		return r;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("Games simulated: " + games + "\n");
+		sb.append(String.format("Average game length: %.2f turns%n", getAverageGameLength()));
+		sb.append(String.format("Game length: p50 %d, p90 %d, p99 %d, max %d turns (sd %.2f)%n",
+				gameLengthHistogram.quantile(0.5), gameLengthHistogram.quantile(0.9),
+				gameLengthHistogram.quantile(0.99), gameLengthHistogram.getMax(), gameLengthStats.getStandardDeviation()));
+		for (PlayerColor color : PlayerColor.values()) {
+			sb.append(String.format("Player %s won %.2f%% of games with %.2f tokens on average%n", color,
+					100 * getWinRate(color), getAverageTokens(color)));
+			LogHistogram t = getTokenHistogram(color);
+			sb.append(String.format("  tokens p50 %d, p99 %d; %.2f tokens per turn (p50)%n", t.quantile(0.5),
+					t.quantile(0.99), getTokenRateSketch(color).quantile(0.5)));
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,106 @@
+package app;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingWorker;
+
+/**
+ * Plays the rest of a game in the background the same way as the "Game
+ * Simulation" button, so the window stays responsive while it runs. Turns are
+ * played at a chosen speed, and the log of the turns played since the last
+ * frame is published at most {@link #FRAMES_PER_SECOND} times per second, so a
+ * game at full speed is limited by the GameDirector rather than by Swing.
+ * Subclasses show the published log and the game state in
+ * {@link #process(java.util.List)} and {@link #done()}.
+ * <p>
+ * Turns are played while holding the lock of the GameDirector, so anything
+ * reading the game on the Event Dispatch Thread must synchronize on it too.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public abstract class SimulationWorker extends SwingWorker<Void, String> {
+	/** Most frames published per second. */
+	public static final int FRAMES_PER_SECOND = 30;
+	/** Names of the speeds a simulation can run at. */
+	public static final String[] SPEEDS = { "1x", "10x", "Max" };
+	// turns played per second at each speed, where 0 means as fast as possible
+	private static final int[] TURNS_PER_SECOND = { 2, 20, 0 };
+
+	private final GameDirector game;
+	private volatile int turnsPerSecond;
+
+	/**
+	 * Initializes a worker that plays the given game.
+	 *
+	 * @param game  game to play until a player finishes
+	 * @param speed index of the speed in {@link #SPEEDS}
+	 */
+	public SimulationWorker(GameDirector game, int speed) {
+		this.game = game;
+		setSpeed(speed);
+	}
+
+	/**
+	 * Changes the speed of the simulation, also while it is running.
+	 *
+	 * @param speed index of the speed in {@link #SPEEDS}
+	 */
+	public void setSpeed(int speed) {
+		turnsPerSecond = TURNS_PER_SECOND[speed];
+	}
+
+	@Override
+	protected Void doInBackground() throws InterruptedException {
+		long frameNanos = TimeUnit.SECONDS.toNanos(1) / FRAMES_PER_SECOND;
+		long nextFrame = System.nanoTime();
+		long nextTurn = nextFrame;
+		StringBuilder log = new StringBuilder();
+
+		while (!isCancelled()) {
+			synchronized (game) {
+				if (isCancelled() || !game.isActive)
+					break;
+				playTurn(log);
+			}
+
+			long now = System.nanoTime();
+			if (now >= nextFrame) {
+				publish(log.toString());
+				log.setLength(0);
+				nextFrame = now + frameNanos;
+			}
+
+			int speed = turnsPerSecond;
+			if (speed > 0) {
+				nextTurn = Math.max(nextTurn, now - frameNanos) + TimeUnit.SECONDS.toNanos(1) / speed;
+				TimeUnit.NANOSECONDS.sleep(nextTurn - System.nanoTime());
+			}
+		}
+		publish(log.toString());
+		return null;
+	}
+
+	// helper method to play one turn the way the "Game Simulation" button does:
+	// never spinning again and never climbing a ladder
+	private void playTurn(StringBuilder log) {
+		game.startPlayerSpin();
+		log.append(game.fb);
+		game.movePlayer();
+		log.append(game.fb);
+
+		if (game.isLadder()) {
+			if (!game.canTakeLadder()) {
+				log.append(game.getCurrentPlayer().toString());
+				log.append(" did not have enough tokens to take the ladder. \n(Needed " + game.getLadderCost()
+						+ " tokens)\n");
+			}
+		} else {
+			game.takeChuteOrLadder();
+			log.append(game.fb);
+		}
+
+		game.endTurn();
+		log.append("\n");
+	}
+}
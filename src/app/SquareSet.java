@@ -0,0 +1,194 @@
+package app;
+
+import java.util.BitSet;
+
+/**
+ * A set of squares 0 to n - 1 that can count its members in any range and find
+ * its k-th smallest member, both in O(log n) time. Members are kept in a
+ * Fenwick tree of 0/1 counts, so a random member of a range is drawn directly
+ * from its rank without retrying squares that are not in the set.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class SquareSet {
+	private final int[] tree; // tree[i] counts the members in (i - lowbit(i), i], 1-based
+	private final boolean[] member;
+	private final int n;
+	private int size;
+
+	/**
+	 * Initializes a set holding every square from lo (inclusive) to hi
+	 * (exclusive) in O(n) time.
+	 *
+	 * @param n  number of squares the set can hold
+	 * @param lo first square in the set
+	 * @param hi one more than the last square in the set
+	 */
+	public SquareSet(int n, int lo, int hi) {
+		this.n = n;
+		tree = new int[n + 1];
+		member = new boolean[n];
+		for (int v = Math.max(lo, 0); v < Math.min(hi, n); v++) {
+			member[v] = true;
+			tree[v + 1] = 1;
+			size++;
+		}
+		buildTree();
+	}
+
+	/**
+	 * Initializes a set holding the squares set in a bitset in O(n) time.
+	 *
+	 * @param n       number of squares the set can hold
+	 * @param members squares in the set
+	 */
+	public SquareSet(int n, BitSet members) {
+		this.n = n;
+		tree = new int[n + 1];
+		member = new boolean[n];
+		for (int v = members.nextSetBit(0); v >= 0 && v < n; v = members.nextSetBit(v + 1)) {
+			member[v] = true;
+			tree[v + 1] = 1;
+			size++;
+		}
+		buildTree();
+	}
+
+	// helper method to add the count of every node to its parent, bottom up
+	private void buildTree() {
+		for (int i = 1; i <= n; i++) {
+			int parent = i + (i & -i);
+			if (parent <= n)
+				tree[parent] += tree[i];
+		}
+	}
+
+	/**
+	 * Returns true if square v is in the set.
+	 *
+	 * @param v square
+	 * @return true if v is a member
+	 */
+	public boolean contains(int v) {
+		return v >= 0 && v < n && member[v];
+	}
+
+	/**
+	 * Returns the number of squares in the set.
+	 *
+	 * @return number of members
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Adds square v to the set.
+	 *
+	 * @param v square
+	 */
+	public void add(int v) {
+		if (!member[v]) {
+			member[v] = true;
+			update(v, 1);
+		}
+	}
+
+	/**
+	 * Removes square v from the set.
+	 *
+	 * @param v square
+	 */
+	public void remove(int v) {
+		if (member[v]) {
+			member[v] = false;
+			update(v, -1);
+		}
+	}
+
+	// helper method to add delta to the count of square v
+	private void update(int v, int delta) {
+		size += delta;
+		for (int i = v + 1; i <= n; i += i & -i) {
+			tree[i] += delta;
+		}
+	}
+
+	// helper method to count the members below square v
+	private int below(int v) {
+		int count = 0;
+		for (int i = Math.min(Math.max(v, 0), n); i > 0; i -= i & -i) {
+			count += tree[i];
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the number of members from lo (inclusive) to hi (exclusive).
+	 *
+	 * @param lo lowest square
+	 * @param hi one more than the highest square
+	 * @return number of members in the range
+	 */
+	public int count(int lo, int hi) {
+		return hi <= lo ? 0 : below(hi) - below(lo);
+	}
+
+	/**
+	 * Returns the k-th smallest member, counting from 0.
+	 *
+	 * @param k rank of the member
+	 * @return square with k smaller members
+	 */
+	public int select(int k) {
+		if (k < 0 || k >= size)
+			throw new IllegalArgumentException("No member of rank " + k);
+		int i = 0;
+		for (int step = Integer.highestOneBit(n); step > 0; step >>= 1) {
+			if (i + step <= n && tree[i + step] <= k) {
+				i += step;
+				k -= tree[i];
+			}
+		}
+		return i;
+	}
+
+	/**
+	 * Returns the smallest member that is at least v.
+	 *
+	 * @param v square
+	 * @return smallest member &ge; v, or -1 if there is none
+	 */
+	public int ceiling(int v) {
+		int k = below(v);
+		return k < size ? select(k) : -1;
+	}
+
+	/**
+	 * Returns the largest member that is at most v.
+	 *
+	 * @param v square
+	 * @return largest member &le; v, or -1 if there is none
+	 */
+	public int floor(int v) {
+		int k = below(v + 1);
+		return k > 0 ? select(k - 1) : -1;
+	}
+
+	/**
+	 * Returns a member from lo (inclusive) to hi (exclusive) chosen uniformly at
+	 * random, or -1 if the range has no members.
+	 *
+	 * @param random random source
+	 * @param lo     lowest square
+	 * @param hi     one more than the highest square
+	 * @return random member of the range, or -1
+	 */
+	public int sample(RandomSource random, int lo, int hi) {
+		int count = count(lo, hi);
+		if (count == 0)
+			return -1;
+		return select(below(lo) + random.uniform(0, count));
+	}
+}
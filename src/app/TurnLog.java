@@ -0,0 +1,131 @@
+package app;
+
+import javax.swing.AbstractListModel;
+
+/**
+ * Keeps the most recent lines of the turn log for display in a JList. Text is
+ * appended the same way as to a JTextArea and split into lines, which are kept
+ * in a ring buffer of fixed capacity, so the oldest lines are dropped once it
+ * is full and the log never takes more memory however long the session runs.
+ * Listeners are told about the lines added and dropped by each append at once.
+ * <p>
+ * Every complete line can also be copied to a {@link TurnLogFile}, which keeps
+ * the whole log on disk. Like other Swing models, a TurnLog must only be used
+ * on the Event Dispatch Thread.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+@SuppressWarnings("serial")
+public class TurnLog extends AbstractListModel<String> {
+	/** Number of lines kept by default. */
+	public static final int DEFAULT_CAPACITY = 1000;
+	/** Longest line kept; longer text without a line break is split. */
+	static final int MAX_LINE = 1000;
+
+	private final String[] lines;
+	private int first; // index in lines of the oldest line
+	private int size;
+	private final StringBuilder partial = new StringBuilder(); // text after the last line break
+	private TurnLogFile file;
+
+	/**
+	 * Initializes an empty log that keeps the given number of lines.
+	 *
+	 * @param capacity most lines kept
+	 */
+	public TurnLog(int capacity) {
+		lines = new String[capacity];
+	}
+
+	/**
+	 * Sets the file every complete line is also written to.
+	 *
+	 * @param file log file, or null to stop writing lines to a file
+	 */
+	public void setFile(TurnLogFile file) {
+		this.file = file;
+	}
+
+	/**
+	 * Returns the file lines are written to.
+	 *
+	 * @return log file, or null
+	 */
+	public TurnLogFile getFile() {
+		return file;
+	}
+
+	/**
+	 * Appends text to the log. A line is added for every line break, and text
+	 * after the last line break is held until the line is completed.
+	 *
+	 * @param text text to append
+	 */
+	public void append(String text) {
+		int before = size;
+		int added = 0;
+
+		int start = 0;
+		for (int i = text.indexOf('\n'); i >= 0; i = text.indexOf('\n', start)) {
+			partial.append(text, start, i);
+			addLine();
+			added++;
+			start = i + 1;
+		}
+		partial.append(text, start, text.length());
+		if (partial.length() >= MAX_LINE) {
+			addLine();
+			added++;
+		}
+
+		if (added > 0) {
+			int dropped = Math.min(before + added - size, before);
+			if (dropped > 0)
+				fireIntervalRemoved(this, 0, dropped - 1);
+			fireIntervalAdded(this, size - Math.min(added, size), size - 1);
+		}
+	}
+
+	// helper method to move the held text into the ring buffer as a new line
+	private void addLine() {
+		String line = partial.toString();
+		partial.setLength(0);
+		if (file != null)
+			file.write(line);
+
+		if (size == lines.length) {
+			lines[first] = line;
+			first = (first + 1) % lines.length;
+		} else {
+			lines[(first + size) % lines.length] = line;
+			size++;
+		}
+	}
+
+	/**
+	 * Removes every line from the view. Lines already written to the file are
+	 * kept there.
+	 */
+	public void clear() {
+		int before = size;
+		for (int i = 0; i < size; i++) {
+			lines[(first + i) % lines.length] = null;
+		}
+		first = 0;
+		size = 0;
+		partial.setLength(0);
+		if (before > 0)
+			fireIntervalRemoved(this, 0, before - 1);
+	}
+
+	@Override
+	public int getSize() {
+		return size;
+	}
+
+	@Override
+	public String getElementAt(int index) {
+		return lines[(first + index) % lines.length];
+	}
+}
@@ -0,0 +1,172 @@
+package app;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes the lines of a {@link TurnLog} to a rolling log file on a background
+ * thread. Once the file reaches its size limit it is renamed to
+ * <code>name.1</code>, older files move up to <code>name.2</code> and so on,
+ * and a new file is started, so only a fixed number of files is kept.
+ * <p>
+ * Lines wait in a bounded queue for the writer thread. Writing never blocks
+ * the caller: when the queue is full the line is dropped and counted, so the
+ * GUI does not wait for the disk.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public class TurnLogFile implements Closeable {
+	/** Size at which a log file is rolled over by default. */
+	public static final long DEFAULT_MAX_BYTES = 10 << 20;
+	/** Number of log files kept by default, including the current one. */
+	public static final int DEFAULT_MAX_FILES = 5;
+
+	private static final int QUEUE_SIZE = 8192;
+	private static final String END = new String("end of log"); // compared by reference
+	// bytes of the line break newLine() writes, which the log counts as ASCII
+	private static final int NEWLINE_BYTES = System.lineSeparator().length();
+
+	private final Path path;
+	private final long maxBytes;
+	private final int maxFiles;
+	private final BlockingQueue<String> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+	private final Thread writer;
+	private volatile IOException failure;
+	private final LongAdder dropped = new LongAdder();
+
+	private BufferedWriter out;
+	private long bytes;
+
+	/**
+	 * Opens a log file with the default size limit and number of files.
+	 *
+	 * @param path log file
+	 * @throws IOException if the file cannot be opened
+	 */
+	public TurnLogFile(Path path) throws IOException {
+		this(path, DEFAULT_MAX_BYTES, DEFAULT_MAX_FILES);
+	}
+
+	/**
+	 * Opens a log file, appending to it if it already exists, and starts the
+	 * writer thread.
+	 *
+	 * @param path     log file
+	 * @param maxBytes size at which the file is rolled over
+	 * @param maxFiles number of files kept, including the current one
+	 * @throws IOException if the file cannot be opened
+	 */
+	public TurnLogFile(Path path, long maxBytes, int maxFiles) throws IOException {
+		this.path = path;
+		this.maxBytes = maxBytes;
+		this.maxFiles = maxFiles;
+		open();
+
+		writer = new Thread(this::drain, "TurnLogFile writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	// helper method to open the current file for appending
+	private void open() throws IOException {
+		bytes = Files.exists(path) ? Files.size(path) : 0;
+		out = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+				StandardOpenOption.APPEND);
+	}
+
+	/**
+	 * Queues a line to be written.
+	 *
+	 * @param line line without its line break
+	 * @return false if the queue was full and the line was dropped
+	 */
+	public boolean write(String line) {
+		if (queue.offer(line))
+			return true;
+		dropped.increment();
+		return false;
+	}
+
+	/**
+	 * Returns the number of lines dropped because the queue was full.
+	 *
+	 * @return number of dropped lines
+	 */
+	public long dropped() {
+		return dropped.sum();
+	}
+
+	// runs on the writer thread: writes queued lines until the end marker
+	// arrives, flushing whenever the queue runs empty so the file stays current
+	private void drain() {
+		try {
+			String line;
+			while ((line = queue.take()) != END) {
+				if (failure != null)
+					continue;
+				try {
+					out.write(line);
+					out.newLine();
+					bytes += line.length() + NEWLINE_BYTES; // the log is plain ASCII
+					if (bytes >= maxBytes)
+						roll();
+					else if (queue.isEmpty())
+						out.flush();
+				} catch (IOException e) {
+					failure = e;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// helper method to rename the full file and the older files, dropping the
+	// oldest, and start a new file
+	private void roll() throws IOException {
+		out.close();
+		for (int i = maxFiles - 1; i >= 1; i--) {
+			Path older = i == 1 ? path : numbered(i - 1);
+			if (Files.exists(older))
+				Files.move(older, numbered(i), StandardCopyOption.REPLACE_EXISTING);
+		}
+		if (maxFiles <= 1)
+			Files.delete(path);
+		open();
+	}
+
+	// helper method to name the file that is i files older than the current one
+	private Path numbered(int i) {
+		return path.resolveSibling(path.getFileName() + "." + i);
+	}
+
+	/**
+	 * Writes every queued line, stops the writer thread, and closes the file.
+	 *
+	 * @throws IOException if a line could not be written
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			queue.put(END);
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while closing the log", e);
+		} finally {
+			out.close();
+		}
+		if (failure != null)
+			throw failure;
+	}
+}
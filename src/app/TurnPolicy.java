@@ -0,0 +1,72 @@
+package app;
+
+/**
+ * Decides the two choices a player can make during a turn: whether to use the
+ * second spin, and whether to climb a ladder they can afford.
+ *
+ * @author Trevor Colton & Joshua Gray
+ *
+ */
+public interface TurnPolicy {
+	/**
+	 * Plays like the "Game Simulation" button: always keeps the first spin and
+	 * never climbs a ladder.
+	 */
+	TurnPolicy SIMULATION = new TurnPolicy() {
+		public boolean respin(int square, int tokens, int spin) {
+			return false;
+		}
+
+		public boolean takeLadder(int square, int tokens) {
+			return false;
+		}
+
+		public boolean dependsOnTokens() {
+			return false;
+		}
+	};
+
+	/**
+	 * Always keeps the first spin and climbs every ladder it can afford.
+	 */
+	TurnPolicy GREEDY = new TurnPolicy() {
+		public boolean respin(int square, int tokens, int spin) {
+			return false;
+		}
+
+		public boolean takeLadder(int square, int tokens) {
+			return true;
+		}
+	};
+
+	/**
+	 * Checks if the player should spin again after their first spin.
+	 *
+	 * @param square square the player is standing on
+	 * @param tokens tokens held by the player
+	 * @param spin   value of the first spin
+	 * @return true to give up the first spin and spin again
+	 */
+	boolean respin(int square, int tokens, int spin);
+
+	/**
+	 * Checks if the player should climb the ladder they landed on. Only asked
+	 * when the player can afford the ladder.
+	 *
+	 * @param square square with the ladder
+	 * @param tokens tokens held by the player
+	 * @return true to climb the ladder
+	 */
+	boolean takeLadder(int square, int tokens);
+
+	/**
+	 * Returns false if a player following this policy moves the same way whatever
+	 * number of tokens they hold, for example because it never climbs ladders.
+	 * Solvers can then leave tokens out of their state.
+	 *
+	 * @return true if movement depends on tokens
+	 */
+	default boolean dependsOnTokens() {
+		return true;
+	}
+}